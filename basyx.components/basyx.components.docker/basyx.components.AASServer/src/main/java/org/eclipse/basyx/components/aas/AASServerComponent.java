@@ -70,15 +70,20 @@ import org.eclipse.basyx.components.aas.authorization.internal.AuthorizedAASServ
 import org.eclipse.basyx.components.aas.authorization.internal.AuthorizedDefaultServlet;
 import org.eclipse.basyx.components.aas.authorization.internal.AuthorizedDefaultServletParams;
 import org.eclipse.basyx.components.aas.autoregistration.AutoRegisterAASServerFeature;
+import org.eclipse.basyx.components.aas.changestream.MongoDBChangeStreamAASServerFeature;
 import org.eclipse.basyx.components.aas.configuration.AASEventBackend;
 import org.eclipse.basyx.components.aas.configuration.AASServerBackend;
 import org.eclipse.basyx.components.aas.configuration.BaSyxAASServerConfiguration;
 import org.eclipse.basyx.components.aas.delegation.DelegationAASServerFeature;
 import org.eclipse.basyx.components.aas.fileadaptation.FileValueAdaptingAASServerFeature;
+import org.eclipse.basyx.components.aas.history.PropertyHistoryAASServerFeature;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
 import org.eclipse.basyx.components.aas.mqtt.MqttAASServerFeature;
 import org.eclipse.basyx.components.aas.mqtt.MqttV2AASServerFeature;
 import org.eclipse.basyx.components.aas.servlet.AASAggregatorAASXUploadServlet;
 import org.eclipse.basyx.components.aas.servlet.AASAggregatorServlet;
+import org.eclipse.basyx.components.aas.servlet.MongoDBFileStreamingServlet;
+import org.eclipse.basyx.components.aas.writebehind.MongoDBWriteBehindAASServerFeature;
 import org.eclipse.basyx.components.configuration.BaSyxConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxContextConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
@@ -128,6 +133,7 @@ public class AASServerComponent implements IComponent {
 	protected List<Collection<AASBundle>> aasBundles = new ArrayList<>();
 
 	private IAASAggregator aggregator;
+	private MongoDBAASServerComponentFactory mongoDBComponentFactory;
 	// Watcher for AAS Aggregator functionality
 	private boolean isAASXUploadEnabled = false;
 	
@@ -377,11 +383,46 @@ public class AASServerComponent implements IComponent {
 
 		addAASServerFeature(new FileValueAdaptingAASServerFeature(getURL()));
 
+		configureWriteBehindFeature();
+		configureChangeStreamFeature();
+		configurePropertyHistoryFeature();
+
 		if (aasConfig.isAASXUploadEnabled()) {
 			enableAASXUpload();
 		}
 	}
 
+	private void configureWriteBehindFeature() {
+		if (!isMongoDBBackend()) {
+			return;
+		}
+		BaSyxMongoDBConfiguration config = createMongoDbConfiguration();
+		if (config.getWriteBehindWindow() != null) {
+			addAASServerFeature(new MongoDBWriteBehindAASServerFeature(config));
+		}
+	}
+
+	private void configureChangeStreamFeature() {
+		if (!isMongoDBBackend()) {
+			return;
+		}
+		BaSyxMongoDBConfiguration config = createMongoDbConfiguration();
+		if (config.isChangeStreamEnabled()) {
+			addAASServerFeature(new MongoDBChangeStreamAASServerFeature(config));
+		}
+	}
+
+	private void configurePropertyHistoryFeature() {
+		if (!aasConfig.isPropertyHistoryEnabled()) {
+			return;
+		}
+		if (isMongoDBBackend()) {
+			addAASServerFeature(new PropertyHistoryAASServerFeature(aasConfig, createMongoDbConfiguration()));
+		} else {
+			addAASServerFeature(new PropertyHistoryAASServerFeature(aasConfig));
+		}
+	}
+
 	private boolean isAutoRegisterEnabled() {
 		return isRegistryConfigured() && !isSubmodelRegistrationWhiteListConfigured();
 	}
@@ -465,9 +506,21 @@ public class AASServerComponent implements IComponent {
 
 		server.shutdown();
 
+		closeMongoDBBackend();
+
 		logger.info("AAS Server stopped");
 	}
 	
+	private void closeMongoDBBackend() {
+		if (aggregator instanceof MongoDBAASAggregator) {
+			((MongoDBAASAggregator) aggregator).close();
+		}
+		if (mongoDBComponentFactory != null) {
+			mongoDBComponentFactory.release();
+			mongoDBComponentFactory = null;
+		}
+	}
+
 	private void deregisterAASAndSmAddedDuringRuntime() {
 		if(registry == null) {
 			return;
@@ -583,7 +636,7 @@ public class AASServerComponent implements IComponent {
 		return result;
 	}
 
-	private VABHTTPInterface<?> createAggregatorServlet() {
+	private HttpServlet createAggregatorServlet() {
 		aggregator = createAASAggregator();
 		loadAASBundles();
 		
@@ -593,17 +646,25 @@ public class AASServerComponent implements IComponent {
 			}
 		}
 
+		VABHTTPInterface<?> aggregatorServlet;
 		if (isAASXUploadEnabled) {
-			return new AASAggregatorAASXUploadServlet(new AASAggregatorAASXUpload(aggregator));
+			aggregatorServlet = new AASAggregatorAASXUploadServlet(new AASAggregatorAASXUpload(aggregator));
 		} else {
-			return new AASAggregatorServlet(aggregator);
+			aggregatorServlet = new AASAggregatorServlet(aggregator);
+		}
+
+		// Files can only be streamed directly, if no decorator has to intercept the access
+		if (aggregator instanceof MongoDBAASAggregator) {
+			return new MongoDBFileStreamingServlet(aggregatorServlet, (MongoDBAASAggregator) aggregator);
 		}
+		return aggregatorServlet;
 	}
 
 	private IAASAggregator createAASAggregator() {
 		if (isMongoDBBackend()) {
 			try (final var ignored = ElevatedCodeAuthentication.enterElevatedCodeAuthenticationArea()) {
-				return new MongoDBAASServerComponentFactory(createMongoDbConfiguration(), createAASServerDecoratorList(), registry).create();
+				mongoDBComponentFactory = new MongoDBAASServerComponentFactory(createMongoDbConfiguration(), createAASServerDecoratorList(), registry);
+				return mongoDBComponentFactory.create();
 			}
 		}
 		return new InMemoryAASServerComponentFactory(createAASServerDecoratorList(), registry).create();
@@ -34,11 +34,12 @@ import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregatorFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPIFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAggregatorFactory;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileNameMigration;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -57,13 +58,29 @@ public class MongoDBAASServerComponentFactory extends AbstractAASServerComponent
 		this.mongoDBConfig = config;
 		this.aasServerRegistry = aasServerRegistry;
 		this.aasServerDecorators = decorators;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientRegistry.acquire(config);
+		migrateFileNamesIfEnabled();
 	}
 
 	public MongoDBAASServerComponentFactory(BaSyxMongoDBConfiguration config, IAASRegistry aasServerRegistry) {
 		this.mongoDBConfig = config;
 		this.aasServerRegistry = aasServerRegistry;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientRegistry.acquire(config);
+		migrateFileNamesIfEnabled();
+	}
+
+	/**
+	 * Releases the MongoClient acquired by this factory. The aggregators created
+	 * by this factory must not be used afterwards.
+	 */
+	public void release() {
+		MongoDBClientRegistry.release(client);
+	}
+
+	private void migrateFileNamesIfEnabled() {
+		if (mongoDBConfig.isFileNameMigrationEnabled()) {
+			MongoDBFileNameMigration.migrateIfNeeded(client, mongoDBConfig);
+		}
 	}
 
 	@Override
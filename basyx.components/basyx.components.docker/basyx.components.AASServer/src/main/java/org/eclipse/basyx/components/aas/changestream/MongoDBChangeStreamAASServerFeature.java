@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.changestream;
+
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerDecorator;
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerFeature;
+import org.eclipse.basyx.components.aas.aascomponent.PassThroughAASServerDecorator;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBChangeStreamListener;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileCache;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationBus;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationEvent;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Feature watching the MongoDB backend for changes by other server instances.
+ * The changes are published to the {@link MongoDBInvalidationBus} of the
+ * database, to which the local caches subscribe. Local copies of GridFS files
+ * deleted by other instances are removed from the file cache.
+ * 
+ * @see BaSyxMongoDBConfiguration#isChangeStreamEnabled()
+ */
+public class MongoDBChangeStreamAASServerFeature implements IAASServerFeature {
+	private static final String GRIDFS_FILES_SUFFIX = ".files";
+
+	private BaSyxMongoDBConfiguration config;
+	private MongoClient client;
+	private MongoDBChangeStreamListener listener;
+	private Consumer<MongoDBInvalidationEvent> fileCacheInvalidation;
+
+	public MongoDBChangeStreamAASServerFeature(BaSyxMongoDBConfiguration config) {
+		this.config = config;
+	}
+
+	@Override
+	public void initialize() {
+		MongoDBInvalidationBus bus = MongoDBInvalidationBus.get(config);
+		fileCacheInvalidation = this::invalidateFileCache;
+		bus.subscribe(fileCacheInvalidation);
+
+		client = MongoDBClientRegistry.acquire(config);
+		listener = new MongoDBChangeStreamListener(client, config, bus);
+		listener.start();
+	}
+
+	@Override
+	public void cleanUp() {
+		if (listener != null) {
+			listener.stop();
+			listener = null;
+		}
+		if (client != null) {
+			MongoDBClientRegistry.release(client);
+			client = null;
+		}
+		MongoDBInvalidationBus.get(config).unsubscribe(fileCacheInvalidation);
+	}
+
+	private void invalidateFileCache(MongoDBInvalidationEvent event) {
+		MongoDBFileCache cache = MongoDBFileCache.get(config);
+		if (cache == null || !event.getCollectionName().equals(config.getFileCollection() + GRIDFS_FILES_SUFFIX)) {
+			return;
+		}
+		if (event.isCollectionInvalidated()) {
+			cache.clear();
+		} else if (event.getOperationType() == OperationType.DELETE && event.getDocumentId() instanceof ObjectId) {
+			cache.invalidate((ObjectId) event.getDocumentId());
+		}
+	}
+
+	@Override
+	public IAASServerDecorator getDecorator() {
+		return new PassThroughAASServerDecorator();
+	}
+}
@@ -70,6 +70,11 @@ public class BaSyxAASServerConfiguration extends BaSyxConfiguration {
 	public static final String DEFAULT_CLIENT_SECRET = "";
 	public static final String DEFAULT_CLIENT_SCOPES = "[]";
 	public static final String DEFAULT_PROPERTY_DELEGATION = FEATURE_ENABLED;
+	public static final String DEFAULT_PROPERTY_HISTORY = FEATURE_DISABLED;
+	public static final String DEFAULT_PROPERTY_HISTORY_CAPACITY = "1000";
+	public static final String DEFAULT_PROPERTY_HISTORY_BUCKET_SIZE = "60";
+	public static final String DEFAULT_PROPERTY_HISTORY_RETENTION = "";
+	public static final String DEFAULT_PROPERTY_HISTORY_BUCKET_RETENTION = "";
 
 	// Configuration keys
 	public static final String REGISTRY = "registry.path";
@@ -88,6 +93,11 @@ public class BaSyxAASServerConfiguration extends BaSyxConfiguration {
 	public static final String CLIENT_SECRET = "clientSecret";
 	public static final String CLIENT_SCOPES = "clientScopes";
 	public static final String PROPERTY_DELEGATION = "aas.delegation";
+	public static final String PROPERTY_HISTORY = "aas.propertyHistory";
+	public static final String PROPERTY_HISTORY_CAPACITY = "aas.propertyHistoryCapacity";
+	public static final String PROPERTY_HISTORY_BUCKET_SIZE = "aas.propertyHistoryBucketSize";
+	public static final String PROPERTY_HISTORY_RETENTION = "aas.propertyHistoryRetention";
+	public static final String PROPERTY_HISTORY_BUCKET_RETENTION = "aas.propertyHistoryBucketRetention";
 
 	// The default path for the context properties file
 	public static final String DEFAULT_CONFIG_PATH = "aas.properties";
@@ -112,6 +122,11 @@ public class BaSyxAASServerConfiguration extends BaSyxConfiguration {
 		defaultProps.put(CLIENT_SECRET, DEFAULT_CLIENT_SECRET);
 		defaultProps.put(CLIENT_SCOPES, DEFAULT_CLIENT_SCOPES);
 		defaultProps.put(PROPERTY_DELEGATION, DEFAULT_PROPERTY_DELEGATION);
+		defaultProps.put(PROPERTY_HISTORY, DEFAULT_PROPERTY_HISTORY);
+		defaultProps.put(PROPERTY_HISTORY_CAPACITY, DEFAULT_PROPERTY_HISTORY_CAPACITY);
+		defaultProps.put(PROPERTY_HISTORY_BUCKET_SIZE, DEFAULT_PROPERTY_HISTORY_BUCKET_SIZE);
+		defaultProps.put(PROPERTY_HISTORY_RETENTION, DEFAULT_PROPERTY_HISTORY_RETENTION);
+		defaultProps.put(PROPERTY_HISTORY_BUCKET_RETENTION, DEFAULT_PROPERTY_HISTORY_BUCKET_RETENTION);
 		return defaultProps;
 	}
 
@@ -177,7 +192,8 @@ public class BaSyxAASServerConfiguration extends BaSyxConfiguration {
 	}
 
 	public void loadFromEnvironmentVariables() {
-		String[] properties = { REGISTRY, BACKEND, SOURCE, EVENTS, HOSTPATH, HOSTPATH_NEW, AASX_UPLOAD, AUTHORIZATION, TOKEN_ENDPOINT, CLIENT_ID, CLIENT_SECRET, CLIENT_SCOPES, PROPERTY_DELEGATION, ID };
+		String[] properties = { REGISTRY, BACKEND, SOURCE, EVENTS, HOSTPATH, HOSTPATH_NEW, AASX_UPLOAD, AUTHORIZATION, TOKEN_ENDPOINT, CLIENT_ID, CLIENT_SECRET, CLIENT_SCOPES, PROPERTY_DELEGATION, ID,
+				PROPERTY_HISTORY, PROPERTY_HISTORY_CAPACITY, PROPERTY_HISTORY_BUCKET_SIZE, PROPERTY_HISTORY_RETENTION, PROPERTY_HISTORY_BUCKET_RETENTION };
 		loadFromEnvironmentVariables(ENV_PREFIX, properties);
 	}
 
@@ -372,6 +388,74 @@ public class BaSyxAASServerConfiguration extends BaSyxConfiguration {
 		return getProperty(PROPERTY_DELEGATION).equals(FEATURE_ENABLED);
 	}
 
+	public void enablePropertyHistory() {
+		setProperty(PROPERTY_HISTORY, FEATURE_ENABLED);
+	}
+
+	public void disablePropertyHistory() {
+		setProperty(PROPERTY_HISTORY, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns whether the values written to properties are recorded, so that
+	 * their history can be queried
+	 */
+	public boolean isPropertyHistoryEnabled() {
+		return getProperty(PROPERTY_HISTORY).equals(FEATURE_ENABLED);
+	}
+
+	/**
+	 * Returns the number of values kept per property by the InMemory backend
+	 */
+	public int getPropertyHistoryCapacity() {
+		return Integer.parseInt(getProperty(PROPERTY_HISTORY_CAPACITY));
+	}
+
+	public void setPropertyHistoryCapacity(int capacity) {
+		setProperty(PROPERTY_HISTORY_CAPACITY, Integer.toString(capacity));
+	}
+
+	/**
+	 * Returns the length in seconds of the intervals, to which numeric values
+	 * are downsampled
+	 */
+	public long getPropertyHistoryBucketSize() {
+		return Long.parseLong(getProperty(PROPERTY_HISTORY_BUCKET_SIZE));
+	}
+
+	public void setPropertyHistoryBucketSize(long seconds) {
+		setProperty(PROPERTY_HISTORY_BUCKET_SIZE, Long.toString(seconds));
+	}
+
+	/**
+	 * Returns the time in seconds, after which recorded values expire, or null,
+	 * if they are kept
+	 */
+	public Long getPropertyHistoryRetention() {
+		return getOptionalSeconds(PROPERTY_HISTORY_RETENTION);
+	}
+
+	public void setPropertyHistoryRetention(long seconds) {
+		setProperty(PROPERTY_HISTORY_RETENTION, Long.toString(seconds));
+	}
+
+	/**
+	 * Returns the time in seconds, after which downsampled values expire, or
+	 * null, if they are kept
+	 */
+	public Long getPropertyHistoryBucketRetention() {
+		return getOptionalSeconds(PROPERTY_HISTORY_BUCKET_RETENTION);
+	}
+
+	public void setPropertyHistoryBucketRetention(long seconds) {
+		setProperty(PROPERTY_HISTORY_BUCKET_RETENTION, Long.toString(seconds));
+	}
+
+	private Long getOptionalSeconds(String key) {
+		String value = getProperty(key);
+		return value == null || value.isEmpty() ? null : Long.parseLong(value);
+	}
+
 	public boolean isAuthorizationCredentialsForSecuredRegistryConfigured() {
 		return isTokenEndpointConfigured() && isClientIdConfigured() && isClientSecretConfigured() && isScopeConfigured();
 	}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.executable;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileNameMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoClient;
+
+/**
+ * Migrates the GridFS files of the MongoDB backend stored with legacy file names
+ * to the current naming scheme, see {@link MongoDBFileNameMigration}. The
+ * MongoDB configuration is loaded from the default source or from the resource
+ * given as first argument. The migration is run again, even if it has been run
+ * before.
+ */
+public class MongoDBFileNameMigrationExecutable {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBFileNameMigrationExecutable.class);
+
+	public static void main(String[] args) {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		if (args.length > 0) {
+			config.loadFromResource(args[0]);
+		} else {
+			config.loadFromDefaultSource();
+		}
+
+		MongoClient client = MongoDBClientRegistry.acquire(config);
+		try {
+			MongoDBFileNameMigration.Result result = new MongoDBFileNameMigration(client, config).migrate();
+			logger.info("File name migration finished: {}", result);
+		} finally {
+			MongoDBClientRegistry.release(client);
+		}
+	}
+}
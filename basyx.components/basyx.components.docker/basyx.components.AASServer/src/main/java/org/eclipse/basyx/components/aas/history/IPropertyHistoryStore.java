@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Records the values written to properties and returns them per time range,
+ * either as recorded or downsampled to buckets of a fixed length
+ */
+public interface IPropertyHistoryStore {
+	/**
+	 * Records a value of the property
+	 * 
+	 * @param submodelId
+	 *            the identification id of the submodel
+	 * @param idShortPath
+	 *            the idShort path of the property, e.g. <i>a/b</i>
+	 * @param value
+	 *            the written value
+	 * @param timestamp
+	 *            the time of the write
+	 */
+	public void record(String submodelId, String idShortPath, Object value, Instant timestamp);
+
+	/**
+	 * Returns the recorded values of the property ordered by time
+	 * 
+	 * @param from
+	 *            the inclusive start of the time range or null
+	 * @param to
+	 *            the exclusive end of the time range or null
+	 * @param limit
+	 *            the maximum number of returned values
+	 */
+	public List<PropertyHistorySample> getSamples(String submodelId, String idShortPath, Instant from, Instant to, int limit);
+
+	/**
+	 * Returns the buckets of the numeric values of the property ordered by time.
+	 * Non-numeric values are not downsampled.
+	 * 
+	 * @param from
+	 *            the inclusive start of the time range or null
+	 * @param to
+	 *            the exclusive end of the time range or null
+	 * @param limit
+	 *            the maximum number of returned buckets
+	 */
+	public List<PropertyHistoryBucket> getBuckets(String submodelId, String idShortPath, Instant from, Instant to, int limit);
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the latest values of each property in a ring buffer of fixed capacity,
+ * i.e. the oldest value is dropped when a value is recorded to a full buffer.
+ * The buckets are aggregated from the kept values when they are queried.
+ */
+public class InMemoryPropertyHistoryStore implements IPropertyHistoryStore {
+	private final int capacity;
+	private final long bucketSeconds;
+	private final Duration retention;
+	private final Map<List<String>, Deque<PropertyHistorySample>> histories = new ConcurrentHashMap<>();
+
+	/**
+	 * @param capacity
+	 *            the number of values kept per property
+	 * @param bucketSeconds
+	 *            the length of the buckets in seconds
+	 * @param retention
+	 *            the age, after which values are dropped, or null to keep them
+	 *            until the buffer is full
+	 */
+	public InMemoryPropertyHistoryStore(int capacity, long bucketSeconds, Duration retention) {
+		this.capacity = capacity;
+		this.bucketSeconds = bucketSeconds;
+		this.retention = retention;
+	}
+
+	@Override
+	public void record(String submodelId, String idShortPath, Object value, Instant timestamp) {
+		Deque<PropertyHistorySample> history = histories.computeIfAbsent(Arrays.asList(submodelId, idShortPath), key -> new ArrayDeque<>());
+		synchronized (history) {
+			if (history.size() >= capacity) {
+				history.removeFirst();
+			}
+			history.addLast(new PropertyHistorySample(timestamp, value));
+		}
+	}
+
+	@Override
+	public List<PropertyHistorySample> getSamples(String submodelId, String idShortPath, Instant from, Instant to, int limit) {
+		return getRetainedSamples(submodelId, idShortPath, from, to).stream().limit(limit).collect(Collectors.toList());
+	}
+
+	@Override
+	public List<PropertyHistoryBucket> getBuckets(String submodelId, String idShortPath, Instant from, Instant to, int limit) {
+		TreeMap<Instant, PropertyHistoryBucket> buckets = new TreeMap<>();
+		for (PropertyHistorySample sample : getRetainedSamples(submodelId, idShortPath, from, to)) {
+			if (sample.getValue() instanceof Number) {
+				double value = ((Number) sample.getValue()).doubleValue();
+				Instant start = Instant.ofEpochSecond(Math.floorDiv(sample.getTimestamp().getEpochSecond(), bucketSeconds) * bucketSeconds);
+				buckets.merge(start, new PropertyHistoryBucket(start, value), (bucket, added) -> bucket.add(value));
+			}
+		}
+		return buckets.values().stream().limit(limit).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the samples within the time range, which have not expired
+	 */
+	private List<PropertyHistorySample> getRetainedSamples(String submodelId, String idShortPath, Instant from, Instant to) {
+		Deque<PropertyHistorySample> history = histories.get(Arrays.asList(submodelId, idShortPath));
+		if (history == null) {
+			return new ArrayList<>();
+		}
+		Instant expiry = retention == null ? null : Instant.now().minus(retention);
+		List<PropertyHistorySample> samples;
+		synchronized (history) {
+			if (expiry != null) {
+				history.removeIf(sample -> sample.getTimestamp().isBefore(expiry));
+			}
+			samples = new ArrayList<>(history);
+		}
+		return samples.stream()
+				.filter(sample -> from == null || !sample.getTimestamp().isBefore(from))
+				.filter(sample -> to == null || sample.getTimestamp().isBefore(to))
+				.sorted(Comparator.comparing(PropertyHistorySample::getTimestamp))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Records the property values in a MongoDB time-series collection, whose
+ * documents expire after the configured retention. Numeric values are
+ * additionally aggregated into the bucket collection
+ * <i>&lt;collection&gt;.buckets</i> when they are recorded, so that downsampled
+ * ranges are read without scanning the recorded values. The buckets may be
+ * retained longer than the values.
+ * 
+ * Time-series collections require MongoDB 5.0. On older servers, the values
+ * are recorded in a regular collection with a TTL index instead.
+ */
+public class MongoDBPropertyHistoryStore implements IPropertyHistoryStore {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBPropertyHistoryStore.class);
+
+	public static final String BUCKETS_SUFFIX = ".buckets";
+
+	private static final String TIMESTAMP = "timestamp";
+	private static final String META = "meta";
+	private static final String SUBMODEL_ID = "submodelId";
+	private static final String ID_SHORT_PATH = "idShortPath";
+	private static final String META_SUBMODEL_ID = META + "." + SUBMODEL_ID;
+	private static final String META_ID_SHORT_PATH = META + "." + ID_SHORT_PATH;
+	private static final String VALUE = "value";
+	private static final String START = "start";
+	private static final String MIN = "min";
+	private static final String MAX = "max";
+	private static final String SUM = "sum";
+	private static final String COUNT = "count";
+	private static final int NAMESPACE_EXISTS = 48;
+
+	private final MongoCollection<Document> samples;
+	private final MongoCollection<Document> buckets;
+	private final long bucketSeconds;
+
+	/**
+	 * Creates the collections and their indexes, if they do not exist yet. The
+	 * retention of existing collections is not changed.
+	 * 
+	 * @param client
+	 * @param config
+	 *            provides the database and the name of the collection
+	 * @param bucketSeconds
+	 *            the length of the buckets in seconds
+	 * @param retentionSeconds
+	 *            the age, after which values expire, or null to keep them
+	 * @param bucketRetentionSeconds
+	 *            the age, after which buckets expire, or null to keep them
+	 */
+	public MongoDBPropertyHistoryStore(MongoClient client, BaSyxMongoDBConfiguration config, long bucketSeconds, Long retentionSeconds, Long bucketRetentionSeconds) {
+		MongoDatabase database = client.getDatabase(config.getDatabase());
+		String collectionName = config.getHistoryCollection();
+		boolean isTimeSeries = createTimeSeriesCollection(database, collectionName, retentionSeconds);
+		this.samples = database.getCollection(collectionName);
+		this.buckets = database.getCollection(collectionName + BUCKETS_SUFFIX);
+		this.bucketSeconds = bucketSeconds;
+
+		createIndex(samples, Indexes.ascending(META_SUBMODEL_ID, META_ID_SHORT_PATH, TIMESTAMP), new IndexOptions());
+		if (!isTimeSeries && retentionSeconds != null) {
+			createIndex(samples, Indexes.ascending(TIMESTAMP), new IndexOptions().expireAfter(retentionSeconds, TimeUnit.SECONDS));
+		}
+		createIndex(buckets, Indexes.ascending(SUBMODEL_ID, ID_SHORT_PATH, START), new IndexOptions().unique(true));
+		if (bucketRetentionSeconds != null) {
+			createIndex(buckets, Indexes.ascending(START), new IndexOptions().expireAfter(bucketRetentionSeconds, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * @return false, if the server does not support time-series collections
+	 */
+	private static boolean createTimeSeriesCollection(MongoDatabase database, String collectionName, Long retentionSeconds) {
+		TimeSeriesOptions timeSeries = new TimeSeriesOptions(TIMESTAMP).metaField(META).granularity(TimeSeriesGranularity.SECONDS);
+		CreateCollectionOptions options = new CreateCollectionOptions().timeSeriesOptions(timeSeries);
+		if (retentionSeconds != null) {
+			options.expireAfter(retentionSeconds, TimeUnit.SECONDS);
+		}
+		try {
+			database.createCollection(collectionName, options);
+			return true;
+		} catch (MongoCommandException e) {
+			if (e.getErrorCode() == NAMESPACE_EXISTS) {
+				return true;
+			}
+			logger.warn("Could not create the time-series collection {}, recording to a regular collection instead: {}", collectionName, e.getMessage());
+			return false;
+		}
+	}
+
+	private static void createIndex(MongoCollection<Document> collection, Bson keys, IndexOptions options) {
+		try {
+			collection.createIndex(keys, options);
+		} catch (MongoException e) {
+			logger.warn("Could not create index {} on collection {}: {}", keys, collection.getNamespace(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void record(String submodelId, String idShortPath, Object value, Instant timestamp) {
+		Document meta = new Document(SUBMODEL_ID, submodelId).append(ID_SHORT_PATH, idShortPath);
+		samples.insertOne(new Document(TIMESTAMP, Date.from(timestamp)).append(META, meta).append(VALUE, value));
+		if (value instanceof Number) {
+			updateBucket(submodelId, idShortPath, ((Number) value).doubleValue(), timestamp);
+		}
+	}
+
+	private void updateBucket(String submodelId, String idShortPath, double value, Instant timestamp) {
+		Date start = new Date(Math.floorDiv(timestamp.getEpochSecond(), bucketSeconds) * bucketSeconds * 1000);
+		Bson bucket = Filters.and(Filters.eq(SUBMODEL_ID, submodelId), Filters.eq(ID_SHORT_PATH, idShortPath), Filters.eq(START, start));
+		Bson update = Updates.combine(Updates.min(MIN, value), Updates.max(MAX, value), Updates.inc(SUM, value), Updates.inc(COUNT, 1L));
+		UpdateOptions upsert = new UpdateOptions().upsert(true);
+		try {
+			buckets.updateOne(bucket, update, upsert);
+		} catch (MongoWriteException e) {
+			if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+				throw e;
+			}
+			// A concurrent upsert created the bucket, so this one now updates it
+			buckets.updateOne(bucket, update, upsert);
+		}
+	}
+
+	@Override
+	public List<PropertyHistorySample> getSamples(String submodelId, String idShortPath, Instant from, Instant to, int limit) {
+		Bson filter = Filters.and(Filters.eq(META_SUBMODEL_ID, submodelId), Filters.eq(META_ID_SHORT_PATH, idShortPath), inRange(TIMESTAMP, from, to));
+		List<PropertyHistorySample> result = new ArrayList<>();
+		for (Document sample : samples.find(filter).sort(Sorts.ascending(TIMESTAMP)).limit(limit)) {
+			Object value = sample.get(VALUE);
+			if (value instanceof Decimal128) {
+				value = ((Decimal128) value).bigDecimalValue();
+			}
+			result.add(new PropertyHistorySample(sample.getDate(TIMESTAMP).toInstant(), value));
+		}
+		return result;
+	}
+
+	@Override
+	public List<PropertyHistoryBucket> getBuckets(String submodelId, String idShortPath, Instant from, Instant to, int limit) {
+		Bson filter = Filters.and(Filters.eq(SUBMODEL_ID, submodelId), Filters.eq(ID_SHORT_PATH, idShortPath), inRange(START, from, to));
+		List<PropertyHistoryBucket> result = new ArrayList<>();
+		for (Document bucket : buckets.find(filter).sort(Sorts.ascending(START)).limit(limit)) {
+			Instant start = bucket.getDate(START).toInstant();
+			result.add(new PropertyHistoryBucket(start, bucket.getDouble(MIN), bucket.getDouble(MAX), bucket.getDouble(SUM), bucket.getLong(COUNT)));
+		}
+		return result;
+	}
+
+	private static Bson inRange(String field, Instant from, Instant to) {
+		List<Bson> bounds = new ArrayList<>();
+		if (from != null) {
+			bounds.add(Filters.gte(field, Date.from(from)));
+		}
+		if (to != null) {
+			bounds.add(Filters.lt(field, Date.from(to)));
+		}
+		return bounds.isEmpty() ? Filters.exists(field) : Filters.and(bounds);
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.time.Duration;
+
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerDecorator;
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerFeature;
+import org.eclipse.basyx.components.aas.configuration.BaSyxAASServerConfiguration;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.vab.protocol.http.server.BaSyxContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoClient;
+
+/**
+ * Feature recording the history of the property values. The history is kept in
+ * memory, or in MongoDB if a MongoDB configuration is given, and is served
+ * read-only at {@value #HISTORY_PATH}. Since the endpoint bypasses the
+ * submodel element authorization, it is not served if authorization is
+ * enabled.
+ * 
+ * @see BaSyxAASServerConfiguration#isPropertyHistoryEnabled()
+ */
+public class PropertyHistoryAASServerFeature implements IAASServerFeature {
+	private static Logger logger = LoggerFactory.getLogger(PropertyHistoryAASServerFeature.class);
+
+	public static final String HISTORY_PATH = "/history";
+
+	private BaSyxAASServerConfiguration aasConfig;
+	private BaSyxMongoDBConfiguration mongoDBConfig;
+	private MongoClient client;
+	private IPropertyHistoryStore store;
+
+	public PropertyHistoryAASServerFeature(BaSyxAASServerConfiguration aasConfig) {
+		this.aasConfig = aasConfig;
+	}
+
+	public PropertyHistoryAASServerFeature(BaSyxAASServerConfiguration aasConfig, BaSyxMongoDBConfiguration mongoDBConfig) {
+		this(aasConfig);
+		this.mongoDBConfig = mongoDBConfig;
+	}
+
+	@Override
+	public void initialize() {
+		long bucketSeconds = aasConfig.getPropertyHistoryBucketSize();
+		Long retention = aasConfig.getPropertyHistoryRetention();
+		if (mongoDBConfig == null) {
+			store = new InMemoryPropertyHistoryStore(aasConfig.getPropertyHistoryCapacity(), bucketSeconds, retention == null ? null : Duration.ofSeconds(retention));
+			return;
+		}
+		client = MongoDBClientRegistry.acquire(mongoDBConfig);
+		store = new MongoDBPropertyHistoryStore(client, mongoDBConfig, bucketSeconds, retention, aasConfig.getPropertyHistoryBucketRetention());
+	}
+
+	@Override
+	public void cleanUp() {
+		if (client != null) {
+			MongoDBClientRegistry.release(client);
+			client = null;
+		}
+	}
+
+	@Override
+	public IAASServerDecorator getDecorator() {
+		return new PropertyHistoryAASServerDecorator(store);
+	}
+
+	@Override
+	public void addToContext(BaSyxContext context) {
+		if (aasConfig.isAuthorizationEnabled()) {
+			logger.warn("The property history is recorded, but not served at {}, since the endpoint does not support authorization", HISTORY_PATH);
+			return;
+		}
+		context.addServletMapping(HISTORY_PATH + "/*", new PropertyHistoryServlet(store));
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.time.Instant;
+
+/**
+ * Aggregate of the numeric values recorded for a property within one interval
+ * of the configured bucket size
+ */
+public class PropertyHistoryBucket {
+	private final Instant start;
+	private final double min;
+	private final double max;
+	private final double sum;
+	private final long count;
+
+	public PropertyHistoryBucket(Instant start, double min, double max, double sum, long count) {
+		this.start = start;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+		this.count = count;
+	}
+
+	/**
+	 * Creates the bucket of a single value
+	 */
+	public PropertyHistoryBucket(Instant start, double value) {
+		this(start, value, value, value, 1);
+	}
+
+	/**
+	 * Returns a bucket additionally containing the given value
+	 */
+	public PropertyHistoryBucket add(double value) {
+		return new PropertyHistoryBucket(start, Math.min(min, value), Math.max(max, value), sum + value, count + 1);
+	}
+
+	public Instant getStart() {
+		return start;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getAverage() {
+		return sum / count;
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.eclipse.basyx.vab.modelprovider.api.IModelProvider;
+
+/**
+ * Read-only provider for the recorded property history. The history of a
+ * property is read from
+ * <i>/&lt;URL-encoded submodel id&gt;/&lt;idShortPath&gt;</i>, optionally
+ * restricted by the query parameters
+ * <ul>
+ * <li><i>from</i>, <i>to</i>: ISO-8601 instants bounding the time range, with
+ * <i>to</i> being exclusive</li>
+ * <li><i>downsampled</i>: if true, the per-bucket aggregates of numeric values
+ * are returned instead of the recorded values</li>
+ * <li><i>limit</i>: the maximum number of entries, oldest first</li>
+ * </ul>
+ */
+public class PropertyHistoryProvider implements IModelProvider {
+	public static final String FROM = "from";
+	public static final String TO = "to";
+	public static final String DOWNSAMPLED = "downsampled";
+	public static final String LIMIT = "limit";
+	public static final int DEFAULT_LIMIT = 10000;
+
+	private IPropertyHistoryStore store;
+
+	public PropertyHistoryProvider(IPropertyHistoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public Object getValue(String path) throws ProviderException {
+		String[] pathAndQuery = path.split("\\?", 2);
+		String[] elements = VABPathTools.splitPath(pathAndQuery[0]);
+		if (elements.length < 2) {
+			throw new MalformedRequestException("The path must consist of the URL-encoded submodel id and the idShortPath, but is " + pathAndQuery[0]);
+		}
+		String submodelId = URLDecoder.decode(elements[0], StandardCharsets.UTF_8);
+		String idShortPath = String.join("/", Arrays.copyOfRange(elements, 1, elements.length));
+
+		Map<String, String> parameters = parseQuery(pathAndQuery.length > 1 ? pathAndQuery[1] : "");
+		Instant from = parseInstant(parameters, FROM);
+		Instant to = parseInstant(parameters, TO);
+		int limit = parseLimit(parameters);
+
+		if (Boolean.parseBoolean(parameters.get(DOWNSAMPLED))) {
+			return store.getBuckets(submodelId, idShortPath, from, to, limit).stream().map(PropertyHistoryProvider::toMap).collect(Collectors.toList());
+		}
+		return store.getSamples(submodelId, idShortPath, from, to, limit).stream().map(PropertyHistoryProvider::toMap).collect(Collectors.toList());
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		for (String parameter : query.split("&")) {
+			if (parameter.isEmpty()) {
+				continue;
+			}
+			String[] keyAndValue = parameter.split("=", 2);
+			String value = keyAndValue.length > 1 ? URLDecoder.decode(keyAndValue[1], StandardCharsets.UTF_8) : "";
+			parameters.put(keyAndValue[0], value);
+		}
+		return parameters;
+	}
+
+	private static Instant parseInstant(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return Instant.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new MalformedRequestException("The parameter " + name + " must be an ISO-8601 instant, but is " + value);
+		}
+	}
+
+	private static int parseLimit(Map<String, String> parameters) {
+		String value = parameters.get(LIMIT);
+		if (value == null || value.isEmpty()) {
+			return DEFAULT_LIMIT;
+		}
+		try {
+			int limit = Integer.parseInt(value);
+			if (limit > 0) {
+				return limit;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new MalformedRequestException("The limit must be a positive integer, but is " + value);
+	}
+
+	private static Map<String, Object> toMap(PropertyHistorySample sample) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("timestamp", sample.getTimestamp().toString());
+		map.put("value", sample.getValue());
+		return map;
+	}
+
+	private static Map<String, Object> toMap(PropertyHistoryBucket bucket) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("start", bucket.getStart().toString());
+		map.put("min", bucket.getMin());
+		map.put("max", bucket.getMax());
+		map.put("avg", bucket.getAverage());
+		map.put("count", bucket.getCount());
+		return map;
+	}
+
+	@Override
+	public void setValue(String path, Object newValue) throws ProviderException {
+		throw readOnly();
+	}
+
+	@Override
+	public void createValue(String path, Object newEntity) throws ProviderException {
+		throw readOnly();
+	}
+
+	@Override
+	public void deleteValue(String path) throws ProviderException {
+		throw readOnly();
+	}
+
+	@Override
+	public void deleteValue(String path, Object obj) throws ProviderException {
+		throw readOnly();
+	}
+
+	@Override
+	public Object invokeOperation(String path, Object... parameter) throws ProviderException {
+		throw readOnly();
+	}
+
+	private static MalformedRequestException readOnly() {
+		return new MalformedRequestException("The property history is read-only");
+	}
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.history;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
+import org.eclipse.basyx.submodel.metamodel.api.ISubmodel;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.operation.IOperation;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Submodel API that records the values written to the submodel elements in an
+ * {@link IPropertyHistoryStore}. Only numeric, string and boolean values are
+ * recorded. A failure to record a value does not fail the update.
+ */
+public class PropertyHistorySubmodelAPI implements ISubmodelAPI {
+	private static Logger logger = LoggerFactory.getLogger(PropertyHistorySubmodelAPI.class);
+
+	private ISubmodelAPI decorated;
+	private String submodelId;
+	private IPropertyHistoryStore store;
+
+	public PropertyHistorySubmodelAPI(ISubmodelAPI decorated, String submodelId, IPropertyHistoryStore store) {
+		this.decorated = decorated;
+		this.submodelId = submodelId;
+		this.store = store;
+	}
+
+	@Override
+	public ISubmodel getSubmodel() {
+		return decorated.getSubmodel();
+	}
+
+	@Override
+	public void addSubmodelElement(ISubmodelElement elem) {
+		decorated.addSubmodelElement(elem);
+	}
+
+	@Override
+	public void addSubmodelElement(String idShortPath, ISubmodelElement elem) {
+		decorated.addSubmodelElement(idShortPath, elem);
+	}
+
+	@Override
+	public ISubmodelElement getSubmodelElement(String idShortPath) {
+		return decorated.getSubmodelElement(idShortPath);
+	}
+
+	@Override
+	public void deleteSubmodelElement(String idShortPath) {
+		decorated.deleteSubmodelElement(idShortPath);
+	}
+
+	@Override
+	public Collection<IOperation> getOperations() {
+		return decorated.getOperations();
+	}
+
+	@Override
+	public Collection<ISubmodelElement> getSubmodelElements() {
+		return decorated.getSubmodelElements();
+	}
+
+	@Override
+	public void updateSubmodelElement(String idShortPath, Object newValue) {
+		decorated.updateSubmodelElement(idShortPath, newValue);
+		record(idShortPath, newValue);
+	}
+
+	private void record(String idShortPath, Object newValue) {
+		Object value = unwrapValue(newValue);
+		if (!(value instanceof Number || value instanceof String || value instanceof Boolean)) {
+			return;
+		}
+		String normalizedPath = String.join("/", VABPathTools.splitPath(idShortPath));
+		try {
+			store.record(submodelId, normalizedPath, value, Instant.now());
+		} catch (RuntimeException e) {
+			logger.warn("Could not record the value of {} in submodel {}", normalizedPath, submodelId, e);
+		}
+	}
+
+	/**
+	 * Values may be written either plainly or wrapped in a map, e.g. by the
+	 * element serialization of the connected submodel
+	 */
+	private static Object unwrapValue(Object newValue) {
+		if (newValue instanceof Map<?, ?>) {
+			return ((Map<?, ?>) newValue).get(Property.VALUE);
+		}
+		return newValue;
+	}
+
+	@Override
+	public Object getSubmodelElementValue(String idShortPath) {
+		return decorated.getSubmodelElementValue(idShortPath);
+	}
+
+	@Override
+	public Object invokeOperation(String idShortPath, Object... params) {
+		return decorated.invokeOperation(idShortPath, params);
+	}
+
+	@Override
+	public Object invokeAsync(String idShortPath, Object... params) {
+		return decorated.invokeAsync(idShortPath, params);
+	}
+
+	@Override
+	public Object getOperationResult(String idShort, String requestId) {
+		return decorated.getOperationResult(idShort, requestId);
+	}
+
+	@Override
+	public java.io.File getSubmodelElementFile(String idShortPath) {
+		return decorated.getSubmodelElementFile(idShortPath);
+	}
+
+	@Override
+	public void uploadSubmodelElementFile(String idShortPath, InputStream fileStream) {
+		decorated.uploadSubmodelElementFile(idShortPath, fileStream);
+	}
+}
@@ -197,15 +197,13 @@ public abstract class StorageSubmodelAPI implements ISubmodelAPI {
 	@Override
 	public java.io.File getSubmodelElementFile(String idShortPath) {
 		Map<String, Object> submodelElement = (Map<String, Object>) getSubmodelElement(idShortPath);
-		String parentKey = getSubmodel().getIdentification().getId();
-		return storageApi.getFile(idShortPath, parentKey, submodelElement);
+		return storageApi.getFile(idShortPath, identificationId, submodelElement);
 	}
 
 	@Override
 	public void uploadSubmodelElementFile(String idShortPath, InputStream fileStream) {
-		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(getSubmodel()));
-		ISubmodelElement element = api.getSubmodelElement(idShortPath);
-		String fileName = storageApi.writeFile(idShortPath, getSubmodel().getIdentification().getId(), fileStream, element);
+		ISubmodelElement element = getSubmodelElement(idShortPath);
+		String fileName = storageApi.writeFile(idShortPath, identificationId, fileStream, element);
 		updateSubmodelElement(idShortPath, fileName);
 	}
 
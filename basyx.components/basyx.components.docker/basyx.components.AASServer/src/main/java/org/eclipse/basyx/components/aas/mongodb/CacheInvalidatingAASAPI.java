@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.mongodb;
+
+import org.eclipse.basyx.aas.metamodel.api.IAssetAdministrationShell;
+import org.eclipse.basyx.aas.restapi.api.IAASAPI;
+import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
+
+/**
+ * Invalidates the cached provider of a shell in the
+ * {@link MongoDBAASProviderCache}, if submodels are added to or removed from
+ * the shell through its provider
+ */
+class CacheInvalidatingAASAPI implements IAASAPI {
+	private final IAASAPI aasApi;
+	private final MongoDBAASProviderCache providerCache;
+	private final String shellIdentificationId;
+
+	CacheInvalidatingAASAPI(IAASAPI aasApi, MongoDBAASProviderCache providerCache, String shellIdentificationId) {
+		this.aasApi = aasApi;
+		this.providerCache = providerCache;
+		this.shellIdentificationId = shellIdentificationId;
+	}
+
+	@Override
+	public IAssetAdministrationShell getAAS() {
+		return aasApi.getAAS();
+	}
+
+	@Override
+	public void addSubmodel(IReference submodel) {
+		aasApi.addSubmodel(submodel);
+		providerCache.invalidate(shellIdentificationId);
+	}
+
+	@Override
+	public void removeSubmodel(String idShort) {
+		aasApi.removeSubmodel(idShort);
+		providerCache.invalidate(shellIdentificationId);
+	}
+}
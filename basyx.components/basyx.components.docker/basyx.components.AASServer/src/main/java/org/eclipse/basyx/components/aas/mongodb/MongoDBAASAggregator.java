@@ -25,9 +25,8 @@
 package org.eclipse.basyx.components.aas.mongodb;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.function.Consumer;
 
 import org.eclipse.basyx.aas.aggregator.AASAggregator;
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
@@ -42,16 +41,14 @@ import org.eclipse.basyx.components.aas.aascomponent.MongoDBAASServerComponentFa
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBPage;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
 import org.eclipse.basyx.submodel.aggregator.SubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
-import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
-import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
-import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyType;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
-import org.eclipse.basyx.submodel.restapi.SubmodelProvider;
-import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
 import org.eclipse.basyx.vab.modelprovider.api.IModelProvider;
@@ -59,9 +56,9 @@ import org.eclipse.basyx.vab.protocol.api.IConnectorFactory;
 import org.eclipse.basyx.vab.protocol.http.connector.HTTPConnectorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Query;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * An IAASAggregator for persistent storage in a MongoDB.
@@ -72,7 +69,8 @@ import com.mongodb.client.MongoClients;
  *
  */
 public class MongoDBAASAggregator implements IAASAggregator {
-	private Logger logger = LoggerFactory.getLogger(this.getClass());
+	private static Logger logger = LoggerFactory.getLogger(MongoDBAASAggregator.class);
+
 	private IAASRegistry registry;
 
 	/**
@@ -97,13 +95,34 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	private MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi;
 	private MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi;
 
+	private MongoDBAASProviderCache providerCache;
+
+	private int aasListLimit = Integer.parseInt(BaSyxMongoDBConfiguration.DEFAULT_AAS_LIST_LIMIT);
+
 	public MongoDBAASAggregator(IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory, MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi,
 			MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi) {
+		this(registry, shellAPIFactory, submodelAggregatorFactory, submodelStorageApi, shellStorageApi, new MongoDBAASProviderCache());
+	}
+
+	/**
+	 * Receives an IAASRegistry, IAASAPIFactory, ISubmodelAggregatorFactory, the
+	 * storage APIs and the cache for the assembled AAS providers.
+	 * 
+	 * @param registry
+	 * @param shellAPIFactory
+	 * @param submodelAggregatorFactory
+	 * @param submodelStorageApi
+	 * @param shellStorageApi
+	 * @param providerCache
+	 */
+	public MongoDBAASAggregator(IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory, MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi,
+			MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi, MongoDBAASProviderCache providerCache) {
 		this.submodelStorageApi = submodelStorageApi;
 		this.shellStorageApi = shellStorageApi;
 		this.shellApiFactory = shellAPIFactory;
 		this.submodelAggregatorFactory = submodelAggregatorFactory;
 		this.registry = registry;
+		this.providerCache = providerCache;
 	}
 
 	/**
@@ -118,7 +137,8 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 * 
 	 */
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory, MongoClient client) {
-		this(registry, shellAPIFactory, submodelAggregatorFactory, submodelStorageApiFromConfig(config, client), shellStorageApiFromConfig(config, client));
+		this(registry, shellAPIFactory, submodelAggregatorFactory, submodelStorageApiFromConfig(config, client), shellStorageApiFromConfig(config, client), new MongoDBAASProviderCache(config));
+		this.aasListLimit = config.getAASListLimit();
 	}
 
 	/**
@@ -239,7 +259,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 */
 	@Deprecated
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASRegistry registry) {
-		this(registry, initShellApiFactory(config), initSubmodelAggregatorFactory(config), submodelStorageApiFromConfig(config, null), shellStorageApiFromConfig(config, null));
+		this(registry, initShellApiFactory(config), initSubmodelAggregatorFactory(config), submodelStorageApiFromConfig(config, null), shellStorageApiFromConfig(config, null), new MongoDBAASProviderCache(config));
 	}
 
 	/**
@@ -278,7 +298,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 */
 	@Deprecated
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoDBClientRegistry.get(config));
 	}
 
 	/**
@@ -292,7 +312,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 */
 	@Deprecated
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, shellAPIFactory, submodelAggregatorFactory, MongoDBClientRegistry.get(config));
 	}
 
 	/**
@@ -390,26 +410,42 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	}
 
 	/**
-	 * Removes all persistent AAS and submodels
+	 * Removes all persistent AAS and submodels as well as the GridFS files of the
+	 * submodels, which would be orphaned otherwise. The collections are dropped on
+	 * the server, so that no document is loaded or deleted one by one.
 	 */
 	public void reset() {
-		Collection<AssetAdministrationShell> shells = shellStorageApi.retrieveAll();
-		Collection<Submodel> submodels = submodelStorageApi.retrieveAll();
-		shells.forEach(shell -> shellStorageApi.delete(shell.getIdentification().getId()));
-		submodels.forEach(shell -> submodelStorageApi.delete(shell.getIdentification().getId()));
+		resetWithResult();
+	}
+
+	/**
+	 * Resets the aggregator like {@link #reset()}
+	 * 
+	 * @return the numbers of removed shells, submodels and files
+	 */
+	public ResetResult resetWithResult() {
+		long start = System.nanoTime();
+		ResetResult result = new ResetResult();
+		result.deletedShells = shellStorageApi.deleteAll();
+		result.deletedSubmodels = submodelStorageApi.deleteAll();
+		result.deletedFiles = submodelStorageApi.deleteAllFiles();
+		providerCache.invalidateAll();
+		result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		logger.info("Reset MongoDB AAS aggregator: {}", result);
+		return result;
 	}
 
 	/**
-	 * Initializes and returns a VABMultiSubmodelProvider with only the
-	 * AssetAdministrationShell
+	 * Initializes and returns a MultiSubmodelProvider with only the
+	 * AssetAdministrationShell. The submodel providers are added on demand.
 	 */
-	private MultiSubmodelProvider createMultiSubmodelProvider(IAASAPI shellApi) {
+	private MultiSubmodelProvider createMultiSubmodelProvider(IAASAPI shellApi, IIdentifier shellId) {
 		AASModelProvider contentProvider = createContentProvider(shellApi);
 		IConnectorFactory connectorFactory = new HTTPConnectorFactory();
 
-		ISubmodelAggregator submodelAggregator = getSubmodelAggregatorInstance(shellApi.getAAS().getIdentification());
+		ISubmodelAggregator submodelAggregator = getSubmodelAggregatorInstance(shellId);
 
-		return new MultiSubmodelProvider(contentProvider, this.registry, connectorFactory, this.shellApiFactory, submodelAggregator);
+		return new MongoDBMultiSubmodelProvider(contentProvider, this.registry, connectorFactory, this.shellApiFactory, submodelAggregator, shellApi, submodelStorageApi);
 	}
 
 	private AASModelProvider createContentProvider(IAASAPI shellApi) {
@@ -425,110 +461,183 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	}
 
 	/**
-	 * Adds submodel providers for submodels in the MongoDB
+	 * Returns the shells up to the configured limit, see
+	 * {@link BaSyxMongoDBConfiguration#getAASListLimit()}. Use the paged
+	 * {@link #getAASList(String, int)} to retrieve all shells.
 	 */
-	private void addSubmodelsFromDB(MultiSubmodelProvider provider, AssetAdministrationShell shell) {
-		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
-		List<String> submodelIdentificationIds = getSubmodelIdentificationIdsFromSubmodelReferences(submodelRefs);
-		List<String> submodelIdShorts = getSubmodelIdShortsFromSubmodelReferences(submodelRefs);
-		submodelIdentificationIds = completeSubmodelIdentificationsIdsByIdShorts(submodelIdentificationIds, submodelIdShorts);
-
-		createProviderForSubmodels(provider, submodelIdentificationIds);
-
-	}
-
-	private void createProviderForSubmodels(MultiSubmodelProvider provider, List<String> submodelIdentificationIds) {
-		submodelIdentificationIds.forEach(submodelIdentificationId -> addSubmodelProvidersById(submodelIdentificationId, provider));
-	}
-
-	private List<String> completeSubmodelIdentificationsIdsByIdShorts(List<String> submodelIdentificationIds, List<String> submodelIdShorts) {
-		submodelIdShorts.forEach(idShort -> {
-			String id = getSubmodelIdByIdShort(idShort);
-			if (id != null) {
-				submodelIdentificationIds.add(id);
-			}
-		});
-		return submodelIdentificationIds;
-	}
-
-	private List<String> getSubmodelIdentificationIdsFromSubmodelReferences(Collection<IReference> submodelRefs) {
-		List<String> submodelIdentificationIds = submodelRefs.stream().map(this::getLastKeyFromReference).filter(lastKey -> lastKey.getIdType() != KeyType.IDSHORT).map(lastKey -> lastKey.getValue()).collect(Collectors.toList());
-		return submodelIdentificationIds;
-	}
-
-	private List<String> getSubmodelIdShortsFromSubmodelReferences(Collection<IReference> submodelRefs) {
-		List<String> submodelIdShorts = submodelRefs.stream().map(this::getLastKeyFromReference).filter(lastKey -> lastKey.getIdType() == KeyType.IDSHORT).map(lastKey -> lastKey.getValue()).collect(Collectors.toList());
-		return submodelIdShorts;
+	@Override
+	public Collection<IAssetAdministrationShell> getAASList() {
+		if (aasListLimit <= 0) {
+			return Collections.unmodifiableCollection(shellStorageApi.retrieveAll());
+		}
+		MongoDBPage<AssetAdministrationShell> page = shellStorageApi.retrievePage(new Query(), 0, aasListLimit);
+		if (page.hasNext()) {
+			logger.warn("Only the first {} shells are listed. Use the paged shell list to retrieve all of them", aasListLimit);
+		}
+		return Collections.unmodifiableCollection(page.getItems());
 	}
 
-	private IKey getLastKeyFromReference(IReference reference) {
-		List<IKey> keys = reference.getKeys();
-		IKey lastKey = keys.get(keys.size() - 1);
-		return lastKey;
+	/**
+	 * Sets the maximum number of shells returned by {@link #getAASList()}
+	 * 
+	 * @param aasListLimit
+	 *            the limit or 0 to disable it
+	 */
+	public void setAASListLimit(int aasListLimit) {
+		this.aasListLimit = aasListLimit;
 	}
 
-	private String getSubmodelIdByIdShort(String idShort) {
-		Submodel submodel = submodelStorageApi.retrieve(idShort);
-		if (submodel != null) {
-			return submodel.getIdentification().getId();
-		}
-		return null;
+	/**
+	 * Returns a page of the shells ordered by their identification id
+	 * 
+	 * @param offset
+	 *            the number of shells to skip
+	 * @param limit
+	 *            the maximum number of shells of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<AssetAdministrationShell> getAASList(int offset, int limit) {
+		return shellStorageApi.retrievePage(new Query(), offset, limit);
 	}
 
-	private void addSubmodelProvidersById(String submodelIdentificationId, MultiSubmodelProvider provider) {
-		ISubmodelAPI submodelApi = new MongoDBSubmodelAPI(this.submodelStorageApi, submodelIdentificationId);
-		try {
-			SubmodelProvider submodelProvider = new SubmodelProvider(submodelApi);
-			provider.addSubmodel(submodelProvider);
-		} catch (ResourceNotFoundException noSubmodelsInDB) {
-			// ignore
-			logger.warn("Could not add submodel with identificationId '{}'.", submodelIdentificationId);
-		}
-
+	/**
+	 * Returns the page of shells following the given cursor, ordered by their
+	 * identification id. In contrast to offsets, the preceding shells are not
+	 * skipped by the database.
+	 * 
+	 * @param cursor
+	 *            the cursor of the previous page or null for the first page
+	 * @param limit
+	 *            the maximum number of shells of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<AssetAdministrationShell> getAASList(String cursor, int limit) {
+		return shellStorageApi.retrievePage(new Query(), cursor, limit);
 	}
 
-	@Override
-	public Collection<IAssetAdministrationShell> getAASList() {
-		return shellStorageApi.retrieveAll().stream().map(aas -> (IAssetAdministrationShell) aas).collect(Collectors.toList());
+	/**
+	 * Passes all shells to the consumer while holding at most one cursor batch in
+	 * memory
+	 * 
+	 * @param consumer
+	 */
+	public void forEachAAS(Consumer<? super AssetAdministrationShell> consumer) {
+		shellStorageApi.forEach(new Query(), consumer);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public IAssetAdministrationShell getAAS(IIdentifier shellIdentification) {
-		IModelProvider shellProvider = getAASProvider(shellIdentification);
-
-		Map<String, Object> shellMap = (Map<String, Object>) shellProvider.getValue("/aas");
-		return AssetAdministrationShell.createAsFacade(shellMap);
+		// Definite misses neither create the shell API nor query the database
+		if (!shellStorageApi.mightExist(shellIdentification.getId())) {
+			throw new ResourceNotFoundException("No Object for key '" + shellIdentification.getId() + "' found in the database.");
+		}
+		return shellApiFactory.create(shellIdentification).getAAS();
 	}
 
 	@Override
 	public void createAAS(AssetAdministrationShell shell) {
 		this.shellApiFactory.create(shell);
+		providerCache.invalidate(shell.getIdentification().getId());
 	}
 
 	@Override
 	public void updateAAS(AssetAdministrationShell shell) {
 		this.shellApiFactory.create(shell);
+		providerCache.invalidate(shell.getIdentification().getId());
 	}
 
 	@Override
 	public void deleteAAS(IIdentifier shellIdentifier) {
 		String shellIdentificationId = shellIdentifier.getId();
 		shellStorageApi.delete(shellIdentificationId);
+		providerCache.invalidate(shellIdentificationId);
 	}
 
+	/**
+	 * Returns the provider of the shell. Assembled providers are cached until the
+	 * shell is changed through this aggregator or submodels are added to or
+	 * removed from it through the provider.
+	 * 
+	 * @param shellIdentificationId
+	 * @return the provider of the shell
+	 */
 	public MultiSubmodelProvider getProviderForAASId(String shellIdentificationId) {
+		return providerCache.get(shellIdentificationId, this::createProviderForAASId);
+	}
+
+	private MultiSubmodelProvider createProviderForAASId(String shellIdentificationId) {
 		AssetAdministrationShell shell = shellStorageApi.retrieve(shellIdentificationId);
 
-		IAASAPI shellApi = this.shellApiFactory.create(shell.getIdentification());
-		MultiSubmodelProvider provider = createMultiSubmodelProvider(shellApi);
+		IAASAPI shellApi = new CacheInvalidatingAASAPI(this.shellApiFactory.create(shell.getIdentification()), providerCache, shellIdentificationId);
+		return createMultiSubmodelProvider(shellApi, shell.getIdentification());
+	}
 
-		addSubmodelsFromDB(provider, shell);
-		return provider;
+	/**
+	 * Returns the GridFS file of a File submodel element, so that it can be
+	 * streamed without creating a local copy
+	 * 
+	 * @param shellIdentificationId
+	 * @param submodelIdShort
+	 * @param idShortPath
+	 *            the idShort path of the element within the submodel
+	 * @return the stored file
+	 * @throws ResourceNotFoundException
+	 *             if the shell, submodel, element or its file does not exist
+	 */
+	public MongoDBStoredFile getStoredSubmodelElementFile(String shellIdentificationId, String submodelIdShort, String idShortPath) throws ResourceNotFoundException {
+		MongoDBMultiSubmodelProvider provider = (MongoDBMultiSubmodelProvider) getProviderForAASId(shellIdentificationId);
+		return provider.getStoredSubmodelElementFile(submodelIdShort, idShortPath);
+	}
+
+	/**
+	 * Closes the provider cache of the aggregator, so that it does not receive
+	 * invalidations anymore. Providers are assembled on every request afterwards.
+	 */
+	public void close() {
+		providerCache.close();
+	}
+
+	public MongoDBAASProviderCache getProviderCache() {
+		return providerCache;
 	}
 
 	@Override
 	public IModelProvider getAASProvider(IIdentifier shellIdentificationId) {
 		return getProviderForAASId(shellIdentificationId.getId());
 	}
+
+	/**
+	 * Counts and duration of a {@link MongoDBAASAggregator#reset()}
+	 */
+	public static class ResetResult {
+		private long deletedShells;
+		private long deletedSubmodels;
+		private long deletedFiles;
+		private long elapsedMillis;
+
+		public long getDeletedShells() {
+			return deletedShells;
+		}
+
+		public long getDeletedSubmodels() {
+			return deletedSubmodels;
+		}
+
+		/**
+		 * Returns the number of deleted GridFS files, including deduplicated content
+		 * links
+		 */
+		public long getDeletedFiles() {
+			return deletedFiles;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "shells=" + deletedShells + ", submodels=" + deletedSubmodels + ", files=" + deletedFiles + ", elapsed=" + elapsedMillis + "ms";
+		}
+	}
 }
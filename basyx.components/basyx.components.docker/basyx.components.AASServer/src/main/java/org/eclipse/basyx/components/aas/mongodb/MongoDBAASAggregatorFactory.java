@@ -29,10 +29,10 @@ import org.eclipse.basyx.aas.aggregator.api.IAASAggregatorFactory;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.aas.restapi.api.IAASAPIFactory;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -52,12 +52,12 @@ public class MongoDBAASAggregatorFactory implements IAASAggregatorFactory {
 
 	@Deprecated
 	public MongoDBAASAggregatorFactory(BaSyxMongoDBConfiguration config, IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoDBClientRegistry.get(config));
 	}
 
 	@Deprecated
 	public MongoDBAASAggregatorFactory(BaSyxMongoDBConfiguration config, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, shellAPIFactory, submodelAggregatorFactory, MongoDBClientRegistry.get(config));
 	}
 
 	@Deprecated
@@ -66,7 +66,7 @@ public class MongoDBAASAggregatorFactory implements IAASAggregatorFactory {
 		this.registry = registry;
 		this.shellAPIFactory = shellAPIFactory;
 		this.submodelAggregatorFactory = submodelAggregatorFactory;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientRegistry.get(loadConfigFromPath(resourceConfigPath));
 	}
 
 	@Deprecated
@@ -74,7 +74,7 @@ public class MongoDBAASAggregatorFactory implements IAASAggregatorFactory {
 		this.resourceConfigPath = resourceConfigPath;
 		this.shellAPIFactory = shellAPIFactory;
 		this.submodelAggregatorFactory = submodelAggregatorFactory;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientRegistry.get(loadConfigFromPath(resourceConfigPath));
 	}
 
 	@Deprecated
@@ -116,6 +116,12 @@ public class MongoDBAASAggregatorFactory implements IAASAggregatorFactory {
 		this(BaSyxMongoDBConfiguration.DEFAULT_CONFIG_PATH, shellAPIFactory, submodelAggregatorFactory);
 	}
 
+	private static BaSyxMongoDBConfiguration loadConfigFromPath(String resourceConfigPath) {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.loadFromResource(resourceConfigPath);
+		return config;
+	}
+
 	@Override
 	public IAASAggregator create() {
 		if (this.config != null && this.registry != null) {
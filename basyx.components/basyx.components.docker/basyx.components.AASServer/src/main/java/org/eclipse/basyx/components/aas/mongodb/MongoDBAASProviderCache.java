@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.mongodb;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.eclipse.basyx.aas.restapi.MultiSubmodelProvider;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationBus;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationEvent;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Bounded cache for the {@link MultiSubmodelProvider}s assembled by the
+ * {@link MongoDBAASAggregator}, keyed by shell identification id. If the
+ * maximum size is exceeded, the least recently used provider is evicted.
+ * Optionally, providers expire after a time to live.
+ * 
+ * The cached providers are shared by concurrent requests to the same shell.
+ * If change streams are enabled, providers are also invalidated on changes by
+ * other server instances, see {@link MongoDBInvalidationBus}.
+ */
+public class MongoDBAASProviderCache {
+	private final int maxSize;
+	private final long timeToLiveMillis;
+	private final Map<String, CacheEntry> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	// Incremented on each invalidation, so that providers loaded in between are not cached
+	private long invalidationCount = 0;
+
+	private MongoDBInvalidationBus invalidationBus;
+	private Consumer<MongoDBInvalidationEvent> invalidationSubscriber;
+	private boolean closed = false;
+
+	/**
+	 * Creates a cache using the default size and time to live
+	 */
+	public MongoDBAASProviderCache() {
+		this(new BaSyxMongoDBConfiguration());
+	}
+
+	public MongoDBAASProviderCache(BaSyxMongoDBConfiguration config) {
+		this(config.getAASProviderCacheSize(), config.getAASProviderCacheTTL());
+		if (config.isChangeStreamEnabled()) {
+			String aasCollection = config.getAASCollection();
+			String submodelCollection = config.getSubmodelCollection();
+			invalidationBus = MongoDBInvalidationBus.get(config);
+			invalidationSubscriber = event -> invalidate(event, aasCollection, submodelCollection);
+			invalidationBus.subscribe(invalidationSubscriber);
+		}
+	}
+
+	/**
+	 * @param maxSize
+	 *            maximum number of cached providers, 0 disables caching
+	 * @param timeToLiveMillis
+	 *            time after which a cached provider is reloaded, 0 for no
+	 *            expiration
+	 */
+	public MongoDBAASProviderCache(int maxSize, long timeToLiveMillis) {
+		this.maxSize = maxSize;
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > MongoDBAASProviderCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached provider for the shell or loads and caches it
+	 * 
+	 * @param shellIdentificationId
+	 * @param loader
+	 *            assembles the provider on a cache miss
+	 * @return the provider of the shell
+	 */
+	public MultiSubmodelProvider get(String shellIdentificationId, Function<String, MultiSubmodelProvider> loader) {
+		long invalidationCountBeforeLoad;
+		synchronized (this) {
+			CacheEntry entry = entries.get(shellIdentificationId);
+			if (entry != null && !entry.isExpired()) {
+				hits.incrementAndGet();
+				return entry.provider;
+			}
+			entries.remove(shellIdentificationId);
+			invalidationCountBeforeLoad = invalidationCount;
+		}
+
+		misses.incrementAndGet();
+		MultiSubmodelProvider provider = loader.apply(shellIdentificationId);
+
+		synchronized (this) {
+			if (maxSize > 0 && !closed && invalidationCountBeforeLoad == invalidationCount) {
+				entries.put(shellIdentificationId, new CacheEntry(provider));
+			}
+		}
+		return provider;
+	}
+
+	/**
+	 * Removes the provider of the shell, so that it is assembled again on the next
+	 * request
+	 * 
+	 * @param shellIdentificationId
+	 */
+	public synchronized void invalidate(String shellIdentificationId) {
+		invalidationCount++;
+		entries.remove(shellIdentificationId);
+	}
+
+	/**
+	 * Removes all cached providers
+	 */
+	public synchronized void invalidateAll() {
+		invalidationCount++;
+		entries.clear();
+	}
+
+	/**
+	 * Removes the providers affected by the change. Updates of submodels do not
+	 * affect the assembled providers, in contrast to added, replaced or deleted
+	 * submodels. If the affected shell is unknown, all providers are removed.
+	 * 
+	 * @param event
+	 * @param aasCollection
+	 * @param submodelCollection
+	 */
+	public void invalidate(MongoDBInvalidationEvent event, String aasCollection, String submodelCollection) {
+		String shellIdentificationId;
+		if (event.getCollectionName().equals(aasCollection)) {
+			shellIdentificationId = event.getKey();
+		} else if (event.getCollectionName().equals(submodelCollection) && event.getOperationType() != OperationType.UPDATE) {
+			shellIdentificationId = getParentKey(event.getDocument());
+		} else {
+			return;
+		}
+
+		if (shellIdentificationId == null) {
+			invalidateAll();
+		} else {
+			invalidate(shellIdentificationId);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String getParentKey(Document submodel) {
+		if (submodel == null || !(submodel.get(Referable.PARENT) instanceof Document)) {
+			return null;
+		}
+		Object keys = ((Document) submodel.get(Referable.PARENT)).get(Reference.KEY);
+		if (!(keys instanceof List) || ((List<Object>) keys).isEmpty() || !(((List<Object>) keys).get(0) instanceof Document)) {
+			return null;
+		}
+		Object value = ((Document) ((List<Object>) keys).get(0)).get(Key.VALUE);
+		return value instanceof String ? (String) value : null;
+	}
+
+	/**
+	 * Unsubscribes the cache from the invalidation bus and removes all cached
+	 * providers. Afterwards, providers are not cached anymore.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		if (invalidationBus != null) {
+			invalidationBus.unsubscribe(invalidationSubscriber);
+			invalidationBus = null;
+		}
+		invalidateAll();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	private class CacheEntry {
+		private final MultiSubmodelProvider provider;
+		private final long loadedAt = System.currentTimeMillis();
+
+		private CacheEntry(MultiSubmodelProvider provider) {
+			this.provider = provider;
+		}
+
+		private boolean isExpired() {
+			return timeToLiveMillis > 0 && System.currentTimeMillis() - loadedAt > timeToLiveMillis;
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.mongodb;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.aas.registration.api.IAASRegistry;
+import org.eclipse.basyx.aas.restapi.AASModelProvider;
+import org.eclipse.basyx.aas.restapi.MultiSubmodelProvider;
+import org.eclipse.basyx.aas.restapi.api.IAASAPI;
+import org.eclipse.basyx.aas.restapi.api.IAASAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
+import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
+import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
+import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.restapi.SubmodelProvider;
+import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.eclipse.basyx.vab.protocol.api.IConnectorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * A {@link MultiSubmodelProvider} for the MongoDB backend that adds the
+ * submodel providers of the shell on demand. A request to a single submodel
+ * only resolves the submodel named in its path, a request to the submodel list
+ * resolves all submodels referenced by the shell.
+ * 
+ * Instances may be shared by concurrent requests, see
+ * {@link MongoDBAASProviderCache}. Since the underlying submodel aggregator is
+ * not thread-safe, submodels are only added or removed while no other request
+ * accesses the provider.
+ * 
+ * The submodel APIs are created by the submodel aggregator, so that they are
+ * built through the decorated submodel API factory of the server.
+ */
+public class MongoDBMultiSubmodelProvider extends MultiSubmodelProvider {
+	private static final String AAS = "aas";
+	private static final String IDENTIFICATION_ID = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+
+	private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final ISubmodelAggregator submodelAggregator;
+	private final IAASAPI shellApi;
+	private final MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi;
+
+	// Guards the submodel aggregator and the resolution state below
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// idShorts of submodels that have been added or explicitly removed
+	private final Set<String> resolvedIdShorts = new HashSet<>();
+
+	// Identification ids referenced by the shell, loaded on the first resolution
+	private List<String> referencedSubmodelIds;
+	private boolean allSubmodelsResolved = false;
+
+	public MongoDBMultiSubmodelProvider(AASModelProvider contentProvider, IAASRegistry registry, IConnectorFactory connectorFactory, IAASAPIFactory aasApiFactory, ISubmodelAggregator submodelAggregator, IAASAPI shellApi,
+			MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi) {
+		super(contentProvider, registry, connectorFactory, aasApiFactory, submodelAggregator);
+		this.submodelAggregator = submodelAggregator;
+		this.shellApi = shellApi;
+		this.submodelStorageApi = submodelStorageApi;
+	}
+
+	@Override
+	public Object getValue(String path) throws ProviderException {
+		resolveSubmodels(path);
+		lock.readLock().lock();
+		try {
+			return super.getValue(path);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void setValue(String path, Object newValue) throws ProviderException {
+		resolveSubmodels(path);
+		lock.writeLock().lock();
+		try {
+			super.setValue(path, newValue);
+			resetReferencedSubmodelIds();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void createValue(String path, Object newEntity) throws ProviderException {
+		resolveSubmodels(path);
+		lock.writeLock().lock();
+		try {
+			super.createValue(path, newEntity);
+			resetReferencedSubmodelIds();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void deleteValue(String path) throws ProviderException {
+		resolveSubmodels(path);
+		lock.writeLock().lock();
+		try {
+			super.deleteValue(path);
+			resetReferencedSubmodelIds();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void deleteValue(String path, Object obj) throws ProviderException {
+		resolveSubmodels(path);
+		lock.writeLock().lock();
+		try {
+			super.deleteValue(path, obj);
+			resetReferencedSubmodelIds();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Object invokeOperation(String path, Object... parameters) throws ProviderException {
+		resolveSubmodels(path);
+		lock.readLock().lock();
+		try {
+			return super.invokeOperation(path, parameters);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void removeProvider(String elementId) {
+		lock.writeLock().lock();
+		try {
+			resolveSubmodel(elementId);
+			super.removeProvider(elementId);
+			resolvedIdShorts.add(elementId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the GridFS file of a File submodel element of one of the shell's
+	 * submodels, so that it can be streamed without creating a local copy
+	 * 
+	 * @param submodelIdShort
+	 * @param idShortPath
+	 *            the idShort path of the element within the submodel
+	 * @return the stored file
+	 * @throws ResourceNotFoundException
+	 *             if the submodel, the element or its file does not exist
+	 */
+	public MongoDBStoredFile getStoredSubmodelElementFile(String submodelIdShort, String idShortPath) throws ResourceNotFoundException {
+		String submodelId;
+		lock.writeLock().lock();
+		try {
+			submodelId = findSubmodelId(submodelIdShort);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (submodelId == null) {
+			throw new ResourceNotFoundException("The submodel with idShort '" + submodelIdShort + "' could not be found");
+		}
+		return new MongoDBSubmodelAPI(submodelStorageApi, submodelId).getStoredSubmodelElementFile(idShortPath);
+	}
+
+	private void resolveSubmodels(String path) {
+		String[] pathElements = VABPathTools.splitPath(path);
+		if (pathElements.length < 2 || !pathElements[0].equals(AAS) || !pathElements[1].equals(AssetAdministrationShell.SUBMODELS)) {
+			return;
+		}
+
+		String idShort = pathElements.length == 2 ? null : pathElements[2];
+		lock.readLock().lock();
+		try {
+			if (isResolved(idShort)) {
+				return;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (idShort == null) {
+				resolveAllSubmodels();
+			} else {
+				resolveSubmodel(idShort);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private boolean isResolved(String idShort) {
+		return idShort == null ? allSubmodelsResolved : resolvedIdShorts.contains(idShort);
+	}
+
+	/**
+	 * Adds the provider of the submodel with the given idShort, if it has not been
+	 * resolved before. Has to be called while holding the write lock.
+	 */
+	private void resolveSubmodel(String idShort) {
+		if (resolvedIdShorts.contains(idShort)) {
+			return;
+		}
+
+		String submodelId = findSubmodelId(idShort);
+		if (submodelId != null) {
+			addSubmodelProvider(idShort, submodelId);
+		}
+	}
+
+	/**
+	 * Returns the identification id of the referenced submodel with the given
+	 * idShort or null, if there is none
+	 */
+	private String findSubmodelId(String idShort) {
+		List<String> submodelIds = getReferencedSubmodelIds();
+		if (submodelIds.isEmpty()) {
+			return null;
+		}
+
+		Query hasIdShort = query(where(Referable.IDSHORT).is(idShort).and(IDENTIFICATION_ID).in(submodelIds));
+		hasIdShort.fields().include(IDENTIFICATION_ID);
+		return submodelStorageApi.rawRetrieveAll(hasIdShort).stream().findFirst().map(submodel -> submodel.getIdentification().getId()).orElse(null);
+	}
+
+	private void resolveAllSubmodels() {
+		List<String> submodelIds = getReferencedSubmodelIds();
+		if (submodelIds.isEmpty()) {
+			allSubmodelsResolved = true;
+			return;
+		}
+
+		Query isReferenced = query(where(IDENTIFICATION_ID).in(submodelIds));
+		isReferenced.fields().include(IDENTIFICATION_ID).include(Referable.IDSHORT);
+		Map<String, String> idShortsById = new LinkedHashMap<>();
+		submodelStorageApi.rawRetrieveAll(isReferenced).forEach(submodel -> idShortsById.put(submodel.getIdentification().getId(), submodel.getIdShort()));
+
+		for (String submodelId : submodelIds) {
+			String idShort = idShortsById.get(submodelId);
+			if (idShort == null) {
+				logger.warn("Could not add submodel with identificationId '{}'.", submodelId);
+			} else if (!resolvedIdShorts.contains(idShort)) {
+				addSubmodelProvider(idShort, submodelId);
+			}
+		}
+		allSubmodelsResolved = true;
+	}
+
+	/**
+	 * Returns the identification ids of the submodels referenced by the shell. The
+	 * values of references with an idShort key are used as identification ids, too.
+	 * The references are loaded once and reloaded after changes through this
+	 * provider. Has to be called while holding the write lock.
+	 */
+	private List<String> getReferencedSubmodelIds() {
+		if (referencedSubmodelIds == null) {
+			Collection<IReference> submodelRefs = shellApi.getAAS().getSubmodelReferences();
+			referencedSubmodelIds = submodelRefs.stream().map(this::getLastKeyFromReference).map(IKey::getValue).distinct().collect(Collectors.toList());
+		}
+		return referencedSubmodelIds;
+	}
+
+	private void resetReferencedSubmodelIds() {
+		referencedSubmodelIds = null;
+		allSubmodelsResolved = false;
+	}
+
+	private IKey getLastKeyFromReference(IReference reference) {
+		List<IKey> keys = reference.getKeys();
+		return keys.get(keys.size() - 1);
+	}
+
+	private void addSubmodelProvider(String idShort, String submodelIdentificationId) {
+		try {
+			ISubmodelAPI submodelApi = submodelAggregator.getSubmodelAPIById(new CustomId(submodelIdentificationId));
+			addSubmodel(new SubmodelProvider(submodelApi));
+			resolvedIdShorts.add(idShort);
+		} catch (ResourceNotFoundException noSubmodelsInDB) {
+			logger.warn("Could not add submodel with identificationId '{}'.", submodelIdentificationId);
+		}
+	}
+}
@@ -24,22 +24,62 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.mongodb;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
 import org.eclipse.basyx.components.aas.internal.StorageSubmodelAPI;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBSubmodelValueStore;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBVersionConflictException;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBVersioned;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBWriteBehindBuffer;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.facade.submodelelement.SubmodelElementFacadeFactory;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
 import org.eclipse.basyx.submodel.restapi.operation.DelegatedInvocationManager;
+import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPI;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.eclipse.basyx.vab.modelprovider.lambda.VABLambdaProvider;
 import org.eclipse.basyx.vab.protocol.http.connector.HTTPConnectorFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * Implements the ISubmodelAPI for a mongoDB backend.
  * 
+ * Element level writes are applied to the affected element only, i.e. instead
+ * of replacing the whole submodel document, only the addressed element is
+ * loaded, modified and written back using <i>$set</i> or <i>$unset</i>. If the
+ * idShort path can not be mapped to a document path, the whole submodel is
+ * replaced as done by {@link StorageSubmodelAPI}.
+ * 
+ * Element and value reads use a projection on the addressed element, so that
+ * only its subtree is fetched from the database.
+ * 
+ * Element level writes are conditional on the version of the submodel read
+ * before, so that concurrent writers, e.g. of several server replicas, do not
+ * overwrite each other. A conflicting write is repeated on the current state,
+ * at most the configured number of times. Updates buffered by the write-behind
+ * buffer are not conditional, i.e. the latest buffered value wins.
+ * 
+ * If the values are split off the submodel document, an update, which only
+ * changes the value of a leaf element, is written to the value collection
+ * without touching the submodel document.
+ * 
  * @author fischer
  */
 public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
@@ -91,7 +131,7 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 
 	public MongoDBSubmodelAPI(BaSyxMongoDBConfiguration config, String submodelIdentificationId, DelegatedInvocationManager invocationHelper, MongoClient client) {
 		super(createSubmodelStorageAPI(config, client), submodelIdentificationId, invocationHelper);
-		this.setConfiguration(config);
+		this.setConfiguration(config, client);
 		this.setSubmodelId(submodelIdentificationId);
 		this.invocationHelper = invocationHelper;
 	}
@@ -99,7 +139,7 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 	public MongoDBSubmodelAPI(String resourceConfigPath, String submodelIdentificationId, DelegatedInvocationManager invocationHelper, MongoClient client) {
 		super(createSubmodelStorageAPI(createConfig(resourceConfigPath), client), submodelIdentificationId, invocationHelper);
 		this.config = createConfig(resourceConfigPath);
-		this.setConfiguration(config);
+		this.setConfiguration(config, client);
 		this.setSubmodelId(submodelIdentificationId);
 		this.invocationHelper = invocationHelper;
 	}
@@ -117,7 +157,7 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 
 	@Deprecated
 	public MongoDBSubmodelAPI(BaSyxMongoDBConfiguration config, String submodelIdentificationId, DelegatedInvocationManager invocationHelper) {
-		this(config, submodelIdentificationId, invocationHelper, MongoClients.create(config.getConnectionUrl()));
+		this(config, submodelIdentificationId, invocationHelper, MongoDBClientRegistry.get(config));
 	}
 
 	/**
@@ -178,4 +218,430 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 	public void setConfiguration(BaSyxMongoDBConfiguration config) {
 		this.storageApi = createSubmodelStorageAPI(config);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Sets the db configuration for the submodel API using the given client.
+	 * 
+	 * @param config
+	 * @param client
+	 */
+	public void setConfiguration(BaSyxMongoDBConfiguration config, MongoClient client) {
+		this.storageApi = createSubmodelStorageAPI(config, client);
+	}
+
+	/**
+	 * Returns the current version of the submodel, e.g. to be used as entity tag
+	 * 
+	 * @return the version or null, if the submodel has not been written since
+	 *         versioning was introduced
+	 */
+	@SuppressWarnings("unchecked")
+	public String getSubmodelVersion() {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return null;
+		}
+		return ((MongoDBBaSyxStorageAPI<Submodel>) storageApi).getVersion(getSubmodelId());
+	}
+
+	/**
+	 * Replaces the submodel, if it still has the expected version
+	 * 
+	 * @param submodel
+	 * @param expectedVersion
+	 *            the version returned by {@link #getSubmodelVersion()}
+	 * @return the new version
+	 * @throws MongoDBVersionConflictException
+	 *             if the submodel has been changed meanwhile
+	 */
+	@SuppressWarnings("unchecked")
+	public String setSubmodel(Submodel submodel, String expectedVersion) throws MongoDBVersionConflictException {
+		String submodelId = submodel.getIdentification().getId();
+		setSubmodelId(submodelId);
+		String version = ((MongoDBBaSyxStorageAPI<Submodel>) storageApi).replaceIfVersion(submodel, submodelId, expectedVersion);
+		if (version == null) {
+			throw new MongoDBVersionConflictException(submodelId);
+		}
+		return version;
+	}
+
+	@Override
+	public ISubmodelElement getSubmodelElement(String idShortPath) {
+		List<String> idShorts = splitIdShortPath(idShortPath);
+		Submodel elementSubmodel = retrieveSingleElementSubmodel(idShorts);
+		if (elementSubmodel == null) {
+			return super.getSubmodelElement(idShortPath);
+		}
+		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(elementSubmodel));
+		return api.getSubmodelElement(getLastIdShort(idShorts));
+	}
+
+	@Override
+	public Object getSubmodelElementValue(String idShortPath) {
+		List<String> idShorts = splitIdShortPath(idShortPath);
+		Submodel elementSubmodel = retrieveSingleElementSubmodel(idShorts);
+		if (elementSubmodel == null) {
+			return super.getSubmodelElementValue(idShortPath);
+		}
+		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(elementSubmodel));
+		return api.getSubmodelElementValue(getLastIdShort(idShorts));
+	}
+
+	/**
+	 * Loads only the subtree of the addressed element and returns it wrapped as
+	 * the single top-level element of a partial submodel
+	 * 
+	 * @return null, if the element can not be found by its document path
+	 */
+	@SuppressWarnings("unchecked")
+	private Submodel retrieveSingleElementSubmodel(List<String> idShorts) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return null;
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+
+		Submodel partialSubmodel;
+		Object rawElement = getPendingElement(mongoDBStorageApi, idShorts);
+		if (rawElement != null) {
+			partialSubmodel = mongoDBStorageApi.rawRetrieveFields(getSubmodelId(), Identifiable.IDENTIFICATION, Referable.IDSHORT);
+		} else {
+			partialSubmodel = mongoDBStorageApi.rawRetrieveFields(getSubmodelId(), Identifiable.IDENTIFICATION, Referable.IDSHORT, toDocumentPath(idShorts));
+			rawElement = findEmbeddedElement(partialSubmodel, idShorts);
+		}
+		if (!(rawElement instanceof Map)) {
+			return null;
+		}
+
+		Map<String, ISubmodelElement> elements = new LinkedHashMap<>();
+		elements.put(getLastIdShort(idShorts), SubmodelElementFacadeFactory.createSubmodelElement((Map<String, Object>) rawElement));
+		partialSubmodel.put(Submodel.SUBMODELELEMENT, elements);
+		return partialSubmodel;
+	}
+
+	/**
+	 * Returns the GridFS file of the File submodel element at the idShort path,
+	 * so that it can be streamed without creating a local copy
+	 * 
+	 * @param idShortPath
+	 * @return the stored file
+	 * @throws ResourceNotFoundException
+	 *             if the element or its file does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	public MongoDBStoredFile getStoredSubmodelElementFile(String idShortPath) throws ResourceNotFoundException {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			throw new ResourceNotFoundException("The submodel is not stored in MongoDB");
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+		Map<String, Object> submodelElement = (Map<String, Object>) getSubmodelElement(idShortPath);
+		return mongoDBStorageApi.getStoredFile(idShortPath, getSubmodelId(), submodelElement);
+	}
+
+	@Override
+	public void addSubmodelElement(ISubmodelElement elem) {
+		boolean isWritten = patchElementInDB(elem.getIdShort(), submodel -> {
+			submodel.addSubmodelElement(elem);
+			return submodel;
+		});
+		if (!isWritten) {
+			updateSubmodel(submodel -> {
+				submodel.addSubmodelElement(elem);
+				return submodel;
+			});
+		}
+	}
+
+	@Override
+	public void addSubmodelElement(String idShortPath, ISubmodelElement elem) {
+		UnaryOperator<Submodel> operation = submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.addSubmodelElement(idShortPath, elem);
+			return api.getSubmodel();
+		};
+		if (!patchElementInDB(idShortPath, operation)) {
+			updateSubmodel(operation);
+		}
+	}
+
+	/**
+	 * Updates the element. If write-behind is configured, the updated element is
+	 * buffered instead of being written immediately, so that consecutive updates
+	 * of the element within the write-behind window result in a single write.
+	 */
+	@Override
+	public void updateSubmodelElement(String idShortPath, Object newValue) {
+		if (updatePendingElement(idShortPath, newValue) || updateSplitValue(idShortPath, newValue)) {
+			return;
+		}
+		UnaryOperator<Submodel> operation = submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.updateSubmodelElement(idShortPath, newValue);
+			return api.getSubmodel();
+		};
+		if (!patchElementInDB(idShortPath, operation, true)) {
+			updateSubmodel(operation);
+		}
+	}
+
+	/**
+	 * Applies the update to the buffered element, if an update of the element is
+	 * pending, without reading it from the database
+	 * 
+	 * @return false, if no update of the element is pending
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean updatePendingElement(String idShortPath, Object newValue) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return false;
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+		List<String> idShorts = splitIdShortPath(idShortPath);
+		Object pendingElement = getPendingElement(mongoDBStorageApi, idShorts);
+		if (pendingElement == null) {
+			return false;
+		}
+
+		String idShort = getLastIdShort(idShorts);
+		Map<String, ISubmodelElement> elements = new LinkedHashMap<>();
+		elements.put(idShort, SubmodelElementFacadeFactory.createSubmodelElement((Map<String, Object>) pendingElement));
+		Submodel elementSubmodel = new Submodel();
+		elementSubmodel.put(Submodel.SUBMODELELEMENT, elements);
+
+		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(elementSubmodel));
+		api.updateSubmodelElement(idShort, newValue);
+		Object patchedElement = findElement(api.getSubmodel(), Arrays.asList(idShort));
+		mongoDBStorageApi.getWriteBehindBuffer().set(getSubmodelId(), toDocumentPath(idShorts), patchedElement);
+		return true;
+	}
+
+	/**
+	 * Writes only the new value of a leaf element, if the values are split off
+	 * the submodel document and the update does not change any other attribute of
+	 * the element, e.g. its value type
+	 * 
+	 * @return false, if the element has to be written as a whole
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean updateSplitValue(String idShortPath, Object newValue) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI) || !((MongoDBBaSyxStorageAPI<Submodel>) storageApi).isValueSplitEnabled()) {
+			return false;
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+		List<String> idShorts = splitIdShortPath(idShortPath);
+		Submodel partialSubmodel = mongoDBStorageApi.rawRetrieveFields(getSubmodelId(), Identifiable.IDENTIFICATION, Referable.IDSHORT, toDocumentPath(idShorts));
+		Object rawElement = findEmbeddedElement(partialSubmodel, idShorts);
+		if (!(rawElement instanceof Map) || !MongoDBSubmodelValueStore.isLeaf((Map<String, Object>) rawElement)) {
+			return false;
+		}
+		Map<String, Object> attributes = withoutValue((Map<String, Object>) rawElement);
+
+		String idShort = getLastIdShort(idShorts);
+		Map<String, ISubmodelElement> elements = new LinkedHashMap<>();
+		elements.put(idShort, SubmodelElementFacadeFactory.createSubmodelElement((Map<String, Object>) rawElement));
+		Submodel elementSubmodel = new Submodel();
+		elementSubmodel.put(Submodel.SUBMODELELEMENT, elements);
+
+		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(elementSubmodel));
+		api.updateSubmodelElement(idShort, newValue);
+		Map<String, Object> patchedElement = (Map<String, Object>) findElement(api.getSubmodel(), Arrays.asList(idShort));
+		if (patchedElement == null || !attributes.equals(withoutValue(patchedElement))) {
+			return false;
+		}
+		return mongoDBStorageApi.setSplitValue(getSubmodelId(), String.join("/", idShorts), patchedElement.get(Property.VALUE));
+	}
+
+	private static Map<String, Object> withoutValue(Map<String, Object> element) {
+		Map<String, Object> attributes = new LinkedHashMap<>(element);
+		attributes.remove(Property.VALUE);
+		return attributes;
+	}
+
+	/**
+	 * Returns the buffered element, if a write-behind update of it is pending
+	 */
+	private Object getPendingElement(MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi, List<String> idShorts) {
+		MongoDBWriteBehindBuffer buffer = mongoDBStorageApi.getWriteBehindBuffer();
+		if (buffer == null) {
+			return null;
+		}
+		return buffer.getPending(getSubmodelId(), toDocumentPath(idShorts));
+	}
+
+	@Override
+	public void deleteSubmodelElement(String idShortPath) {
+		UnaryOperator<Submodel> operation = submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.deleteSubmodelElement(idShortPath);
+			return api.getSubmodel();
+		};
+		if (!patchElementInDB(idShortPath, operation)) {
+			updateSubmodel(operation);
+		}
+	}
+
+	/**
+	 * Applies the operation to a partial submodel, which only contains the
+	 * top-level element of the given idShort path, and writes the resulting
+	 * element back to its position in the submodel document.
+	 * 
+	 * @return false, if the idShort path can not be resolved to a document path.
+	 *         In this case, nothing has been written.
+	 */
+	private boolean patchElementInDB(String idShortPath, UnaryOperator<Submodel> operation) {
+		return patchElementInDB(idShortPath, operation, false);
+	}
+
+	/**
+	 * @param writeBehind
+	 *            true, if a patched element may be buffered by the configured
+	 *            write-behind buffer instead of being written immediately
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean patchElementInDB(String idShortPath, UnaryOperator<Submodel> operation, boolean writeBehind) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return false;
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+		List<String> idShorts = splitIdShortPath(idShortPath);
+		String topLevelPath = toDocumentPath(idShorts.subList(0, 1));
+		String documentPath = toDocumentPath(idShorts);
+
+		MongoDBWriteBehindBuffer buffer = writeBehind ? mongoDBStorageApi.getWriteBehindBuffer() : null;
+		if (buffer != null) {
+			Submodel partialSubmodel = mongoDBStorageApi.rawRetrieveFields(getSubmodelId(), Identifiable.IDENTIFICATION, Referable.IDSHORT, topLevelPath);
+			if (!isDocumentPathResolvable(partialSubmodel, idShorts)) {
+				return false;
+			}
+			Object patchedElement = findElement(operation.apply(createElementFacades(partialSubmodel)), idShorts);
+			if (patchedElement == null) {
+				return mongoDBStorageApi.unsetField(getSubmodelId(), documentPath);
+			}
+			buffer.set(getSubmodelId(), documentPath, patchedElement);
+			return true;
+		}
+
+		return mongoDBStorageApi.retryOnVersionConflict(getSubmodelId(), () -> {
+			MongoDBVersioned<Submodel> stored = mongoDBStorageApi.rawRetrieveVersioned(getSubmodelId(), Identifiable.IDENTIFICATION, Referable.IDSHORT, topLevelPath);
+			Submodel partialSubmodel = stored.getValue();
+			if (!isDocumentPathResolvable(partialSubmodel, idShorts)) {
+				return false;
+			}
+			Object patchedElement = findElement(operation.apply(createElementFacades(partialSubmodel)), idShorts);
+			String version;
+			if (patchedElement == null) {
+				version = mongoDBStorageApi.unsetFieldIfVersion(getSubmodelId(), documentPath, stored.getVersion());
+			} else {
+				version = mongoDBStorageApi.setFieldIfVersion(getSubmodelId(), documentPath, patchedElement, stored.getVersion());
+			}
+			return version == null ? null : true;
+		});
+	}
+
+	/**
+	 * Applies the operation to the whole submodel and replaces it, if it has not
+	 * been changed meanwhile. Used if the addressed element can not be patched in
+	 * place.
+	 */
+	@SuppressWarnings("unchecked")
+	private void updateSubmodel(UnaryOperator<Submodel> operation) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			storageApi.update(operation.apply(getSubmodel()), getSubmodelId());
+			return;
+		}
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageApi = (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+		mongoDBStorageApi.retryOnVersionConflict(getSubmodelId(), () -> {
+			MongoDBVersioned<Submodel> stored = mongoDBStorageApi.retrieveVersioned(getSubmodelId());
+			return mongoDBStorageApi.replaceIfVersion(operation.apply(stored.getValue()), getSubmodelId(), stored.getVersion());
+		});
+	}
+
+	private static List<String> splitIdShortPath(String idShortPath) {
+		return Arrays.asList(VABPathTools.splitPath(idShortPath));
+	}
+
+	private static String getLastIdShort(List<String> idShorts) {
+		return idShorts.get(idShorts.size() - 1);
+	}
+
+	/**
+	 * Translates a list of idShorts to the path of the element within the
+	 * submodel document, e.g. [a, b] to <i>submodelElements.a.value.b</i>
+	 */
+	private static String toDocumentPath(List<String> idShorts) {
+		return Submodel.SUBMODELELEMENT + "." + String.join("." + Property.VALUE + ".", idShorts);
+	}
+
+	/**
+	 * Checks that all parents of the addressed element are stored as embedded
+	 * documents, so that the element can be addressed by a dotted document path.
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean isDocumentPathResolvable(Submodel partialSubmodel, List<String> idShorts) {
+		Object elements = partialSubmodel.get(Submodel.SUBMODELELEMENT);
+		for (String idShort : idShorts.subList(0, idShorts.size() - 1)) {
+			if (!(elements instanceof Map)) {
+				return false;
+			}
+			Object element = ((Map<String, Object>) elements).get(idShort);
+			if (!(element instanceof Map)) {
+				return false;
+			}
+			elements = ((Map<String, Object>) element).get(Property.VALUE);
+		}
+		return elements instanceof Map;
+	}
+
+	/**
+	 * Follows the idShorts through the embedded documents of a raw submodel
+	 * 
+	 * @return the raw element or null, if it is not stored at its document path
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object findEmbeddedElement(Submodel rawSubmodel, List<String> idShorts) {
+		Object elements = rawSubmodel.get(Submodel.SUBMODELELEMENT);
+		Object element = null;
+		for (String idShort : idShorts) {
+			if (!(elements instanceof Map)) {
+				return null;
+			}
+			element = ((Map<String, Object>) elements).get(idShort);
+			if (!(element instanceof Map)) {
+				return null;
+			}
+			elements = ((Map<String, Object>) element).get(Property.VALUE);
+		}
+		return element;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Submodel createElementFacades(Submodel partialSubmodel) {
+		Map<String, Object> rawElements = (Map<String, Object>) partialSubmodel.get(Submodel.SUBMODELELEMENT);
+		Map<String, ISubmodelElement> elements = new LinkedHashMap<>();
+		rawElements.forEach((idShort, element) -> elements.put(idShort, SubmodelElementFacadeFactory.createSubmodelElement((Map<String, Object>) element)));
+		partialSubmodel.put(Submodel.SUBMODELELEMENT, elements);
+		return partialSubmodel;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object findElement(Submodel submodel, List<String> idShorts) {
+		Object elements = submodel.get(Submodel.SUBMODELELEMENT);
+		Object element = null;
+		for (String idShort : idShorts) {
+			element = getChildElement(elements, idShort);
+			if (element == null) {
+				return null;
+			}
+			elements = ((Map<String, Object>) element).get(Property.VALUE);
+		}
+		return element;
+	}
+
+	private static Object getChildElement(Object elements, String idShort) {
+		if (elements instanceof Map<?, ?>) {
+			return ((Map<?, ?>) elements).get(idShort);
+		}
+		if (elements instanceof Collection<?>) {
+			return ((Collection<?>) elements).stream().filter(element -> element instanceof Map<?, ?> && idShort.equals(((Map<?, ?>) element).get(Referable.IDSHORT))).findFirst().orElse(null);
+		}
+		return null;
+	}
+}
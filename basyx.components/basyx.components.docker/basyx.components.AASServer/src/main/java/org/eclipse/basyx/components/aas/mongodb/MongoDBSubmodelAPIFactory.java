@@ -25,12 +25,12 @@
 package org.eclipse.basyx.components.aas.mongodb;
 
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -51,14 +51,16 @@ public class MongoDBSubmodelAPIFactory implements ISubmodelAPIFactory {
 
 	@Deprecated
 	public MongoDBSubmodelAPIFactory(BaSyxMongoDBConfiguration config) {
-		this(config, MongoClients.create(config.getConnectionUrl()));
+		this(config, MongoDBClientRegistry.get(config));
 	}
 
 	@Deprecated
 	@Override
 	public ISubmodelAPI getSubmodelAPI(Submodel submodel) {
 		MongoDBSubmodelAPI api = new MongoDBSubmodelAPI(config, submodel.getIdentification().getId(), client);
-		api.setSubmodel(submodel);
+		if (!(submodel instanceof MongoDBStoredSubmodel)) {
+			api.setSubmodel(submodel);
+		}
 		return api;
 	}
 
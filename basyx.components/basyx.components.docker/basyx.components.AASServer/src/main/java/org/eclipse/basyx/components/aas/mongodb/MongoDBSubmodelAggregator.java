@@ -25,6 +25,9 @@
 
 package org.eclipse.basyx.components.aas.mongodb;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -40,10 +43,15 @@ import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
-import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPIFactory;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import com.mongodb.client.MongoClient;
 
@@ -54,6 +62,10 @@ import com.mongodb.client.MongoClient;
  *
  */
 public class MongoDBSubmodelAggregator extends SubmodelAggregator {
+	private static final String IDENTIFICATION_ID = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+	private static final String PARENT_KEY_VALUE = Referable.PARENT + "." + Reference.KEY + "." + Key.VALUE;
+
+	private ISubmodelAPIFactory submodelApiFactory;
 	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
 	private MongoDBBaSyxStorageAPI<AssetAdministrationShell> aasStorageApi;
 	private IIdentifier shellId;
@@ -70,6 +82,7 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 
 	public MongoDBSubmodelAggregator(ISubmodelAPIFactory submodelApiFactory, MongoDBBaSyxStorageAPI<Submodel> storageApi) {
 		super(submodelApiFactory);
+		this.submodelApiFactory = submodelApiFactory;
 		this.storageApi = storageApi;
 	}
 
@@ -94,18 +107,24 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 		if (shellId == null)
 			return returnAllSubmodels();
 
-		AssetAdministrationShell shell = aasStorageApi.retrieve(shellId.getId());
-		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
+		List<String> submodelIds = getSubmodelIdsOfShell();
 
-		if (submodelRefs.isEmpty()) {
+		if (submodelIds.isEmpty()) {
 			return findSubmodelsWithGivenParentId();
 		}
-		List<String> submodelIds = submodelRefs.stream().map(ref -> {
-			return getLastKeyFromReference(ref).getValue();
-		}).collect(Collectors.toList());
 
-		return submodelIds.stream().map(sm -> {
-			return storageApi.retrieve(sm);
+		List<Submodel> submodels = storageApi.retrieveByIds(submodelIds);
+		if (submodels.size() < submodelIds.size()) {
+			throw new ResourceNotFoundException("Not all submodels referenced by shell '" + shellId.getId() + "' could be found");
+		}
+		return submodels.stream().map(submodel -> (ISubmodel) submodel).collect(Collectors.toList());
+	}
+
+	private List<String> getSubmodelIdsOfShell() {
+		AssetAdministrationShell shell = aasStorageApi.retrieve(shellId.getId());
+		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
+		return submodelRefs.stream().map(ref -> {
+			return getLastKeyFromReference(ref).getValue();
 		}).collect(Collectors.toList());
 	}
 
@@ -113,8 +132,17 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 		return storageApi.retrieveAll().stream().map(submodel -> (ISubmodel) submodel).collect(Collectors.toList());
 	}
 
-	private List<ISubmodel> findSubmodelsWithGivenParentId(){
-		return storageApi.retrieveAll().stream().filter(submodel -> {
+	private List<ISubmodel> findSubmodelsWithGivenParentId() {
+		return findSubmodelsWithGivenParentId(where(PARENT_KEY_VALUE).is(shellId.getId()));
+	}
+
+	/**
+	 * Queries the submodels matching the given criteria, whose parent is the
+	 * shell. The parent key is part of the query, but its position is only
+	 * checked for the (few) matching submodels.
+	 */
+	private List<ISubmodel> findSubmodelsWithGivenParentId(Criteria criteria) {
+		return storageApi.retrieveAll(query(criteria)).stream().filter(submodel -> {
 			IReference parentRef = submodel.getParent();
 			return (parentRef != null) && (parentRef.getKeys().get(0).getValue().equals(shellId.getId()));
 		}).collect(Collectors.toList());
@@ -148,23 +176,39 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 
 	@Override
 	public ISubmodel getSubmodelbyIdShort(String idShort) throws ResourceNotFoundException {
-		Optional<ISubmodel> submodelOptional = getSubmodelList().stream().filter(submodel -> {
-			return submodel.getIdShort().equals(idShort);
-		}).findAny();
+		Optional<ISubmodel> submodelOptional = findSubmodelsByIdShort(idShort).stream().findAny();
 		if (submodelOptional.isEmpty())
 			throw new ResourceNotFoundException("The submodel with idShort '" + idShort + "' could not be found");
 		return submodelOptional.get();
 	}
 
+	/**
+	 * Queries the submodels with the given idShort out of the submodels that
+	 * {@link #getSubmodelList()} would return
+	 */
+	private Collection<? extends ISubmodel> findSubmodelsByIdShort(String idShort) {
+		Criteria hasIdShort = where(Referable.IDSHORT).is(idShort);
+		if (shellId == null)
+			return storageApi.retrieveAll(query(hasIdShort));
+
+		List<String> submodelIds = getSubmodelIdsOfShell();
+
+		if (submodelIds.isEmpty()) {
+			return findSubmodelsWithGivenParentId(hasIdShort.and(PARENT_KEY_VALUE).is(shellId.getId()));
+		}
+
+		return storageApi.retrieveAll(query(hasIdShort.and(IDENTIFICATION_ID).in(submodelIds)));
+	}
+
 	@Override
 	public ISubmodelAPI getSubmodelAPIById(IIdentifier identifier) throws ResourceNotFoundException {
 		Submodel submodel = (Submodel) getSubmodel(identifier);
-		return new VABSubmodelAPIFactory().create(submodel);
+		return submodelApiFactory.create(new MongoDBStoredSubmodel(submodel));
 	}
 
 	@Override
 	public ISubmodelAPI getSubmodelAPIByIdShort(String idShort) throws ResourceNotFoundException {
 		Submodel submodel = (Submodel) getSubmodelbyIdShort(idShort);
-		return new VABSubmodelAPIFactory().create(submodel);
+		return submodelApiFactory.create(new MongoDBStoredSubmodel(submodel));
 	}
 }
@@ -26,13 +26,13 @@
 package org.eclipse.basyx.components.aas.mongodb;
 
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * Factory for creating a {@link MongoDBSubmodelAggregator}
@@ -54,7 +54,7 @@ public class MongoDBSubmodelAggregatorFactory implements ISubmodelAggregatorFact
 
 	@Deprecated
 	public MongoDBSubmodelAggregatorFactory(BaSyxMongoDBConfiguration config, ISubmodelAPIFactory submodelAPIFactory) {
-		this(config, submodelAPIFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, submodelAPIFactory, MongoDBClientRegistry.get(config));
 	}
 
 	@Override
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves GET requests to File submodel elements of a {@link MongoDBAASAggregator}
+ * by copying the GridFS content directly to the response, including support for
+ * single byte ranges. All other requests, as well as file requests that can not
+ * be resolved, are handled by the wrapped aggregator servlet.
+ */
+public class MongoDBFileStreamingServlet extends HttpServlet {
+	private static final long serialVersionUID = 7386185297151853364L;
+	private static Logger logger = LoggerFactory.getLogger(MongoDBFileStreamingServlet.class);
+
+	private static final String[] FILE_PATH_PREFIX = { "shells", null, "aas", "submodels", null, "submodel", "submodelElements" };
+	private static final String FILE_PATH_SUFFIX = "File";
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+	private static final String BYTES_UNIT = "bytes";
+
+	private final HttpServlet delegate;
+	private final MongoDBAASAggregator aggregator;
+
+	public MongoDBFileStreamingServlet(HttpServlet delegate, MongoDBAASAggregator aggregator) {
+		this.delegate = delegate;
+		this.aggregator = aggregator;
+	}
+
+	@Override
+	public void init(ServletConfig config) throws ServletException {
+		super.init(config);
+		delegate.init(config);
+	}
+
+	@Override
+	public void destroy() {
+		delegate.destroy();
+		super.destroy();
+	}
+
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (!"GET".equals(req.getMethod()) || !tryToStreamFile(req, resp)) {
+			delegate.service(req, resp);
+		}
+	}
+
+	/**
+	 * Streams the requested file, if the request addresses a File submodel element
+	 * 
+	 * @return false, if the request has not been handled
+	 */
+	private boolean tryToStreamFile(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		String[] pathElements = VABPathTools.splitPath(extractPath(req));
+		if (!isFilePath(pathElements)) {
+			return false;
+		}
+
+		MongoDBStoredFile storedFile;
+		try {
+			String shellId = VABPathTools.decodePathElement(pathElements[1]);
+			String submodelIdShort = VABPathTools.decodePathElement(pathElements[4]);
+			String idShortPath = Arrays.stream(pathElements, FILE_PATH_PREFIX.length, pathElements.length - 1).map(VABPathTools::decodePathElement).collect(Collectors.joining("/"));
+			storedFile = aggregator.getStoredSubmodelElementFile(shellId, submodelIdShort, idShortPath);
+		} catch (ProviderException e) {
+			logger.debug("Could not stream the file at '{}', falling back to the aggregator servlet", req.getRequestURI());
+			return false;
+		}
+
+		writeFile(req, resp, storedFile);
+		return true;
+	}
+
+	private static String extractPath(HttpServletRequest req) {
+		String servletPath = req.getContextPath() + req.getServletPath();
+		return req.getRequestURI().substring(servletPath.length());
+	}
+
+	private static boolean isFilePath(String[] pathElements) {
+		if (pathElements.length <= FILE_PATH_PREFIX.length + 1 || !pathElements[pathElements.length - 1].equals(FILE_PATH_SUFFIX)) {
+			return false;
+		}
+		for (int i = 0; i < FILE_PATH_PREFIX.length; i++) {
+			if (FILE_PATH_PREFIX[i] != null && !FILE_PATH_PREFIX[i].equals(pathElements[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void writeFile(HttpServletRequest req, HttpServletResponse resp, MongoDBStoredFile storedFile) throws IOException {
+		long length = storedFile.getLength();
+		long[] range = parseRange(req.getHeader("Range"), length);
+
+		resp.setHeader("Accept-Ranges", BYTES_UNIT);
+		resp.setContentType(storedFile.getContentType() == null ? DEFAULT_CONTENT_TYPE : storedFile.getContentType());
+
+		if (range == null) {
+			resp.setStatus(HttpServletResponse.SC_OK);
+			resp.setContentLengthLong(length);
+			copy(resp, storedFile, 0, length);
+		} else if (range.length == 0) {
+			resp.setHeader("Content-Range", BYTES_UNIT + " */" + length);
+			resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		} else {
+			long rangeLength = range[1] - range[0] + 1;
+			resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			resp.setHeader("Content-Range", BYTES_UNIT + " " + range[0] + "-" + range[1] + "/" + length);
+			resp.setContentLengthLong(rangeLength);
+			copy(resp, storedFile, range[0], rangeLength);
+		}
+	}
+
+	private static void copy(HttpServletResponse resp, MongoDBStoredFile storedFile, long offset, long length) throws IOException {
+		OutputStream out = resp.getOutputStream();
+		storedFile.copyTo(out, offset, length);
+		out.flush();
+	}
+
+	/**
+	 * Parses a single byte range of a Range header. Multiple ranges and malformed
+	 * headers are ignored, so that the whole file is returned.
+	 * 
+	 * @return null for the whole file, an empty array for an unsatisfiable range or
+	 *         the first and last byte position of the range
+	 */
+	static long[] parseRange(String rangeHeader, long length) {
+		if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT + "=") || rangeHeader.contains(",")) {
+			return null;
+		}
+
+		String[] bounds = rangeHeader.substring(BYTES_UNIT.length() + 1).trim().split("-", -1);
+		if (bounds.length != 2) {
+			return null;
+		}
+
+		try {
+			long first;
+			long last;
+			if (bounds[0].isEmpty()) {
+				// suffix range, i.e. the last n bytes
+				long suffixLength = Long.parseLong(bounds[1]);
+				if (suffixLength <= 0) {
+					return new long[0];
+				}
+				first = Math.max(0, length - suffixLength);
+				last = length - 1;
+			} else {
+				first = Long.parseLong(bounds[0]);
+				last = bounds[1].isEmpty() ? length - 1 : Math.min(Long.parseLong(bounds[1]), length - 1);
+			}
+
+			if (first >= length || first > last) {
+				return new long[0];
+			}
+			return new long[] { first, last };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
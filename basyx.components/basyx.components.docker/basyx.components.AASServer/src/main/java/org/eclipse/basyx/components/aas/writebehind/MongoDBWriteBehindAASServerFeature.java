@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.writebehind;
+
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerDecorator;
+import org.eclipse.basyx.components.aas.aascomponent.IAASServerFeature;
+import org.eclipse.basyx.components.aas.aascomponent.PassThroughAASServerDecorator;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBCollectionState;
+
+import com.mongodb.client.MongoClient;
+
+/**
+ * Feature for the write-behind buffer of submodel element updates in the
+ * MongoDB backend. The buffer itself is created by the submodel storage on the
+ * first update and owned by the shared client; this feature writes the pending
+ * updates when the server stops.
+ * 
+ * @see BaSyxMongoDBConfiguration#getWriteBehindWindow()
+ */
+public class MongoDBWriteBehindAASServerFeature implements IAASServerFeature {
+	private BaSyxMongoDBConfiguration config;
+	private MongoClient client;
+
+	public MongoDBWriteBehindAASServerFeature(BaSyxMongoDBConfiguration config) {
+		this.config = config;
+	}
+
+	@Override
+	public void initialize() {
+		client = MongoDBClientRegistry.acquire(config);
+	}
+
+	@Override
+	public void cleanUp() {
+		if (client != null) {
+			MongoDBCollectionState.get(client, config.getDatabase(), config.getSubmodelCollection()).closeWriteBehindBuffer();
+			MongoDBClientRegistry.release(client);
+			client = null;
+		}
+	}
+
+	@Override
+	public IAASServerDecorator getDecorator() {
+		return new PassThroughAASServerDecorator();
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.AASServer.feature;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.aas.history.IPropertyHistoryStore;
+import org.eclipse.basyx.components.aas.history.InMemoryPropertyHistoryStore;
+import org.eclipse.basyx.components.aas.history.PropertyHistoryBucket;
+import org.eclipse.basyx.components.aas.history.PropertyHistoryProvider;
+import org.eclipse.basyx.components.aas.history.PropertyHistorySample;
+import org.eclipse.basyx.components.aas.history.PropertyHistorySubmodelAPI;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
+import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPIFactory;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the recording and querying of the property history with the in-memory
+ * store
+ */
+public class TestPropertyHistorySubmodelAPI {
+	private static final String SUBMODEL_ID = "urn:test:history";
+	private static final String PROPERTY_ID_SHORT = "temperature";
+
+	private IPropertyHistoryStore store;
+	private ISubmodelAPI historyAPI;
+
+	@Before
+	public void setUp() {
+		store = new InMemoryPropertyHistoryStore(3, 60, null);
+		Submodel submodel = new Submodel("history", new CustomId(SUBMODEL_ID));
+		submodel.addSubmodelElement(new Property(PROPERTY_ID_SHORT, 0));
+		historyAPI = new PropertyHistorySubmodelAPI(new VABSubmodelAPIFactory().create(submodel), SUBMODEL_ID, store);
+	}
+
+	@Test
+	public void updatedValuesAreRecorded() {
+		historyAPI.updateSubmodelElement(PROPERTY_ID_SHORT, 20);
+		historyAPI.updateSubmodelElement(PROPERTY_ID_SHORT, 21);
+
+		List<PropertyHistorySample> samples = store.getSamples(SUBMODEL_ID, PROPERTY_ID_SHORT, null, null, 10);
+		assertEquals(2, samples.size());
+		assertEquals(20, samples.get(0).getValue());
+		assertEquals(21, samples.get(1).getValue());
+		assertEquals(21, historyAPI.getSubmodelElementValue(PROPERTY_ID_SHORT));
+	}
+
+	@Test
+	public void oldestValuesAreDroppedAtCapacity() {
+		for (int i = 1; i <= 5; i++) {
+			historyAPI.updateSubmodelElement(PROPERTY_ID_SHORT, i);
+		}
+
+		List<PropertyHistorySample> samples = store.getSamples(SUBMODEL_ID, PROPERTY_ID_SHORT, null, null, 10);
+		assertEquals(3, samples.size());
+		assertEquals(3, samples.get(0).getValue());
+	}
+
+	@Test
+	public void numericValuesAreDownsampled() {
+		Instant start = Instant.parse("2024-01-01T00:00:00Z");
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 1, start);
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 3, start.plusSeconds(30));
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 10, start.plusSeconds(60));
+
+		List<PropertyHistoryBucket> buckets = store.getBuckets(SUBMODEL_ID, PROPERTY_ID_SHORT, null, null, 10);
+		assertEquals(2, buckets.size());
+		assertEquals(start, buckets.get(0).getStart());
+		assertEquals(1, buckets.get(0).getMin(), 0);
+		assertEquals(3, buckets.get(0).getMax(), 0);
+		assertEquals(2, buckets.get(0).getAverage(), 0);
+		assertEquals(2, buckets.get(0).getCount());
+		assertEquals(1, buckets.get(1).getCount());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void providerFiltersByTimeRange() {
+		Instant start = Instant.parse("2024-01-01T00:00:00Z");
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 1, start);
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 2, start.plusSeconds(10));
+		store.record(SUBMODEL_ID, PROPERTY_ID_SHORT, 3, start.plusSeconds(20));
+
+		PropertyHistoryProvider provider = new PropertyHistoryProvider(store);
+		String path = "/urn%3Atest%3Ahistory/" + PROPERTY_ID_SHORT + "?from=2024-01-01T00:00:05Z&to=2024-01-01T00:00:20Z";
+		List<Map<String, Object>> samples = (List<Map<String, Object>>) provider.getValue(path);
+		assertEquals(1, samples.size());
+		assertEquals(2, samples.get(0).get("value"));
+		assertEquals("2024-01-01T00:00:10Z", samples.get(0).get("timestamp"));
+	}
+
+	@Test(expected = MalformedRequestException.class)
+	public void providerRejectsInvalidLimit() {
+		new PropertyHistoryProvider(store).getValue("/urn%3Atest%3Ahistory/" + PROPERTY_ID_SHORT + "?limit=0");
+	}
+}
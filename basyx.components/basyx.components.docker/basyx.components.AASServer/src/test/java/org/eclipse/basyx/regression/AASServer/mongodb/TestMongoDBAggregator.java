@@ -25,6 +25,9 @@
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.List;
@@ -35,8 +38,10 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
 import org.eclipse.basyx.aas.aggregator.proxy.AASAggregatorProxy;
 import org.eclipse.basyx.aas.manager.ConnectedAssetAdministrationShellManager;
+import org.eclipse.basyx.aas.metamodel.api.parts.asset.AssetKind;
 import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.ModelUrn;
+import org.eclipse.basyx.aas.metamodel.map.parts.Asset;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.aas.registration.memory.AASRegistry;
 import org.eclipse.basyx.aas.restapi.MultiSubmodelProvider;
@@ -196,6 +201,33 @@ public class TestMongoDBAggregator extends AASAggregatorSuite {
 		}
 	}
 
+	@SuppressWarnings("deprecation")
+	@Test
+	public void resetDropsShellsAndSubmodels() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		aggregator.createAAS(aas1);
+
+		MongoDBAASAggregator.ResetResult result = aggregator.resetWithResult();
+
+		// aas1 and the shell with its submodel created by the setup
+		assertTrue(result.getDeletedShells() >= 2);
+		assertTrue(result.getDeletedSubmodels() >= 1);
+		assertTrue(aggregator.getAASList().isEmpty());
+	}
+
+	@Test
+	public void shellListIsLimited() {
+		MongoDBAASAggregator aggregator = (MongoDBAASAggregator) getAggregator();
+		aggregator.createAAS(new AssetAdministrationShell("limitedShell1", new ModelUrn("limitedShell1"), new Asset("asset1", new ModelUrn("asset1"), AssetKind.INSTANCE)));
+		aggregator.createAAS(new AssetAdministrationShell("limitedShell2", new ModelUrn("limitedShell2"), new Asset("asset2", new ModelUrn("asset2"), AssetKind.INSTANCE)));
+
+		aggregator.setAASListLimit(1);
+		assertEquals(1, aggregator.getAASList().size());
+
+		aggregator.setAASListLimit(0);
+		assertEquals(2, aggregator.getAASList().size());
+	}
+
 	@SuppressWarnings("deprecation")
 	@Override
 	protected IAASAggregator getAggregator() {
@@ -279,6 +311,39 @@ public class TestMongoDBAggregator extends AASAggregatorSuite {
 		assertEquals(SM_IDSHORT, submodelObject.get(Referable.IDSHORT));
 	}
 
+	@SuppressWarnings("deprecation")
+	@Test
+	public void providerIsCachedUntilShellIsUpdated() {
+		BaSyxMongoDBConfiguration cachingConfig = new BaSyxMongoDBConfiguration();
+		cachingConfig.setAASCollection(mongoDBConfig.getAASCollection());
+		cachingConfig.setSubmodelCollection(mongoDBConfig.getSubmodelCollection());
+		cachingConfig.setAASProviderCacheSize(100);
+
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(cachingConfig, registry);
+		IIdentifier shellId = new ModelUrn(AAS_ID);
+
+		IModelProvider provider = aggregator.getAASProvider(shellId);
+		assertSame(provider, aggregator.getAASProvider(shellId));
+		assertEquals(1, aggregator.getProviderCache().getMissCount());
+		assertEquals(1, aggregator.getProviderCache().getHitCount());
+
+		aggregator.updateAAS((AssetAdministrationShell) aggregator.getAAS(shellId));
+		assertNotSame(provider, aggregator.getAASProvider(shellId));
+	}
+
+	@SuppressWarnings({ "unchecked", "deprecation" })
+	@Test
+	public void submodelsAreResolvedOnDemand() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		IModelProvider aasProvider = aggregator.getAASProvider(new ModelUrn(AAS_ID));
+
+		Map<String, Object> submodelObject = (Map<String, Object>) aasProvider.getValue(PREFIX_SUBMODEL_PATH + SM_IDSHORT + SUFFIX_SUBMODEL_PATH);
+		assertEquals(SM_IDSHORT, submodelObject.get(Referable.IDSHORT));
+
+		List<Object> submodels = (List<Object>) aasProvider.getValue(PREFIX_SUBMODEL_PATH);
+		assertEquals(1, submodels.size());
+	}
+
 	private void restartAasServer() {
 		component.stopComponent();
 		component.startComponent();
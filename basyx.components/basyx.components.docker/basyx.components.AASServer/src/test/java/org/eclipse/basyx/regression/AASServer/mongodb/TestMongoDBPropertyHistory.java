@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.regression.AASServer.mongodb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.basyx.aas.manager.ConnectedAssetAdministrationShellManager;
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.aas.registration.memory.InMemoryRegistry;
+import org.eclipse.basyx.components.aas.AASServerComponent;
+import org.eclipse.basyx.components.aas.configuration.AASServerBackend;
+import org.eclipse.basyx.components.aas.configuration.BaSyxAASServerConfiguration;
+import org.eclipse.basyx.components.aas.history.PropertyHistoryAASServerFeature;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
+import org.eclipse.basyx.components.configuration.BaSyxContextConfiguration;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.dataelement.IProperty;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.vab.protocol.http.connector.HTTPConnectorFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that property writes over HTTP are recorded by the property history
+ * feature on a MongoDB backed server
+ */
+public class TestMongoDBPropertyHistory {
+	private static final IIdentifier SHELL_IDENTIFIER = new CustomId("historyShellId");
+	private static final IIdentifier SUBMODEL_IDENTIFIER = new CustomId("historySubmodelId");
+	private static final String PROPERTY_ID_SHORT = "temperature";
+
+	private static AASServerComponent component;
+	private static BaSyxContextConfiguration contextConfig;
+
+	@SuppressWarnings("deprecation")
+	@BeforeClass
+	public static void setUpClass() {
+		BaSyxMongoDBConfiguration mongoDBConfig = new BaSyxMongoDBConfiguration();
+		mongoDBConfig.setAASCollection("basyxTestAAS");
+		mongoDBConfig.setSubmodelCollection("basyxTestSM");
+		new MongoDBAASAggregator(mongoDBConfig).reset();
+
+		contextConfig = new BaSyxContextConfiguration();
+		contextConfig.loadFromResource(BaSyxContextConfiguration.DEFAULT_CONFIG_PATH);
+		BaSyxAASServerConfiguration aasConfig = new BaSyxAASServerConfiguration(AASServerBackend.MONGODB, "");
+		aasConfig.enablePropertyHistory();
+
+		component = new AASServerComponent(contextConfig, aasConfig, mongoDBConfig);
+		component.startComponent();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void propertyWrittenOverHTTPIsRecorded() {
+		ConnectedAssetAdministrationShellManager manager = new ConnectedAssetAdministrationShellManager(new InMemoryRegistry(), new HTTPConnectorFactory());
+		AssetAdministrationShell shell = new AssetAdministrationShell();
+		shell.setIdentification(SHELL_IDENTIFIER);
+		shell.setIdShort("historyShell");
+		manager.createAAS(shell, component.getURL());
+
+		Submodel submodel = new Submodel("historySubmodel", SUBMODEL_IDENTIFIER);
+		submodel.addSubmodelElement(new Property(PROPERTY_ID_SHORT, 0));
+		manager.createSubmodel(SHELL_IDENTIFIER, submodel);
+
+		Instant start = Instant.now();
+		IProperty property = (IProperty) manager.retrieveSubmodel(SHELL_IDENTIFIER, SUBMODEL_IDENTIFIER).getSubmodelElement(PROPERTY_ID_SHORT);
+		property.setValue(21);
+
+		String historyPath = "/" + SUBMODEL_IDENTIFIER.getId() + "/" + PROPERTY_ID_SHORT + "?from=" + start;
+		List<Map<String, Object>> samples = (List<Map<String, Object>>) new HTTPConnectorFactory().getConnector(contextConfig.getUrl() + PropertyHistoryAASServerFeature.HISTORY_PATH).getValue(historyPath);
+		assertEquals(1, samples.size());
+		assertEquals(21, samples.get(0).get("value"));
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		component.stopComponent();
+	}
+}
@@ -25,19 +25,28 @@
 
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 
 import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPI;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPIFactory;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.LangStrings;
@@ -96,6 +105,22 @@ public class TestMongoDBSubmodelAPI {
 		assertEquals(expected.length(), value.length());
 	}
 
+	@Test
+	public void fileSubmodelElementFileIsStreamed() throws IOException {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		uploadDummyFile(submodelAPI, "fileSmeIdShort");
+
+		MongoDBStoredFile storedFile = submodelAPI.getStoredSubmodelElementFile("fileSmeIdShort");
+
+		byte[] expected = Files.readAllBytes(Paths.get("src/test/resources/testfile.xml"));
+		assertEquals(expected.length, storedFile.getLength());
+		assertEquals("application/xml", storedFile.getContentType());
+
+		ByteArrayOutputStream range = new ByteArrayOutputStream();
+		storedFile.copyTo(range, 5, 10);
+		assertArrayEquals(Arrays.copyOfRange(expected, 5, 15), range.toByteArray());
+	}
+
 	@Test(expected = MongoGridFSException.class)
 	public void fileSubmodelElementFileIsAutomaticallyDeleted() throws FileNotFoundException {
 		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
@@ -148,6 +173,56 @@ public class TestMongoDBSubmodelAPI {
 		submodelAPI.getSubmodelElementValue(mlprop.getIdShort());
 	}
 
+	@Test
+	public void nestedSubmodelElementIsAddedAndUpdated() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		SubmodelElementCollection collection = new SubmodelElementCollection("collection");
+		submodelAPI.addSubmodelElement(collection);
+		submodelAPI.addSubmodelElement(new Property("sibling", 1));
+
+		submodelAPI.addSubmodelElement("collection/nested", new Property("nested", 2));
+		submodelAPI.updateSubmodelElement("collection/nested", 3);
+
+		MongoDBSubmodelAPI secondAPI = new MongoDBSubmodelAPI(submodelAPI.getSubmodelId(), client);
+		assertEquals(3, secondAPI.getSubmodelElementValue("collection/nested"));
+		assertEquals(1, secondAPI.getSubmodelElementValue("sibling"));
+		assertEquals(2, secondAPI.getSubmodelElements().size());
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void nestedSubmodelElementIsDeleted() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		SubmodelElementCollection collection = new SubmodelElementCollection("collection");
+		collection.addSubmodelElement(new Property("nested", 1));
+		submodelAPI.addSubmodelElement(collection);
+
+		submodelAPI.deleteSubmodelElement("collection/nested");
+
+		submodelAPI.getSubmodelElement("collection/nested");
+	}
+
+	@Test
+	public void acquiredClientIsClosedAfterCreatingSubmodelAPI() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl("mongodb://127.0.0.1:27017/?appName=submodelAPIFactoryTest");
+
+		int liveClientsBefore = MongoDBClientRegistry.getLiveClientCount();
+
+		MongoClient acquiredClient = MongoDBClientRegistry.acquire(config);
+		new MongoDBSubmodelAPIFactory(config, acquiredClient).create(new Submodel("factorySubmodel", new CustomId("factorySubmodelId")));
+
+		MongoDBClientRegistry.release(acquiredClient);
+		assertEquals(0, MongoDBClientRegistry.getReferenceCount(config));
+		assertEquals(liveClientsBefore, MongoDBClientRegistry.getLiveClientCount());
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void updateNotExistingNestedSubmodelElement() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+
+		submodelAPI.updateSubmodelElement("notExisting/nested", 1);
+	}
+
 	private void uploadDummyFile(MongoDBSubmodelAPI submodelAPI, String idShort) throws FileNotFoundException {
 		File file = new File("application/xml");
 		file.setValue("");
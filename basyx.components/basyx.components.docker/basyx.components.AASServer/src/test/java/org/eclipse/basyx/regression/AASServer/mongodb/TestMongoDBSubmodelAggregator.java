@@ -26,15 +26,21 @@
 
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 import java.util.Optional;
 
+import org.eclipse.basyx.aas.metamodel.api.parts.asset.AssetKind;
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.aas.metamodel.map.parts.Asset;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPIFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAggregator;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.testsuite.regression.submodel.aggregator.SubmodelAggregatorSuite;
@@ -72,6 +78,33 @@ public class TestMongoDBSubmodelAggregator extends SubmodelAggregatorSuite {
 		assertSubmodelDoesNotExist(toDelete);
 	}
 
+	@Test
+	public void submodelByIdShortIsLookedUpWithinShell() {
+		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
+		MongoClient client = MongoClients.create(config.getConnectionUrl());
+
+		Asset asset = new Asset("scopedAsset", new CustomId("scopedAssetId"), AssetKind.INSTANCE);
+		AssetAdministrationShell shell = new AssetAdministrationShell("scopedShell", new CustomId("scopedShellId"), asset);
+		MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi = MongoDBBaSyxStorageAPIFactory.<AssetAdministrationShell>create(config.getAASCollection(), AssetAdministrationShell.class, config, client);
+		shellStorageApi.createOrUpdate(shell);
+
+		Submodel foreignSubmodel = new Submodel("sharedIdShort", new CustomId("foreignSubmodelId"));
+		Submodel ownSubmodel = new Submodel("sharedIdShort", new CustomId("ownSubmodelId"));
+		ownSubmodel.setParent(shell.getReference());
+
+		MongoDBSubmodelAggregator shellAggregator = new MongoDBSubmodelAggregator(new MongoDBSubmodelAPIFactory(config, client), config, client, shell.getIdentification());
+		aggregator.createSubmodel(foreignSubmodel);
+		shellAggregator.createSubmodel(ownSubmodel);
+
+		try {
+			assertEquals(ownSubmodel.getIdentification().getId(), shellAggregator.getSubmodelbyIdShort("sharedIdShort").getIdentification().getId());
+		} finally {
+			aggregator.deleteSubmodelByIdentifier(foreignSubmodel.getIdentification());
+			aggregator.deleteSubmodelByIdentifier(ownSubmodel.getIdentification());
+			shellStorageApi.delete(shell.getIdentification().getId());
+		}
+	}
+
 	private void assertSubmodelDoesNotExist(Submodel toDelete) {
 		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
 
@@ -28,17 +28,20 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
 import org.eclipse.basyx.aas.registration.memory.IRegistryHandler;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBPage;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
 /**
  * A registry handler based on MongoDB
@@ -138,4 +141,42 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 	public List<AASDescriptor> getAll() {
 		return (List<AASDescriptor>) this.storageApi.retrieveAll();
 	}
+
+	/**
+	 * Returns a page of the descriptors ordered by their shell's identification
+	 * id
+	 * 
+	 * @param offset
+	 *            the number of descriptors to skip
+	 * @param limit
+	 *            the maximum number of descriptors of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<AASDescriptor> getAll(int offset, int limit) {
+		return this.storageApi.retrievePage(new Query(), offset, limit);
+	}
+
+	/**
+	 * Returns the page of descriptors following the given cursor, ordered by their
+	 * shell's identification id
+	 * 
+	 * @param cursor
+	 *            the cursor of the previous page or null for the first page
+	 * @param limit
+	 *            the maximum number of descriptors of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<AASDescriptor> getAll(String cursor, int limit) {
+		return this.storageApi.retrievePage(new Query(), cursor, limit);
+	}
+
+	/**
+	 * Passes all descriptors to the consumer while holding at most one cursor
+	 * batch in memory
+	 * 
+	 * @param consumer
+	 */
+	public void forEach(Consumer<? super AASDescriptor> consumer) {
+		this.storageApi.forEach(new Query(), consumer);
+	}
 }
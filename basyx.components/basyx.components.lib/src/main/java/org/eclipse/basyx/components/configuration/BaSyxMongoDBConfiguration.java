@@ -24,10 +24,12 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.configuration;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Represents a BaSyx configuration for a MongoDB connection.
@@ -46,6 +48,34 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 	public static final String DEFAULT_AAS_COLLECTION = "basyxaas";
 	public static final String DEFAULT_SUBMODEL_COLLECTION = "basyxsubmodel";
 	public static final String DEFAULT_FILE_COLLECTION = "basyxfiles";
+	public static final String DEFAULT_INDEX_MANAGEMENT = "true";
+	public static final String DEFAULT_REGISTRY_INDEXES = "idShort,asset.identification.id";
+	public static final String DEFAULT_AAS_INDEXES = "idShort";
+	public static final String DEFAULT_SUBMODEL_INDEXES = "idShort,parent.keys.value";
+	public static final String DEFAULT_AAS_PROVIDER_CACHE_SIZE = "0";
+	public static final String DEFAULT_AAS_PROVIDER_CACHE_TTL = "0";
+	public static final String DEFAULT_FILE_CACHE_DIRECTORY = "";
+	public static final String DEFAULT_FILE_CACHE_MAX_SIZE = "268435456";
+	public static final String DEFAULT_FILE_DEDUPLICATION = "false";
+	public static final String DEFAULT_FILE_CHUNK_SIZE = "";
+	public static final String DEFAULT_FILE_NAME_MIGRATION = "false";
+	public static final String DEFAULT_CURSOR_BATCH_SIZE = "500";
+	public static final String DEFAULT_AAS_LIST_LIMIT = "10000";
+	public static final String DEFAULT_BSON_CODECS = "false";
+	public static final String DEFAULT_VALUE_SPLIT = "false";
+	public static final String DEFAULT_SUBMODEL_VALUE_COLLECTION = "basyxsubmodelvalues";
+	public static final String DEFAULT_WRITE_BEHIND_WINDOW = "";
+	public static final String DEFAULT_WRITE_BEHIND_MAX_PENDING = "10000";
+	public static final String DEFAULT_VERSION_CONFLICT_RETRIES = "10";
+	public static final String DEFAULT_CHANGE_STREAMS = "false";
+	public static final String DEFAULT_CHANGE_STREAM_TOKEN_COLLECTION = "basyxchangestreamtokens";
+	public static final String DEFAULT_CHANGE_STREAM_ID = "";
+	public static final String DEFAULT_HISTORY_COLLECTION = "basyxhistory";
+	public static final String DEFAULT_KEY_FILTER = "false";
+	public static final String DEFAULT_KEY_FILTER_EXPECTED_KEYS = "100000";
+	public static final String DEFAULT_KEY_FILTER_FALSE_POSITIVE_RATE = "0.01";
+	// Empty client settings fall back to the connection string or driver defaults
+	public static final String DEFAULT_CLIENT_SETTING = "";
 
 	public static final String DATABASE = "dbname";
 	public static final String CONNECTIONURL = "dbconnectionstring";
@@ -53,6 +83,41 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 	public static final String AAS_COLLECTION = "dbcollectionAAS";
 	public static final String SUBMODEL_COLLECTION = "dbcollectionSubmodels";
 	public static final String FILE_COLLECTION = "dbcollectionFiles";
+	public static final String INDEX_MANAGEMENT = "dbindexManagement";
+	public static final String REGISTRY_INDEXES = "dbindexesRegistry";
+	public static final String AAS_INDEXES = "dbindexesAAS";
+	public static final String SUBMODEL_INDEXES = "dbindexesSubmodels";
+	public static final String AAS_PROVIDER_CACHE_SIZE = "aasProviderCacheSize";
+	public static final String AAS_PROVIDER_CACHE_TTL = "aasProviderCacheTTL";
+	public static final String FILE_CACHE_DIRECTORY = "fileCacheDirectory";
+	public static final String FILE_CACHE_MAX_SIZE = "fileCacheMaxSize";
+	public static final String FILE_DEDUPLICATION = "fileDeduplication";
+	public static final String FILE_CHUNK_SIZE = "fileChunkSize";
+	public static final String FILE_NAME_MIGRATION = "fileNameMigration";
+	public static final String CURSOR_BATCH_SIZE = "dbcursorBatchSize";
+	public static final String AAS_LIST_LIMIT = "dbaasListLimit";
+	public static final String BSON_CODECS = "dbbsonCodecs";
+	public static final String VALUE_SPLIT = "dbvalueSplit";
+	public static final String SUBMODEL_VALUE_COLLECTION = "dbcollectionSubmodelValues";
+	public static final String WRITE_BEHIND_WINDOW = "writeBehindWindow";
+	public static final String WRITE_BEHIND_MAX_PENDING = "writeBehindMaxPending";
+	public static final String VERSION_CONFLICT_RETRIES = "versionConflictRetries";
+	public static final String CHANGE_STREAMS = "dbchangeStreams";
+	public static final String CHANGE_STREAM_TOKEN_COLLECTION = "dbcollectionChangeStreamTokens";
+	public static final String CHANGE_STREAM_ID = "dbchangeStreamId";
+	public static final String HISTORY_COLLECTION = "dbcollectionHistory";
+	public static final String KEY_FILTER = "dbkeyFilter";
+	public static final String KEY_FILTER_EXPECTED_KEYS = "dbkeyFilterExpectedKeys";
+	public static final String KEY_FILTER_FALSE_POSITIVE_RATE = "dbkeyFilterFalsePositiveRate";
+	public static final String CONNECTION_POOL_MIN_SIZE = "dbconnectionPoolMinSize";
+	public static final String CONNECTION_POOL_MAX_SIZE = "dbconnectionPoolMaxSize";
+	public static final String CONNECTION_POOL_MAX_WAIT_TIME = "dbconnectionPoolMaxWaitTime";
+	public static final String SOCKET_TIMEOUT = "dbsocketTimeout";
+	public static final String SERVER_SELECTION_TIMEOUT = "dbserverSelectionTimeout";
+	public static final String READ_PREFERENCE = "dbreadPreference";
+	public static final String READ_CONCERN = "dbreadConcern";
+	public static final String WRITE_CONCERN = "dbwriteConcern";
+	public static final String WRITE_CONCERN_RULES = "dbwriteConcernRules";
 
 	// The default path for the context properties file
 	public static final String DEFAULT_CONFIG_PATH = "mongodb.properties";
@@ -68,6 +133,41 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 		defaultProps.put(AAS_COLLECTION, DEFAULT_AAS_COLLECTION);
 		defaultProps.put(SUBMODEL_COLLECTION, DEFAULT_SUBMODEL_COLLECTION);
 		defaultProps.put(FILE_COLLECTION, DEFAULT_FILE_COLLECTION);
+		defaultProps.put(INDEX_MANAGEMENT, DEFAULT_INDEX_MANAGEMENT);
+		defaultProps.put(REGISTRY_INDEXES, DEFAULT_REGISTRY_INDEXES);
+		defaultProps.put(AAS_INDEXES, DEFAULT_AAS_INDEXES);
+		defaultProps.put(SUBMODEL_INDEXES, DEFAULT_SUBMODEL_INDEXES);
+		defaultProps.put(AAS_PROVIDER_CACHE_SIZE, DEFAULT_AAS_PROVIDER_CACHE_SIZE);
+		defaultProps.put(AAS_PROVIDER_CACHE_TTL, DEFAULT_AAS_PROVIDER_CACHE_TTL);
+		defaultProps.put(FILE_CACHE_DIRECTORY, DEFAULT_FILE_CACHE_DIRECTORY);
+		defaultProps.put(FILE_CACHE_MAX_SIZE, DEFAULT_FILE_CACHE_MAX_SIZE);
+		defaultProps.put(FILE_DEDUPLICATION, DEFAULT_FILE_DEDUPLICATION);
+		defaultProps.put(FILE_CHUNK_SIZE, DEFAULT_FILE_CHUNK_SIZE);
+		defaultProps.put(FILE_NAME_MIGRATION, DEFAULT_FILE_NAME_MIGRATION);
+		defaultProps.put(CURSOR_BATCH_SIZE, DEFAULT_CURSOR_BATCH_SIZE);
+		defaultProps.put(AAS_LIST_LIMIT, DEFAULT_AAS_LIST_LIMIT);
+		defaultProps.put(BSON_CODECS, DEFAULT_BSON_CODECS);
+		defaultProps.put(VALUE_SPLIT, DEFAULT_VALUE_SPLIT);
+		defaultProps.put(SUBMODEL_VALUE_COLLECTION, DEFAULT_SUBMODEL_VALUE_COLLECTION);
+		defaultProps.put(WRITE_BEHIND_WINDOW, DEFAULT_WRITE_BEHIND_WINDOW);
+		defaultProps.put(WRITE_BEHIND_MAX_PENDING, DEFAULT_WRITE_BEHIND_MAX_PENDING);
+		defaultProps.put(VERSION_CONFLICT_RETRIES, DEFAULT_VERSION_CONFLICT_RETRIES);
+		defaultProps.put(CHANGE_STREAMS, DEFAULT_CHANGE_STREAMS);
+		defaultProps.put(CHANGE_STREAM_TOKEN_COLLECTION, DEFAULT_CHANGE_STREAM_TOKEN_COLLECTION);
+		defaultProps.put(CHANGE_STREAM_ID, DEFAULT_CHANGE_STREAM_ID);
+		defaultProps.put(HISTORY_COLLECTION, DEFAULT_HISTORY_COLLECTION);
+		defaultProps.put(KEY_FILTER, DEFAULT_KEY_FILTER);
+		defaultProps.put(KEY_FILTER_EXPECTED_KEYS, DEFAULT_KEY_FILTER_EXPECTED_KEYS);
+		defaultProps.put(KEY_FILTER_FALSE_POSITIVE_RATE, DEFAULT_KEY_FILTER_FALSE_POSITIVE_RATE);
+		defaultProps.put(CONNECTION_POOL_MIN_SIZE, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(CONNECTION_POOL_MAX_SIZE, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(CONNECTION_POOL_MAX_WAIT_TIME, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(SOCKET_TIMEOUT, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(SERVER_SELECTION_TIMEOUT, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(READ_PREFERENCE, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(READ_CONCERN, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(WRITE_CONCERN, DEFAULT_CLIENT_SETTING);
+		defaultProps.put(WRITE_CONCERN_RULES, DEFAULT_CLIENT_SETTING);
 
 		return defaultProps;
 	}
@@ -148,7 +248,14 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 
 	public void loadFromEnvironmentVariables() {
 		String[] properties = { DATABASE, CONNECTIONURL, REGISTRY_COLLECTION, AAS_COLLECTION, SUBMODEL_COLLECTION,
-				FILE_COLLECTION };
+				FILE_COLLECTION, INDEX_MANAGEMENT, REGISTRY_INDEXES, AAS_INDEXES, SUBMODEL_INDEXES, AAS_PROVIDER_CACHE_SIZE,
+				AAS_PROVIDER_CACHE_TTL, FILE_CACHE_DIRECTORY, FILE_CACHE_MAX_SIZE, FILE_DEDUPLICATION, FILE_CHUNK_SIZE,
+				FILE_NAME_MIGRATION, CURSOR_BATCH_SIZE, AAS_LIST_LIMIT, BSON_CODECS, VALUE_SPLIT, SUBMODEL_VALUE_COLLECTION,
+				WRITE_BEHIND_WINDOW, WRITE_BEHIND_MAX_PENDING, VERSION_CONFLICT_RETRIES, CHANGE_STREAMS,
+				CHANGE_STREAM_TOKEN_COLLECTION, CHANGE_STREAM_ID, HISTORY_COLLECTION, KEY_FILTER, KEY_FILTER_EXPECTED_KEYS,
+				KEY_FILTER_FALSE_POSITIVE_RATE,
+				CONNECTION_POOL_MIN_SIZE, CONNECTION_POOL_MAX_SIZE, CONNECTION_POOL_MAX_WAIT_TIME,
+				SOCKET_TIMEOUT, SERVER_SELECTION_TIMEOUT, READ_PREFERENCE, READ_CONCERN, WRITE_CONCERN, WRITE_CONCERN_RULES };
 		loadFromEnvironmentVariables(ENV_PREFIX, properties);
 	}
 
@@ -205,6 +312,469 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 		setProperty(FILE_COLLECTION, fileCollection);
 	}
 
+	/**
+	 * Returns whether the storage API factory shall ensure the secondary indexes
+	 * of the BaSyx collections. The unique identification index is always
+	 * ensured, as duplicate-free upserts depend on it.
+	 */
+	public boolean isIndexManagementEnabled() {
+		return !"false".equalsIgnoreCase(getProperty(INDEX_MANAGEMENT));
+	}
+
+	public void setIndexManagementEnabled(boolean enabled) {
+		setProperty(INDEX_MANAGEMENT, Boolean.toString(enabled));
+	}
+
+	public List<String> getRegistryIndexes() {
+		return splitIndexList(getProperty(REGISTRY_INDEXES));
+	}
+
+	public void setRegistryIndexes(List<String> fieldPaths) {
+		setProperty(REGISTRY_INDEXES, String.join(",", fieldPaths));
+	}
+
+	public List<String> getAASIndexes() {
+		return splitIndexList(getProperty(AAS_INDEXES));
+	}
+
+	public void setAASIndexes(List<String> fieldPaths) {
+		setProperty(AAS_INDEXES, String.join(",", fieldPaths));
+	}
+
+	public List<String> getSubmodelIndexes() {
+		return splitIndexList(getProperty(SUBMODEL_INDEXES));
+	}
+
+	public void setSubmodelIndexes(List<String> fieldPaths) {
+		setProperty(SUBMODEL_INDEXES, String.join(",", fieldPaths));
+	}
+
+	/**
+	 * Returns the configured secondary index fields for the given collection. Only
+	 * the registry, AAS and submodel collections have secondary indexes.
+	 * 
+	 * @param collectionName
+	 * @return the (dotted) document paths to index, or an empty list
+	 */
+	public List<String> getIndexes(String collectionName) {
+		if (collectionName.equals(getRegistryCollection())) {
+			return getRegistryIndexes();
+		} else if (collectionName.equals(getAASCollection())) {
+			return getAASIndexes();
+		} else if (collectionName.equals(getSubmodelCollection())) {
+			return getSubmodelIndexes();
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns the maximum number of assembled AAS providers kept by the MongoDB AAS
+	 * aggregator. A size of 0 disables the cache, which is the default. Cached
+	 * providers only notice changes by other server instances if change streams
+	 * are enabled, so the cache should only be enabled together with change
+	 * streams or for a single server instance.
+	 */
+	public int getAASProviderCacheSize() {
+		return Integer.parseInt(getProperty(AAS_PROVIDER_CACHE_SIZE));
+	}
+
+	public void setAASProviderCacheSize(int size) {
+		setProperty(AAS_PROVIDER_CACHE_SIZE, Integer.toString(size));
+	}
+
+	/**
+	 * Returns the time to live of cached AAS providers in milliseconds. A time to
+	 * live of 0 keeps them until they are evicted or invalidated.
+	 */
+	public long getAASProviderCacheTTL() {
+		return Long.parseLong(getProperty(AAS_PROVIDER_CACHE_TTL));
+	}
+
+	public void setAASProviderCacheTTL(long timeToLiveMillis) {
+		setProperty(AAS_PROVIDER_CACHE_TTL, Long.toString(timeToLiveMillis));
+	}
+
+	/**
+	 * Returns the directory of the local GridFS file cache or null, if files are
+	 * always read from the database
+	 */
+	public String getFileCacheDirectory() {
+		return getStringSetting(FILE_CACHE_DIRECTORY);
+	}
+
+	public void setFileCacheDirectory(String directory) {
+		setProperty(FILE_CACHE_DIRECTORY, directory);
+	}
+
+	/**
+	 * Returns the size budget of the local GridFS file cache in bytes
+	 */
+	public long getFileCacheMaxSize() {
+		return Long.parseLong(getProperty(FILE_CACHE_MAX_SIZE));
+	}
+
+	public void setFileCacheMaxSize(long maxSize) {
+		setProperty(FILE_CACHE_MAX_SIZE, Long.toString(maxSize));
+	}
+
+	/**
+	 * Returns whether uploaded files are stored once per distinct content and
+	 * shared by all File submodel elements with the same content
+	 */
+	public boolean isFileDeduplicationEnabled() {
+		return "true".equalsIgnoreCase(getProperty(FILE_DEDUPLICATION));
+	}
+
+	public void setFileDeduplicationEnabled(boolean enabled) {
+		setProperty(FILE_DEDUPLICATION, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns the GridFS chunk size in bytes for uploaded files or null, if the
+	 * driver default is used
+	 */
+	public Integer getFileChunkSize() {
+		return getIntegerSetting(FILE_CHUNK_SIZE);
+	}
+
+	public void setFileChunkSize(int chunkSizeBytes) {
+		setProperty(FILE_CHUNK_SIZE, Integer.toString(chunkSizeBytes));
+	}
+
+	/**
+	 * Returns whether the AAS server migrates legacy GridFS file names on startup,
+	 * unless they have been migrated already
+	 */
+	public boolean isFileNameMigrationEnabled() {
+		return "true".equalsIgnoreCase(getProperty(FILE_NAME_MIGRATION));
+	}
+
+	public void setFileNameMigrationEnabled(boolean enabled) {
+		setProperty(FILE_NAME_MIGRATION, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns the number of documents fetched per round trip when iterating
+	 * query results. It also bounds the number of objects restored at once by
+	 * the streaming retrieval of the storage API.
+	 */
+	public int getCursorBatchSize() {
+		return Integer.parseInt(getProperty(CURSOR_BATCH_SIZE));
+	}
+
+	public void setCursorBatchSize(int batchSize) {
+		setProperty(CURSOR_BATCH_SIZE, Integer.toString(batchSize));
+	}
+
+	/**
+	 * Returns the maximum number of shells returned by the unpaged shell list. 0
+	 * disables the limit.
+	 */
+	public int getAASListLimit() {
+		return Integer.parseInt(getProperty(AAS_LIST_LIMIT));
+	}
+
+	public void setAASListLimit(int limit) {
+		setProperty(AAS_LIST_LIMIT, Integer.toString(limit));
+	}
+
+	/**
+	 * Returns whether shells and submodels are stored and loaded via the
+	 * hand-written BSON codecs of the map model instead of Spring's reflective
+	 * mapping. Both produce the same documents.
+	 */
+	public boolean isBsonCodecEnabled() {
+		return "true".equalsIgnoreCase(getProperty(BSON_CODECS));
+	}
+
+	public void setBsonCodecEnabled(boolean enabled) {
+		setProperty(BSON_CODECS, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns whether the values of leaf submodel elements are stored apart from
+	 * the submodel documents in the submodel value collection, so that value
+	 * writes only touch small documents
+	 */
+	public boolean isValueSplitEnabled() {
+		return "true".equalsIgnoreCase(getProperty(VALUE_SPLIT));
+	}
+
+	public void setValueSplitEnabled(boolean enabled) {
+		setProperty(VALUE_SPLIT, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns the collection storing the submodel element values, if the value
+	 * split is enabled
+	 */
+	public String getSubmodelValueCollection() {
+		return getProperty(SUBMODEL_VALUE_COLLECTION);
+	}
+
+	public void setSubmodelValueCollection(String collection) {
+		setProperty(SUBMODEL_VALUE_COLLECTION, collection);
+	}
+
+	/**
+	 * Returns the window in milliseconds, within which submodel element updates
+	 * are coalesced and written in one batch, or null, if updates are written
+	 * immediately
+	 */
+	public Long getWriteBehindWindow() {
+		return getLongSetting(WRITE_BEHIND_WINDOW);
+	}
+
+	public void setWriteBehindWindow(long windowMillis) {
+		setProperty(WRITE_BEHIND_WINDOW, Long.toString(windowMillis));
+	}
+
+	/**
+	 * Returns the maximum number of buffered updates. Further updates write the
+	 * buffer first, which throttles the updating clients.
+	 */
+	public int getWriteBehindMaxPending() {
+		return Integer.parseInt(getProperty(WRITE_BEHIND_MAX_PENDING));
+	}
+
+	public void setWriteBehindMaxPending(int maxPending) {
+		setProperty(WRITE_BEHIND_MAX_PENDING, Integer.toString(maxPending));
+	}
+
+	/**
+	 * Returns how often a conditional element update is repeated after it
+	 * conflicted with a concurrent write of the same submodel
+	 */
+	public int getVersionConflictRetries() {
+		return Integer.parseInt(getProperty(VERSION_CONFLICT_RETRIES));
+	}
+
+	public void setVersionConflictRetries(int retries) {
+		setProperty(VERSION_CONFLICT_RETRIES, Integer.toString(retries));
+	}
+
+	/**
+	 * Returns whether changes of the AAS, submodel and file collections are
+	 * watched via a change stream, so that local caches are invalidated by writes
+	 * of other server instances. Requires a replica set.
+	 */
+	public boolean isChangeStreamEnabled() {
+		return "true".equalsIgnoreCase(getProperty(CHANGE_STREAMS));
+	}
+
+	public void setChangeStreamEnabled(boolean enabled) {
+		setProperty(CHANGE_STREAMS, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns the collection storing the resume tokens of the change streams
+	 */
+	public String getChangeStreamTokenCollection() {
+		return getProperty(CHANGE_STREAM_TOKEN_COLLECTION);
+	}
+
+	public void setChangeStreamTokenCollection(String collection) {
+		setProperty(CHANGE_STREAM_TOKEN_COLLECTION, collection);
+	}
+
+	/**
+	 * Returns the id under which the resume token of this server instance is
+	 * stored or null, if the host name is used
+	 */
+	public String getChangeStreamId() {
+		return getStringSetting(CHANGE_STREAM_ID);
+	}
+
+	public void setChangeStreamId(String id) {
+		setProperty(CHANGE_STREAM_ID, id);
+	}
+
+	/**
+	 * Returns the time-series collection recording the property values, if the
+	 * property history is enabled. The downsampled values are stored in
+	 * <i>&lt;collection&gt;.buckets</i>.
+	 */
+	public String getHistoryCollection() {
+		return getProperty(HISTORY_COLLECTION);
+	}
+
+	public void setHistoryCollection(String collection) {
+		setProperty(HISTORY_COLLECTION, collection);
+	}
+
+	/**
+	 * Returns whether the identification ids of the AAS and submodel collections
+	 * are kept in an in-memory Bloom filter, so that lookups of ids that
+	 * definitely do not exist are answered without querying the database. Only
+	 * reads are short-circuited. Since writes of other server instances are only
+	 * noticed via change streams, the filter is only used if change streams are
+	 * enabled, too.
+	 */
+	public boolean isKeyFilterEnabled() {
+		return "true".equalsIgnoreCase(getProperty(KEY_FILTER));
+	}
+
+	public void setKeyFilterEnabled(boolean enabled) {
+		setProperty(KEY_FILTER, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Returns the number of ids per collection, for which the key filter is sized
+	 */
+	public int getKeyFilterExpectedKeys() {
+		return Integer.parseInt(getProperty(KEY_FILTER_EXPECTED_KEYS));
+	}
+
+	public void setKeyFilterExpectedKeys(int expectedKeys) {
+		setProperty(KEY_FILTER_EXPECTED_KEYS, Integer.toString(expectedKeys));
+	}
+
+	/**
+	 * Returns the share of absent ids, which the key filter is expected to pass
+	 * to the database at the expected number of ids
+	 */
+	public double getKeyFilterFalsePositiveRate() {
+		return Double.parseDouble(getProperty(KEY_FILTER_FALSE_POSITIVE_RATE));
+	}
+
+	public void setKeyFilterFalsePositiveRate(double rate) {
+		setProperty(KEY_FILTER_FALSE_POSITIVE_RATE, Double.toString(rate));
+	}
+
+	/**
+	 * Returns the minimum number of connections in the client's pool or null, if
+	 * it is not configured
+	 */
+	public Integer getConnectionPoolMinSize() {
+		return getIntegerSetting(CONNECTION_POOL_MIN_SIZE);
+	}
+
+	public void setConnectionPoolMinSize(int size) {
+		setProperty(CONNECTION_POOL_MIN_SIZE, Integer.toString(size));
+	}
+
+	/**
+	 * Returns the maximum number of connections in the client's pool or null, if
+	 * it is not configured
+	 */
+	public Integer getConnectionPoolMaxSize() {
+		return getIntegerSetting(CONNECTION_POOL_MAX_SIZE);
+	}
+
+	public void setConnectionPoolMaxSize(int size) {
+		setProperty(CONNECTION_POOL_MAX_SIZE, Integer.toString(size));
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds a thread waits for a pooled
+	 * connection or null, if it is not configured
+	 */
+	public Long getConnectionPoolMaxWaitTime() {
+		return getLongSetting(CONNECTION_POOL_MAX_WAIT_TIME);
+	}
+
+	public void setConnectionPoolMaxWaitTime(long waitTimeMillis) {
+		setProperty(CONNECTION_POOL_MAX_WAIT_TIME, Long.toString(waitTimeMillis));
+	}
+
+	/**
+	 * Returns the socket read timeout in milliseconds or null, if it is not
+	 * configured
+	 */
+	public Long getSocketTimeout() {
+		return getLongSetting(SOCKET_TIMEOUT);
+	}
+
+	public void setSocketTimeout(long timeoutMillis) {
+		setProperty(SOCKET_TIMEOUT, Long.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns the time in milliseconds the client waits for a suitable server or
+	 * null, if it is not configured
+	 */
+	public Long getServerSelectionTimeout() {
+		return getLongSetting(SERVER_SELECTION_TIMEOUT);
+	}
+
+	public void setServerSelectionTimeout(long timeoutMillis) {
+		setProperty(SERVER_SELECTION_TIMEOUT, Long.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns the name of the read preference (e.g. primary or secondaryPreferred)
+	 * or null, if it is not configured
+	 */
+	public String getReadPreference() {
+		return getStringSetting(READ_PREFERENCE);
+	}
+
+	public void setReadPreference(String readPreference) {
+		setProperty(READ_PREFERENCE, readPreference);
+	}
+
+	/**
+	 * Returns the read concern level (e.g. local or majority) or null, if it is not
+	 * configured
+	 */
+	public String getReadConcern() {
+		return getStringSetting(READ_CONCERN);
+	}
+
+	public void setReadConcern(String readConcern) {
+		setProperty(READ_CONCERN, readConcern);
+	}
+
+	/**
+	 * Returns the write concern (e.g. majority, w1 or a number of acknowledging
+	 * nodes) or null, if it is not configured
+	 */
+	public String getWriteConcern() {
+		return getStringSetting(WRITE_CONCERN);
+	}
+
+	public void setWriteConcern(String writeConcern) {
+		setProperty(WRITE_CONCERN, writeConcern);
+	}
+
+	/**
+	 * Returns the rules assigning write concerns to submodels by their idShort or
+	 * semanticId (e.g. <i>idShort:OperationalData.*=w1;semanticId:.*nameplate.*=majority</i>)
+	 * or null, if every submodel is written with the write concern of the client
+	 */
+	public String getWriteConcernRules() {
+		return getStringSetting(WRITE_CONCERN_RULES);
+	}
+
+	public void setWriteConcernRules(String writeConcernRules) {
+		setProperty(WRITE_CONCERN_RULES, writeConcernRules);
+	}
+
+	private String getStringSetting(String key) {
+		String value = getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return null;
+		}
+		return value.trim();
+	}
+
+	private Integer getIntegerSetting(String key) {
+		String value = getStringSetting(key);
+		return value == null ? null : Integer.valueOf(value);
+	}
+
+	private Long getLongSetting(String key) {
+		String value = getStringSetting(key);
+		return value == null ? null : Long.valueOf(value);
+	}
+
+	private static List<String> splitIndexList(String indexList) {
+		if (indexList == null) {
+			return Collections.emptyList();
+		}
+		return Arrays.stream(indexList.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+	}
+
 	private static List<String> getPropertiesExcludedFromLogging() {
 		return Collections.singletonList(CONNECTIONURL);
 	}
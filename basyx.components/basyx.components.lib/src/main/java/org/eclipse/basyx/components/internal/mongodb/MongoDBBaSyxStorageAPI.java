@@ -31,27 +31,61 @@ import static org.springframework.data.mongodb.core.query.Query.query;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.HasSemantics;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
-import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoAction;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.WriteConcern;
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 
 /**
  * Provides BaSyxStorageAPI implementation for MongoDB
@@ -61,142 +95,1144 @@ import com.mongodb.client.result.DeleteResult;
  * @param <T>
  */
 public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
+	/**
+	 * Document field holding the version of an object, which is replaced by a new
+	 * unique token with every write. It is removed from retrieved objects.
+	 */
+	public static final String VERSION_KEY = "_version";
+
 	private final String INDEX_KEY = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+	private static final String GRIDFS_FILES_SUFFIX = ".files";
+	private static final String GRIDFS_FILENAME = "filename";
+	private static final String GRIDFS_UPLOAD_DATE = "uploadDate";
+
+	// Objects returned by rawRetrieveAll while they are restored via retrieveAll()
+	private final ThreadLocal<Collection<T>> loadedObjects = new ThreadLocal<>();
 
 	protected BaSyxMongoDBConfiguration config;
 	protected MongoClient client;
 	protected MongoOperations mongoOps;
 
+	private volatile GridFSBucket fileBucket;
+	private volatile MongoDBContentStore contentStore;
+
+	private final MongoDBWriteConcernRules writeConcernRules;
+	// Registry of the hand-written codecs of the map model, null if Spring's mapping is used
+	private final CodecRegistry codecRegistry;
+	// Store of the element values split off the submodel documents, null if they are embedded
+	private final MongoDBSubmodelValueStore valueStore;
+	// State of the collection shared by the storage APIs of the client, cleared by deleteCollection()
+	private final MongoDBCollectionState state;
+	// Filter of the stored identification ids, null if every lookup queries the database
+	private final MongoDBKeyFilter keyFilter;
+
 	/**
 	 * @deprecated Please use the other constructor with MongoClient client. 
 	 *             Using this constructor may lead to inefficient resource utilization.
 	 */
 	@Deprecated
 	public MongoDBBaSyxStorageAPI(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config) {
-		this(collectionName, type, config, MongoClients.create(config.getConnectionUrl()));
+		this(collectionName, type, config, MongoDBClientRegistry.get(config));
 	}
 
 	public MongoDBBaSyxStorageAPI(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config, MongoClient client) {
 		super(collectionName, type);
 		this.config = config;
 		this.client = client;
-		this.mongoOps = new MongoTemplate(client, config.getDatabase());
+		MongoTemplate template = new MongoTemplate(client, config.getDatabase());
+		this.mongoOps = template;
+		this.state = MongoDBCollectionState.get(client, config.getDatabase(), collectionName);
+		// The durability classes are defined for submodels only
+		this.writeConcernRules = MongoDBWriteConcernRules.parse(collectionName.equals(config.getSubmodelCollection()) ? config.getWriteConcernRules() : null);
+		if (!writeConcernRules.isEmpty()) {
+			template.setWriteConcernResolver(this::resolveWriteConcern);
+		}
+		this.codecRegistry = config.isBsonCodecEnabled() && Map.class.isAssignableFrom(type) ? MongoDBMapCodecProvider.createCodecRegistry() : null;
+		boolean isValueSplit = config.isValueSplitEnabled() && collectionName.equals(config.getSubmodelCollection()) && Map.class.isAssignableFrom(type);
+		this.valueStore = isValueSplit ? new MongoDBSubmodelValueStore(client.getDatabase(config.getDatabase()), config.getSubmodelValueCollection()) : null;
+		boolean isKeyFiltered = config.isKeyFilterEnabled() && config.isChangeStreamEnabled() && (collectionName.equals(config.getAASCollection()) || collectionName.equals(config.getSubmodelCollection()));
+		this.keyFilter = isKeyFiltered ? state.getKeyFilter(config, collectionName) : null;
 	}
 
-	@Override
-	public T createOrUpdate(T obj) {
-		String key = getKey(obj);
-		if (alreadyExists(key)) {
-			return update(obj, key);
+	/**
+	 * Returns the key filter of the collection, which is loaded on first use, or
+	 * null if it is disabled
+	 */
+	private MongoDBKeyFilter getKeyFilter() {
+		if (keyFilter != null && state.markKeyFilterLoaded()) {
+			try {
+				keyFilter.rebuild(getCollection().find(Filters.exists(INDEX_KEY)).projection(Projections.include(INDEX_KEY)).batchSize(config.getCursorBatchSize())
+						.map(document -> document.get(Identifiable.IDENTIFICATION, Document.class).getString(Identifier.ID)));
+			} catch (MongoException e) {
+				// Every id might exist until the filter is loaded, so it is retried with the next lookup
+				state.markKeyFilterUnloaded();
+				logger.warn("Could not load the key filter of collection {}: {}", getCollectionName(), e.getMessage());
+			}
 		}
+		return keyFilter;
+	}
 
-		T created = mongoOps.insert(obj, getCollectionName());
-		return handleMongoDbIdAttribute(created);
+	/**
+	 * Returns whether an object with the given key might exist. If false, it
+	 * definitely does not exist, as far as the writes have been reported to the
+	 * key filter. Writes of other server instances are reported with the delay of
+	 * the change stream, so the filter only short-circuits reads. Updates and
+	 * deletions always query the database.
+	 * 
+	 * @see BaSyxMongoDBConfiguration#isKeyFilterEnabled()
+	 */
+	public boolean mightExist(String key) {
+		MongoDBKeyFilter filter = getKeyFilter();
+		return filter == null || filter.mightContain(key);
 	}
 
-	private boolean alreadyExists(String key) {
-		Query hasId = query(where(INDEX_KEY).is(key));
-		return mongoOps.exists(hasId, getCollectionName());
+	/**
+	 * Inserts or replaces the object within a single upsert, so that concurrent
+	 * creators of the same key do not race into duplicate documents. The stored
+	 * document is not read back, so the given object is returned. It does not
+	 * carry the new version, see {@link #createOrUpdateVersioned(Object)}.
+	 */
+	@Override
+	public T createOrUpdate(T obj) {
+		return createOrUpdateVersioned(obj).getValue();
 	}
 
+	/**
+	 * Inserts or replaces the object like {@link #createOrUpdate(Object)}
+	 * 
+	 * @param obj
+	 * @return the given object and its new version, e.g. to be used as expected
+	 *         version of a following conditional write
+	 */
+	public MongoDBVersioned<T> createOrUpdateVersioned(T obj) {
+		String version = replace(obj, getKey(obj), true);
+		return new MongoDBVersioned<>(handleMongoDbIdAttribute(obj), version);
+	}
+
+	/**
+	 * Replaces the object with the given key or creates it, if it does not exist.
+	 * The given object is returned without the new version, see
+	 * {@link #updateVersioned(Object, String)}.
+	 */
 	@Override
 	public T update(T obj, String key) {
-		T replaced = findAndReplaceIfExists(obj, key);
-		if (replaced == null) {
+		return updateVersioned(obj, key).getValue();
+	}
+
+	/**
+	 * Replaces the object like {@link #update(Object, String)}
+	 * 
+	 * @param obj
+	 * @param key
+	 * @return the given object and its new version
+	 */
+	public MongoDBVersioned<T> updateVersioned(T obj, String key) {
+		String version = replace(obj, key, false);
+		if (version == null) {
 			logger.warn("Could not execute update for key {} as it does not exist in the database; Creating new entry...", key);
-			return createOrUpdate(obj);
+			return createOrUpdateVersioned(obj);
 		}
-		replaced = handleMongoDbIdAttribute(replaced);
-		return replaced;
+		return new MongoDBVersioned<>(handleMongoDbIdAttribute(obj), version);
 	}
 
-	private T findAndReplaceIfExists(T obj, String key) {
-		Query hasId = query(where(INDEX_KEY).is(key));
-		FindAndReplaceOptions replacementOptions = setupReplacemantOptionsToReturnNew();
-		T replaced = mongoOps.findAndReplace(hasId, obj, replacementOptions.returnNew(), getCollectionName());
-		return replaced;
+	/**
+	 * Replaces the document with the given key by the given object in one server
+	 * call. The replaced document is not read back. If value splitting is
+	 * enabled, the split values are written in a second call, so the write is
+	 * neither a single round trip nor atomic then, see
+	 * {@link #writeValues(String, String, Map)}.
+	 * 
+	 * @return the new version or null, if no document has been replaced or
+	 *         inserted
+	 */
+	private String replace(T obj, String key, boolean upsert) {
+		ensureIndexes();
+		if (upsert && getKeyFilter() != null) {
+			// Added before the write, so that the object is never filtered out once it exists
+			keyFilter.add(key);
+		}
+		flushPendingUpdates(key);
+		Bson hasId = Filters.eq(INDEX_KEY, key);
+		Document document = toDocument(obj);
+		Map<String, Object> values = splitValues(document);
+		String version = newVersion();
+		document.put(VERSION_KEY, version);
+		ReplaceOptions replaceOptions = new ReplaceOptions().upsert(upsert);
+		MongoCollection<Document> collection = getCollection(updateWriteConcern(key, document));
+		boolean isWritten;
+		try {
+			UpdateResult result = collection.replaceOne(hasId, document, replaceOptions);
+			isWritten = !result.wasAcknowledged() || result.getMatchedCount() == 1L || result.getUpsertedId() != null;
+		} catch (MongoWriteException e) {
+			if (!upsert || e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+				throw e;
+			}
+			// A concurrent upsert inserted the same key, so this one now replaces it
+			isWritten = isMatched(collection.replaceOne(hasId, document, replaceOptions));
+		}
+		if (isWritten) {
+			writeValues(key, "", values);
+			if (!upsert && keyFilter != null && !keyFilter.mightContain(key)) {
+				// Written by another instance, but not reported by the change stream yet
+				keyFilter.add(key);
+			}
+		}
+		return isWritten ? version : null;
+	}
+
+	/**
+	 * Unacknowledged writes do not report their matches, so they are assumed to
+	 * have matched.
+	 */
+	private static boolean isMatched(UpdateResult result) {
+		return !result.wasAcknowledged() || result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Replaces the object with the given key, if it still has the expected
+	 * version. Unacknowledged writes are assumed to succeed.
+	 * 
+	 * @param obj
+	 * @param key
+	 * @param expectedVersion
+	 *            the version read before, null for objects without version
+	 * @return the new version or null, if the object has been changed meanwhile
+	 * @throws ResourceNotFoundException
+	 *             if no object with the given key exists
+	 */
+	public String replaceIfVersion(T obj, String key, String expectedVersion) {
+		ensureIndexes();
+		flushPendingUpdates(key);
+		Document document = toDocument(obj);
+		Map<String, Object> values = splitValues(document);
+		String version = newVersion();
+		document.put(VERSION_KEY, version);
+		UpdateResult result = getCollection(updateWriteConcern(key, document)).replaceOne(Filters.and(Filters.eq(INDEX_KEY, key), Filters.eq(VERSION_KEY, expectedVersion)), document);
+		String writtenVersion = getWrittenVersion(result, key, version);
+		if (writtenVersion != null) {
+			writeValues(key, "", values);
+		}
+		return writtenVersion;
+	}
+
+	/**
+	 * Sets a single (dotted) document field of the object with the given key, if
+	 * the object still has the expected version
+	 * 
+	 * @return the new version or null, if the object has been changed meanwhile
+	 * @throws ResourceNotFoundException
+	 *             if no object with the given key exists
+	 * @see #replaceIfVersion(Object, String, String)
+	 */
+	public String setFieldIfVersion(String key, String fieldPath, Object value, String expectedVersion) {
+		String idShortPath = toIdShortPath(fieldPath);
+		Map<String, Object> values = new LinkedHashMap<>();
+		String version = updateIfVersion(key, new Update().set(fieldPath, splitValues(idShortPath, value, values)), expectedVersion);
+		if (version != null) {
+			writeValues(key, idShortPath, values);
+		}
+		return version;
+	}
+
+	/**
+	 * Removes a single (dotted) document field of the object with the given key,
+	 * if the object still has the expected version
+	 * 
+	 * @return the new version or null, if the object has been changed meanwhile
+	 * @throws ResourceNotFoundException
+	 *             if no object with the given key exists
+	 * @see #replaceIfVersion(Object, String, String)
+	 */
+	public String unsetFieldIfVersion(String key, String fieldPath, String expectedVersion) {
+		String version = updateIfVersion(key, new Update().unset(fieldPath), expectedVersion);
+		if (version != null) {
+			writeValues(key, toIdShortPath(fieldPath), Collections.emptyMap());
+		}
+		return version;
+	}
+
+	private String updateIfVersion(String key, Update update, String expectedVersion) {
+		flushPendingUpdates(key);
+		String version = newVersion();
+		Query hasVersion = query(where(INDEX_KEY).is(key).and(VERSION_KEY).is(expectedVersion));
+		UpdateResult result = mongoOps.updateFirst(hasVersion, update.set(VERSION_KEY, version), getCollectionName());
+		return getWrittenVersion(result, key, version);
+	}
+
+	private String getWrittenVersion(UpdateResult result, String key, String version) {
+		if (isMatched(result)) {
+			return version;
+		}
+		if (!mongoOps.exists(query(where(INDEX_KEY).is(key)), getCollectionName())) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		return null;
+	}
+
+	/**
+	 * Runs a conditional write until it does not conflict with a concurrent
+	 * write. The attempt is expected to read the object with its version, modify
+	 * it and write it via one of the conditional writes, e.g.
+	 * {@link #setFieldIfVersion(String, String, Object, String)}. It is repeated
+	 * at most the configured number of times.
+	 * 
+	 * @param key
+	 * @param attempt
+	 *            returns the result of the write or null on a version conflict
+	 * @return the result of the first successful attempt
+	 * @throws MongoDBVersionConflictException
+	 *             if each attempt conflicted
+	 */
+	public <R> R retryOnVersionConflict(String key, Supplier<R> attempt) {
+		int retries = config.getVersionConflictRetries();
+		for (int i = 0; i <= retries; i++) {
+			R result = attempt.get();
+			if (result != null) {
+				return result;
+			}
+			logger.debug("Version conflict writing key {}, attempt {} of {}", key, i + 1, retries + 1);
+		}
+		throw new MongoDBVersionConflictException(key);
+	}
+
+	/**
+	 * Returns a new version token. Object ids are unique across processes, so
+	 * that versions are never reused.
+	 */
+	static String newVersion() {
+		return new ObjectId().toHexString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Document toDocument(T obj) {
+		if (codecRegistry != null) {
+			// Shallow copy, whose values are encoded by the map codecs when written
+			return new Document((Map<String, Object>) obj);
+		}
+		Document document = new Document();
+		mongoOps.getConverter().write(obj, document);
+		return document;
+	}
+
+	/**
+	 * Returns whether the values of the leaf submodel elements are stored apart
+	 * from the submodel documents, see {@link MongoDBSubmodelValueStore}
+	 */
+	public boolean isValueSplitEnabled() {
+		return valueStore != null;
+	}
+
+	/**
+	 * Writes only the value of a leaf submodel element without rewriting the
+	 * submodel document. The version of the submodel is changed before the value
+	 * is written, so that a concurrent {@link #replaceIfVersion} based on the
+	 * previous version fails instead of overwriting the value.
+	 * 
+	 * @param key
+	 * @param idShortPath
+	 *            the idShort path of the element, e.g. <i>a/b</i>
+	 * @param value
+	 * @return false, if the values are not split, see
+	 *         {@link #isValueSplitEnabled()}
+	 * @throws ResourceNotFoundException
+	 *             if no object with the given key exists
+	 */
+	public boolean setSplitValue(String key, String idShortPath, Object value) {
+		if (valueStore == null) {
+			return false;
+		}
+		UpdateResult result = mongoOps.updateFirst(query(where(INDEX_KEY).is(key)), new Update().set(VERSION_KEY, newVersion()), getCollectionName());
+		if (!isMatched(result)) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		valueStore.setValue(key, idShortPath, value, getWriteConcern(key));
+		return true;
+	}
+
+	/**
+	 * Removes the values from the document to be written, if the values are split
+	 * 
+	 * @return the removed values or null, if the values are embedded
+	 */
+	private Map<String, Object> splitValues(Document document) {
+		return valueStore == null ? null : MongoDBSubmodelValueStore.splitDocument(document);
+	}
+
+	/**
+	 * Removes the values from an element to be written to the given idShort path
+	 * 
+	 * @param idShortPath
+	 *            the idShort path of the written field or null, if the values are
+	 *            embedded or the field is no element
+	 * @return the element without the values
+	 */
+	private Object splitValues(String idShortPath, Object element, Map<String, Object> values) {
+		return idShortPath == null ? element : MongoDBSubmodelValueStore.split(idShortPath, element, values);
+	}
+
+	/**
+	 * Replaces the split values at and below the idShort path, if the values are
+	 * split. Called after the submodel document has been written, as the values
+	 * of elements missing in the submodel document are ignored when reading.
+	 * 
+	 * Both writes are not atomic. If the value write fails, the submodel document
+	 * already has its new version and structure, and the affected elements keep
+	 * their previous values, or none if they are new, until they are written
+	 * again. Of two concurrent
+	 * writers, the one writing the submodel document last may not be the one
+	 * writing the values last, unless the writers use {@link #replaceIfVersion}.
+	 */
+	private void writeValues(String key, String idShortPath, Map<String, Object> values) {
+		if (valueStore != null && idShortPath != null && values != null) {
+			valueStore.replaceValues(key, idShortPath, values, getWriteConcern(key));
+		}
+	}
+
+	/**
+	 * @return the idShort path of the element addressed by the field path or null,
+	 *         if the values are embedded or the field is no element
+	 */
+	private String toIdShortPath(String fieldPath) {
+		return valueStore == null ? null : MongoDBSubmodelValueStore.toIdShortPath(fieldPath);
+	}
+
+	/**
+	 * Merges the split values into the (partially) loaded objects, if the values
+	 * are split. Only the values of the loaded elements are queried, i.e. no
+	 * values are loaded for reads of the submodel's own attributes.
+	 * 
+	 * @param objects
+	 * @param fieldPaths
+	 *            the loaded document fields or none, if the whole objects are
+	 *            loaded
+	 */
+	@SuppressWarnings("unchecked")
+	private void mergeValues(Collection<T> objects, Collection<String> fieldPaths) {
+		if (valueStore == null || objects.isEmpty()) {
+			return;
+		}
+		List<String> idShortPaths = null;
+		if (!fieldPaths.isEmpty()) {
+			idShortPaths = fieldPaths.stream().map(MongoDBSubmodelValueStore::toIdShortPath).filter(path -> path != null).collect(Collectors.toList());
+			if (idShortPaths.isEmpty()) {
+				return;
+			}
+		}
+		Map<String, T> objectsByKey = new LinkedHashMap<>();
+		for (T object : objects) {
+			String key = getStoredKey((Map<String, Object>) object);
+			if (key != null) {
+				objectsByKey.put(key, object);
+			}
+		}
+		valueStore.findValues(objectsByKey.keySet(), idShortPaths).forEach((key, values) -> MongoDBSubmodelValueStore.mergeValues((Map<String, Object>) objectsByKey.get(key), values));
+	}
+
+	/**
+	 * Returns the identification id of a raw object, if it has been loaded
+	 */
+	@SuppressWarnings("unchecked")
+	private static String getStoredKey(Map<String, Object> object) {
+		Object identification = object.get(Identifiable.IDENTIFICATION);
+		Object id = identification instanceof Map ? ((Map<String, Object>) identification).get(Identifier.ID) : null;
+		return id instanceof String ? (String) id : null;
+	}
+
+	private MongoCollection<Document> getCollection() {
+		MongoCollection<Document> collection = mongoOps.getCollection(getCollectionName());
+		return codecRegistry == null ? collection : collection.withCodecRegistry(codecRegistry);
+	}
+
+	/**
+	 * Finds the first object matching the query, using the map codecs if
+	 * configured
+	 */
+	private T findOne(Query query) {
+		if (codecRegistry == null) {
+			return mongoOps.findOne(query, TYPE, getCollectionName());
+		}
+		return find(query).limit(1).first();
+	}
+
+	/**
+	 * Translates the query to a find on the raw collection, whose documents are
+	 * decoded by the map codecs
+	 */
+	private FindIterable<T> find(Query query) {
+		FindIterable<T> find = getCollection().withDocumentClass(TYPE).find(query.getQueryObject());
+		if (!query.getFieldsObject().isEmpty()) {
+			find.projection(query.getFieldsObject());
+		}
+		if (!query.getSortObject().isEmpty()) {
+			find.sort(query.getSortObject());
+		}
+		if (query.getSkip() > 0) {
+			find.skip((int) query.getSkip());
+		}
+		if (query.getLimit() > 0) {
+			find.limit(query.getLimit());
+		}
+		return find;
+	}
+
+	private MongoCollection<Document> getCollection(WriteConcern writeConcern) {
+		MongoCollection<Document> collection = getCollection();
+		return writeConcern == null ? collection : collection.withWriteConcern(writeConcern);
+	}
+
+	/**
+	 * Returns the write concern of the durability class of the object with the
+	 * given key, as configured by
+	 * {@link BaSyxMongoDBConfiguration#getWriteConcernRules()}. The class is
+	 * determined once per key and updated whenever the object is replaced.
+	 * 
+	 * @param key
+	 * @return the write concern or null, if the client's write concern applies
+	 */
+	public WriteConcern getWriteConcern(String key) {
+		if (writeConcernRules.isEmpty()) {
+			return null;
+		}
+		Map<String, Optional<WriteConcern>> writeConcerns = state.getWriteConcerns();
+		Optional<WriteConcern> writeConcern = writeConcerns.get(key);
+		if (writeConcern == null) {
+			Document document = getCollection().find(Filters.eq(INDEX_KEY, key)).projection(Projections.include(Referable.IDSHORT, HasSemantics.SEMANTICID)).first();
+			writeConcern = Optional.ofNullable(document == null ? null : writeConcernRules.resolve(document));
+			writeConcerns.put(key, writeConcern);
+		}
+		return writeConcern.orElse(null);
+	}
+
+	private WriteConcern updateWriteConcern(String key, Document document) {
+		if (writeConcernRules.isEmpty()) {
+			return null;
+		}
+		WriteConcern writeConcern = writeConcernRules.resolve(document);
+		state.getWriteConcerns().put(key, Optional.ofNullable(writeConcern));
+		return writeConcern;
+	}
+
+	/**
+	 * Applies the durability classes to the writes issued via the template, i.e.
+	 * to the field updates and deletions of single objects
+	 */
+	private WriteConcern resolveWriteConcern(MongoAction action) {
+		Document query = action.getQuery();
+		Object key = query == null ? null : query.get(INDEX_KEY);
+		WriteConcern writeConcern = key instanceof String ? getWriteConcern((String) key) : null;
+		return writeConcern != null ? writeConcern : action.getDefaultWriteConcern();
+	}
+
+	/**
+	 * Ensures the unique index on the identification id, the secondary indexes
+	 * configured for the managed collection, as well as the filename index of the
+	 * GridFS file collection. Each collection is indexed at most once per client,
+	 * unless it is dropped via {@link #deleteCollection()}.
+	 * 
+	 * The unique indexes are ensured even if index management is disabled, as
+	 * the upserts of {@link #createOrUpdate(Object)} rely on them to reject
+	 * concurrently inserted duplicates.
+	 */
+	public void ensureIndexes() {
+		boolean isIndexManagementEnabled = config.isIndexManagementEnabled();
+		if (state.markIndexed()) {
+			MongoCollection<Document> collection = getCollection();
+			// Partial, so that objects without identification may still be stored
+			IndexOptions uniqueIdentification = new IndexOptions().unique(true).partialFilterExpression(Filters.exists(INDEX_KEY));
+			createIndex(collection, Indexes.ascending(INDEX_KEY), uniqueIdentification);
+			if (isIndexManagementEnabled) {
+				for (String fieldPath : config.getIndexes(getCollectionName())) {
+					createIndex(collection, Indexes.ascending(fieldPath), new IndexOptions());
+				}
+			}
+		}
+		if (valueStore != null && getState(valueStore.getCollectionName()).markIndexed()) {
+			IndexOptions uniquePath = new IndexOptions().unique(true);
+			createIndex(mongoOps.getCollection(valueStore.getCollectionName()), Indexes.ascending(MongoDBSubmodelValueStore.SUBMODEL_ID, MongoDBSubmodelValueStore.ID_SHORT_PATH), uniquePath);
+		}
+		String filesCollectionName = config.getFileCollection() + GRIDFS_FILES_SUFFIX;
+		if (isIndexManagementEnabled && getState(filesCollectionName).markIndexed()) {
+			// Same index as created by the GridFS driver, but also present before the first upload
+			createIndex(mongoOps.getCollection(filesCollectionName), Indexes.ascending(GRIDFS_FILENAME, GRIDFS_UPLOAD_DATE), new IndexOptions());
+		}
+	}
+
+	private void createIndex(MongoCollection<Document> collection, Bson keys, IndexOptions options) {
+		try {
+			collection.createIndex(keys, options);
+		} catch (MongoException e) {
+			// e.g. existing duplicates or a conflicting index - the collection stays usable without it
+			logger.warn("Could not create index {} on collection {}: {}", keys, collection.getNamespace(), e.getMessage());
+		}
 	}
 
-	private FindAndReplaceOptions setupReplacemantOptionsToReturnNew() {
-		FindAndReplaceOptions replacementOptions = FindAndReplaceOptions.empty();
-		replacementOptions.returnNew();
-		return replacementOptions;
+	private MongoDBCollectionState getState(String collectionName) {
+		return MongoDBCollectionState.get(client, config.getDatabase(), collectionName);
 	}
 
 	@SuppressWarnings("unchecked")
 	public T handleMongoDbIdAttribute(T data) {
-		if (data instanceof Map)
+		if (data instanceof Map) {
 			((Map<String, Object>) data).remove("_id");
+			((Map<String, Object>) data).remove(VERSION_KEY);
+		}
 		return data;
 	}
 
 	@Override
 	public boolean delete(String key) {
+		flushPendingUpdates(key);
 		Query hasId = query(where(INDEX_KEY).is(key));
 		DeleteResult result = mongoOps.remove(hasId, getCollectionName());
-		return result.getDeletedCount() == 1L;
+		writeValues(key, "", Collections.emptyMap());
+		state.getWriteConcerns().remove(key);
+		// Unacknowledged deletions may not have happened, so the key is kept
+		if (keyFilter != null && result.wasAcknowledged() && result.getDeletedCount() == 1L) {
+			keyFilter.remove(key);
+		}
+		return !result.wasAcknowledged() || result.getDeletedCount() == 1L;
 	}
 
 	@Override
 	public void createCollectionIfNotExists(String collectionName) {
-		// MongoOperations implicitly creates Collections.
+		// MongoOperations implicitly creates Collections. Their indexes are ensured
+		// by the factory and on the first write, see ensureIndexes().
 	}
 
+	/**
+	 * Drops the managed collection and resets its state, which is shared with the
+	 * other storage APIs of the client, i.e. its pending updates, key filter,
+	 * write concerns and indexes
+	 */
 	@Override
 	public void deleteCollection() {
 		mongoOps.dropCollection(getCollectionName());
+		// Dropping removes the indexes, too; they are recreated with the next write
+		state.reset();
+		if (valueStore != null) {
+			valueStore.drop();
+			getState(valueStore.getCollectionName()).reset();
+		}
+	}
+
+	/**
+	 * Deletes all objects of the managed collection by dropping it on the server,
+	 * i.e. without loading or deleting the documents one by one. The indexes are
+	 * recreated with the next write.
+	 * 
+	 * @return the number of deleted objects
+	 */
+	public long deleteAll() {
+		long count = getCollection().countDocuments();
+		deleteCollection();
+		return count;
+	}
+
+	/**
+	 * Deletes all GridFS files of the configured file collection, including the
+	 * deduplicated contents and their cached copies. The files are dropped on the
+	 * server, so this must only be used once no submodel of the file collection
+	 * remains, e.g. after {@link #deleteAll()} of the submodel collection.
+	 * 
+	 * @return the number of deleted files and content links
+	 */
+	public long deleteAllFiles() {
+		String filesCollectionName = config.getFileCollection() + GRIDFS_FILES_SUFFIX;
+		long count = mongoOps.getCollection(filesCollectionName).countDocuments();
+		getFileBucket().drop();
+		getState(filesCollectionName).reset();
+
+		// Contents may remain from a time when deduplication was enabled
+		MongoDBContentStore store = contentStore != null ? contentStore : new MongoDBContentStore(client, config);
+		count += store.deleteAll();
+
+		MongoDBFileCache cache = MongoDBFileCache.get(config);
+		if (cache != null) {
+			cache.clear();
+		}
+		return count;
 	}
 
 	@Override
 	public T rawRetrieve(String key) {
+		if (!mightExist(key)) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		flushPendingUpdates(key);
 		Query hasId = query(where(INDEX_KEY).is(key));
-		var result = mongoOps.findOne(hasId, TYPE, getCollectionName());
+		var result = findOne(hasId);
 		if (result == null) {
 			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
 		}
 		result = handleMongoDbIdAttribute(result);
+		mergeValues(Collections.singletonList(result), Collections.emptyList());
 		return result;
 	}
 
+	/**
+	 * Retrieves the object with the given key, but only loads the given (dotted)
+	 * document fields from the database. The result is returned as stored, i.e.
+	 * nested maps are not converted to their facades.
+	 * 
+	 * @param key
+	 * @param fieldPaths
+	 *            document paths of the fields to load, e.g.
+	 *            <i>submodelElements.myProperty</i>
+	 * @return the partially loaded object
+	 */
+	public T rawRetrieveFields(String key, String... fieldPaths) {
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			buffer.flushOverlapping(key, fieldPaths);
+		}
+		Query hasId = query(where(INDEX_KEY).is(key));
+		for (String fieldPath : fieldPaths) {
+			hasId.fields().include(fieldPath);
+		}
+		T result = findOne(hasId);
+		if (result == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		result = handleMongoDbIdAttribute(result);
+		mergeValues(Collections.singletonList(result), Arrays.asList(fieldPaths));
+		return result;
+	}
+
+	/**
+	 * Retrieves the object with the given key restored as by
+	 * {@link #retrieve(String)} together with its current version
+	 * 
+	 * @param key
+	 * @return the object and its version
+	 */
+	public MongoDBVersioned<T> retrieveVersioned(String key) {
+		MongoDBVersioned<T> raw = rawRetrieveVersioned(key);
+		T restored = restore(Collections.singletonList(raw.getValue())).iterator().next();
+		return new MongoDBVersioned<>(restored, raw.getVersion());
+	}
+
+	/**
+	 * Retrieves the object with the given key as stored together with its current
+	 * version. Pending write-behind updates of the object are written before.
+	 * 
+	 * @param key
+	 * @param fieldPaths
+	 *            document paths of the fields to load or none to load the whole
+	 *            object, see {@link #rawRetrieveFields(String, String...)}
+	 * @return the (partially) loaded object and its version
+	 */
+	@SuppressWarnings("unchecked")
+	public MongoDBVersioned<T> rawRetrieveVersioned(String key, String... fieldPaths) {
+		flushPendingUpdates(key);
+		Query hasId = query(where(INDEX_KEY).is(key));
+		if (fieldPaths.length > 0) {
+			hasId.fields().include(VERSION_KEY);
+			for (String fieldPath : fieldPaths) {
+				hasId.fields().include(fieldPath);
+			}
+		}
+		T result = findOne(hasId);
+		if (result == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		Object version = result instanceof Map ? ((Map<String, Object>) result).get(VERSION_KEY) : null;
+		result = handleMongoDbIdAttribute(result);
+		mergeValues(Collections.singletonList(result), Arrays.asList(fieldPaths));
+		return new MongoDBVersioned<>(result, (String) version);
+	}
+
+	/**
+	 * Returns the current version of the object with the given key
+	 * 
+	 * @param key
+	 * @return the version or null, if the object has not been written since
+	 *         versioning was introduced
+	 */
+	public String getVersion(String key) {
+		flushPendingUpdates(key);
+		Document document = getCollection().find(Filters.eq(INDEX_KEY, key)).projection(Projections.include(VERSION_KEY)).first();
+		if (document == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		return document.getString(VERSION_KEY);
+	}
+
+	/**
+	 * Sets a single (dotted) document field of the object with the given key
+	 * without replacing the whole document.
+	 * 
+	 * @param key
+	 * @param fieldPath
+	 * @param value
+	 * @return true, if an object with the given key exists
+	 */
+	public boolean setField(String key, String fieldPath, Object value) {
+		flushPendingUpdates(key);
+		Query hasId = query(where(INDEX_KEY).is(key));
+		String idShortPath = toIdShortPath(fieldPath);
+		Map<String, Object> values = new LinkedHashMap<>();
+		UpdateResult result = mongoOps.updateFirst(hasId, new Update().set(fieldPath, splitValues(idShortPath, value, values)).set(VERSION_KEY, newVersion()), getCollectionName());
+		boolean isMatched = isMatched(result);
+		if (isMatched) {
+			writeValues(key, idShortPath, values);
+		}
+		return isMatched;
+	}
+
+	/**
+	 * Removes a single (dotted) document field of the object with the given key
+	 * without replacing the whole document.
+	 * 
+	 * @param key
+	 * @param fieldPath
+	 * @return true, if an object with the given key exists
+	 */
+	public boolean unsetField(String key, String fieldPath) {
+		flushPendingUpdates(key);
+		Query hasId = query(where(INDEX_KEY).is(key));
+		UpdateResult result = mongoOps.updateFirst(hasId, new Update().unset(fieldPath).set(VERSION_KEY, newVersion()), getCollectionName());
+		boolean isMatched = isMatched(result);
+		if (isMatched) {
+			writeValues(key, toIdShortPath(fieldPath), Collections.emptyMap());
+		}
+		return isMatched;
+	}
+
 	@Override
 	public java.io.File getFile(String idShortPath, String parentKey, Map<String, Object> objMap) {
-		try {
-			File fileSubmodelElement = File.createAsFacade(objMap);
-			GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, config);
-			String fileName = MongoDBFileHelper.constructFileName(parentKey, fileSubmodelElement, idShortPath);
-			java.io.File file = new java.io.File(fileName);
-			// check if file with this filename exist in MongoDB
-			// there might be older files constructed with old (=legacy) filenames, use this one instead
-			// the real file in file system still uses the new filename pattern!
-			if (!MongoDBFileHelper.fileExists(bucket, fileName)) {
-				fileName = MongoDBFileHelper.legacyFileName(parentKey, fileSubmodelElement, idShortPath);
-			}
-			try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-				bucket.downloadToStream(fileName, fileOutputStream);
-			}
+		MongoDBStoredFile storedFile = getStoredFile(idShortPath, parentKey, objMap);
+		// the real file in file system always uses the new filename pattern
+		java.io.File file = new java.io.File(MongoDBFileHelper.constructFileName(parentKey, File.createAsFacade(objMap), idShortPath));
+		try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+			storedFile.copyTo(fileOutputStream);
 			return file;
 		} catch (IOException e) {
 			throw new ResourceNotFoundException("The File Submodel Element does not contain a File");
 		}
 	}
 
+	/**
+	 * Returns the GridFS file of a File submodel element, which can be streamed
+	 * without creating a local copy. Files stored with the legacy name are found
+	 * until the file names have been migrated, as well as deduplicated files of
+	 * the {@link MongoDBContentStore}. If a
+	 * file cache directory is configured, the content is served from the
+	 * {@link MongoDBFileCache}.
+	 * 
+	 * @param idShortPath
+	 * @param parentKey
+	 *            the identification id of the submodel
+	 * @param objMap
+	 *            the File submodel element
+	 * @return the stored file
+	 * @throws ResourceNotFoundException
+	 *             if no file has been uploaded for the element
+	 */
+	public MongoDBStoredFile getStoredFile(String idShortPath, String parentKey, Map<String, Object> objMap) throws ResourceNotFoundException {
+		File fileSubmodelElement = File.createAsFacade(objMap);
+		MongoDBContentStore contentStore = getContentStore();
+		if (contentStore != null) {
+			// deduplicated content takes precedence over files stored before deduplication was enabled
+			GridFSFile content = contentStore.find(MongoDBFileHelper.constructFileName(parentKey, fileSubmodelElement, idShortPath));
+			if (content != null) {
+				return new MongoDBStoredFile(contentStore.getBucket(), content, fileSubmodelElement.getMimeType(), MongoDBFileCache.get(config));
+			}
+		}
+
+		GridFSBucket bucket = getFileBucket();
+		GridFSFile gridFile = MongoDBFileHelper.findFile(bucket, parentKey, fileSubmodelElement, idShortPath, !isFileNameMigrated());
+		if (gridFile == null) {
+			throw new ResourceNotFoundException("The File Submodel Element does not contain a File");
+		}
+		return new MongoDBStoredFile(bucket, gridFile, fileSubmodelElement.getMimeType(), MongoDBFileCache.get(config));
+	}
+
 	@Override
 	public String writeFile(String idShortPath, String parentKey, InputStream inputStream, ISubmodelElement element) {
-		return MongoDBFileHelper.updateFileInDB(client, config, parentKey, inputStream, element, idShortPath);
+		MongoDBContentStore contentStore = getContentStore();
+		if (contentStore != null) {
+			return MongoDBFileHelper.updateFileInDB(getFileBucket(), contentStore, parentKey, inputStream, element, idShortPath, !isFileNameMigrated());
+		}
+		return MongoDBFileHelper.updateFileInDB(getFileBucket(), parentKey, inputStream, element, idShortPath, !isFileNameMigrated());
 	}
 
 	@Override
 	public void deleteFile(Submodel submodel, String idShort) {
-		MongoDBFileHelper.deleteAllFilesFromGridFsIfIsFileSubmodelElement(client, config, submodel, idShort);
+		MongoDBContentStore contentStore = getContentStore();
+		if (contentStore != null) {
+			MongoDBFileHelper.deleteAllFilesFromGridFsIfIsFileSubmodelElement(getFileBucket(), contentStore, submodel, idShort, !isFileNameMigrated());
+		} else {
+			MongoDBFileHelper.deleteAllFilesFromGridFsIfIsFileSubmodelElement(getFileBucket(), submodel, idShort, !isFileNameMigrated());
+		}
+	}
+
+	/**
+	 * Returns the GridFS bucket of the configured file collection. It is created
+	 * once per storage API.
+	 */
+	protected GridFSBucket getFileBucket() {
+		GridFSBucket bucket = fileBucket;
+		if (bucket == null) {
+			bucket = MongoDBFileHelper.getGridFSBucket(client, config);
+			fileBucket = bucket;
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns whether the legacy file names have been migrated by the
+	 * {@link MongoDBFileNameMigration}, so that they do not have to be queried
+	 */
+	protected boolean isFileNameMigrated() {
+		return MongoDBFileNameMigration.isMigrated(client, config);
+	}
+
+	/**
+	 * Returns the buffer of field updates, which are written with a delay, if
+	 * write-behind is configured. Pending updates are written before the
+	 * affected objects are read or written by this storage API.
+	 * 
+	 * @return the buffer shared by the storage APIs of the client or null, if
+	 *         write-behind is disabled or the values are split
+	 */
+	public MongoDBWriteBehindBuffer getWriteBehindBuffer() {
+		// Split values are written to small documents already, see setSplitValue
+		if (valueStore != null) {
+			return null;
+		}
+		return state.getWriteBehindBuffer(config, mongoOps, getCollectionName(), this::getWriteConcern);
+	}
+
+	/**
+	 * Writes all pending updates of the collection and stops the flusher of the
+	 * write-behind buffer, e.g. before the server shuts down
+	 */
+	public void closeWriteBehindBuffer() {
+		state.closeWriteBehindBuffer();
+	}
+
+	private void flushPendingUpdates(String key) {
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			buffer.flush(key);
+		}
+	}
+
+	/**
+	 * Returns the content-addressed store used for file deduplication. It is
+	 * created once per storage API.
+	 * 
+	 * @return the store or null, if deduplication is disabled
+	 */
+	protected MongoDBContentStore getContentStore() {
+		if (!config.isFileDeduplicationEnabled()) {
+			return null;
+		}
+		MongoDBContentStore store = contentStore;
+		if (store == null) {
+			store = new MongoDBContentStore(client, config);
+			contentStore = store;
+		}
+		return store;
 	}
 
 	@Override
 	public Collection<T> rawRetrieveAll() {
-		Collection<T> data = mongoOps.findAll(TYPE, getCollectionName());
-		data = data.stream()
-				.map(this::handleMongoDbIdAttribute)
+		Collection<T> loaded = loadedObjects.get();
+		if (loaded != null) {
+			return loaded;
+		}
+		return rawRetrieveAll(new Query());
+	}
+
+	/**
+	 * Retrieves all objects matching the given query. In contrast to filtering the
+	 * result of {@link #retrieveAll()}, only the matching documents are loaded
+	 * from the database. The objects are restored the same way as by
+	 * {@link #retrieveAll()}.
+	 * 
+	 * @param query
+	 * @return the matching objects
+	 */
+	public Collection<T> retrieveAll(Query query) {
+		return restore(rawRetrieveAll(query));
+	}
+
+	/**
+	 * Restores the given raw objects the same way as {@link #retrieveAll()}
+	 */
+	private Collection<T> restore(Collection<T> rawObjects) {
+		loadedObjects.set(rawObjects);
+		try {
+			return retrieveAll();
+		} finally {
+			loadedObjects.remove();
+		}
+	}
+
+	/**
+	 * Passes all objects matching the given query to the consumer without loading
+	 * them at once. The documents are read from a cursor and restored in batches
+	 * of the configured cursor batch size, so that only one batch is held in
+	 * memory.
+	 * 
+	 * @param query
+	 * @param consumer
+	 */
+	public void forEach(Query query, Consumer<? super T> consumer) {
+		int batchSize = config.getCursorBatchSize();
+		List<T> batch = new ArrayList<>(batchSize);
+		forEachRaw(query, obj -> {
+			batch.add(obj);
+			if (batch.size() >= batchSize) {
+				restore(batch).forEach(consumer);
+				batch.clear();
+			}
+		});
+		if (!batch.isEmpty()) {
+			restore(batch).forEach(consumer);
+		}
+	}
+
+	/**
+	 * Retrieves a page of the objects matching the given query, ordered by their
+	 * identification id. Large offsets have to be skipped by the database, so
+	 * consecutive pages should be retrieved with
+	 * {@link #retrievePage(Query, String, int)}.
+	 * 
+	 * @param query
+	 * @param offset
+	 *            the number of objects to skip
+	 * @param limit
+	 *            the maximum number of objects of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<T> retrievePage(Query query, int offset, int limit) {
+		if (offset < 0) {
+			throw new MalformedRequestException("The offset must not be negative, but is " + offset);
+		}
+		return retrievePage(Query.of(query).skip(offset), limit);
+	}
+
+	/**
+	 * Retrieves a page of the objects matching the given query, ordered by their
+	 * identification id. The page starts after the object the cursor points to,
+	 * so that the documents before it are neither loaded nor skipped. The query
+	 * must not restrict the identification id by itself.
+	 * 
+	 * @param query
+	 * @param cursor
+	 *            the cursor of the previous page or null for the first page
+	 * @param limit
+	 *            the maximum number of objects of the page
+	 * @return the page including the cursor of the next page
+	 */
+	public MongoDBPage<T> retrievePage(Query query, String cursor, int limit) {
+		Query pageQuery = Query.of(query);
+		if (cursor != null) {
+			pageQuery.addCriteria(where(INDEX_KEY).gt(decodeCursor(cursor)));
+		}
+		return retrievePage(pageQuery, limit);
+	}
+
+	private MongoDBPage<T> retrievePage(Query pageQuery, int limit) {
+		if (limit <= 0) {
+			throw new MalformedRequestException("The limit must be positive, but is " + limit);
+		}
+		// One more object is loaded to find out whether there is a next page
+		pageQuery.with(Sort.by(INDEX_KEY)).limit(limit + 1);
+		List<T> rawObjects = new ArrayList<>(rawRetrieveAll(pageQuery));
+
+		String nextCursor = null;
+		if (rawObjects.size() > limit) {
+			rawObjects = rawObjects.subList(0, limit);
+			nextCursor = encodeCursor(getKey(rawObjects.get(limit - 1)));
+		}
+		return new MongoDBPage<>(new ArrayList<>(restore(rawObjects)), nextCursor);
+	}
+
+	private static String encodeCursor(String key) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeCursor(String cursor) {
+		try {
+			return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new MalformedRequestException("Invalid cursor '" + cursor + "'");
+		}
+	}
+
+	/**
+	 * Retrieves the objects with the given keys within a single query. Keys
+	 * without a stored object are skipped.
+	 * 
+	 * @param keys
+	 * @return the found objects in the order of the given keys
+	 */
+	public List<T> retrieveByIds(Collection<String> keys) {
+		List<String> candidates = keys.stream().filter(this::mightExist).collect(Collectors.toList());
+		if (candidates.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<String, T> retrieved = retrieveAll(query(where(INDEX_KEY).in(candidates))).stream()
+				.collect(Collectors.toMap(this::getKey, Function.identity(), (first, second) -> first));
+		return keys.stream()
+				.filter(retrieved::containsKey)
+				.map(retrieved::get)
 				.collect(Collectors.toList());
-		return data;
+	}
+
+	/**
+	 * Retrieves all objects matching the given query as stored, i.e. without
+	 * restoring them. The documents are read from a cursor with the configured
+	 * batch size and collected only once.
+	 * 
+	 * @param query
+	 * @return the matching objects
+	 */
+	public Collection<T> rawRetrieveAll(Query query) {
+		List<T> result = new ArrayList<>();
+		forEachRaw(query, result::add);
+		return result;
+	}
+
+	private void forEachRaw(Query query, Consumer<T> consumer) {
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			buffer.flush();
+		}
+		if (valueStore == null) {
+			forEachStored(query, consumer);
+			return;
+		}
+		// The values are merged per batch of the cursor, so that they are queried once per batch
+		Collection<String> fieldPaths = query.getFieldsObject().keySet();
+		int batchSize = config.getCursorBatchSize();
+		List<T> batch = new ArrayList<>(batchSize);
+		forEachStored(query, obj -> {
+			batch.add(obj);
+			if (batch.size() >= batchSize) {
+				mergeValues(batch, fieldPaths);
+				batch.forEach(consumer);
+				batch.clear();
+			}
+		});
+		mergeValues(batch, fieldPaths);
+		batch.forEach(consumer);
+	}
+
+	private void forEachStored(Query query, Consumer<T> consumer) {
+		if (codecRegistry != null) {
+			try (MongoCursor<T> cursor = find(query).batchSize(config.getCursorBatchSize()).cursor()) {
+				cursor.forEachRemaining(object -> consumer.accept(handleMongoDbIdAttribute(object)));
+			}
+			return;
+		}
+		Query cursorQuery = Query.of(query).cursorBatchSize(config.getCursorBatchSize());
+		try (Stream<T> stream = mongoOps.stream(cursorQuery, TYPE, getCollectionName())) {
+			stream.map(this::handleMongoDbIdAttribute).forEach(consumer);
+		}
 	}
 
 	@Override
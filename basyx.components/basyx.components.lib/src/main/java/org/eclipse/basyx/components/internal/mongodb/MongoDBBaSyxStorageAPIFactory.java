@@ -25,13 +25,9 @@
 
 package org.eclipse.basyx.components.internal.mongodb;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -41,8 +37,6 @@ import com.mongodb.client.MongoClients;
  *            Generic type of the objects to be managed by the produced API
  */
 public class MongoDBBaSyxStorageAPIFactory<T> {
-	private static Map<String, MongoClient> knownClients = new HashMap<>();
-
 	private final BaSyxMongoDBConfiguration config;
 	private final Class<T> type;
 	private final String collectionName;
@@ -87,9 +81,9 @@ public class MongoDBBaSyxStorageAPIFactory<T> {
 	}
 
 	/**
-	 * Creates a generic MongoDBBaSyxStorageAPI. This method has been designed to
-	 * ensure efficient resource utilization by reusing existing storage clients if
-	 * they already exist.
+	 * Creates a generic MongoDBBaSyxStorageAPI using the given client, which stays
+	 * owned by the caller. Unless disabled in the configuration, the indexes of
+	 * the collection are ensured on its first creation.
 	 * 
 	 * @param <T>
 	 * @param config
@@ -104,11 +98,7 @@ public class MongoDBBaSyxStorageAPIFactory<T> {
 	 * @return
 	 */
 	public static synchronized <T> MongoDBBaSyxStorageAPI<T> create(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config, MongoClient client) {
-		String connectionUrl = config.getConnectionUrl();
-		if (!knownClients.containsKey(connectionUrl)) {
-			knownClients.put(connectionUrl, client);
-		}
-		return new MongoDBBaSyxStorageAPI<T>(collectionName, type, config, knownClients.get(connectionUrl));
+		return createAndEnsureIndexes(collectionName, type, config, client);
 	}
 
 	/**
@@ -126,14 +116,13 @@ public class MongoDBBaSyxStorageAPIFactory<T> {
 	 * @return
 	 */
 	public static synchronized <T> MongoDBBaSyxStorageAPI<T> create(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config) {
-		String connectionUrl = config.getConnectionUrl();
-		return knownClients.containsKey(connectionUrl)
-				? create(collectionName, type, config, knownClients.get(connectionUrl))
-				: create(collectionName, type, config, createNewClient(config));
+		return createAndEnsureIndexes(collectionName, type, config, MongoDBClientRegistry.get(config));
 	}
 
-	private static MongoClient createNewClient(BaSyxMongoDBConfiguration config) {
-		return MongoClients.create(config.getConnectionUrl());
+	private static <T> MongoDBBaSyxStorageAPI<T> createAndEnsureIndexes(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config, MongoClient client) {
+		MongoDBBaSyxStorageAPI<T> storageApi = new MongoDBBaSyxStorageAPI<T>(collectionName, type, config, client);
+		storageApi.ensureIndexes();
+		return storageApi;
 	}
 
 	/**
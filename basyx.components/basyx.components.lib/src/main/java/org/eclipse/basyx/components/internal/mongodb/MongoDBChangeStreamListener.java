@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Watches the AAS, submodel and file collections with a change stream and
+ * publishes their changes to the {@link MongoDBInvalidationBus}, so that local
+ * caches of horizontally scaled server instances can be invalidated on writes
+ * of any instance. Change streams require a replica set or sharded cluster.
+ * 
+ * The resume token of the last observed change is persisted once per second
+ * and on {@link #stop()}, so that a restarted instance continues where it
+ * stopped. If the token has expired from the oplog meanwhile, all watched
+ * collections are reported as invalidated.
+ */
+public class MongoDBChangeStreamListener {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBChangeStreamListener.class);
+
+	private static final String GRIDFS_FILES_SUFFIX = ".files";
+	private static final String TOKEN_ID = "_id";
+	private static final String TOKEN_FIELD = "resumeToken";
+	private static final String TOKEN_UPDATED = "updated";
+	private static final String FULL_DOCUMENT = "fullDocument";
+	private static final String KEY_PATH = FULL_DOCUMENT + "." + Identifiable.IDENTIFICATION + "." + Identifier.ID;
+	private static final long TOKEN_PERSIST_INTERVAL_MILLIS = 1000;
+	private static final long MAX_AWAIT_MILLIS = 1000;
+	private static final long RETRY_DELAY_MILLIS = 1000;
+	// Server error if the resume token is no longer in the oplog
+	private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+	private static final Set<OperationType> DOCUMENT_CHANGES = EnumSet.of(OperationType.INSERT, OperationType.UPDATE, OperationType.REPLACE, OperationType.DELETE);
+	private static final Set<OperationType> COLLECTION_CHANGES = EnumSet.of(OperationType.DROP, OperationType.RENAME);
+	private static final Set<OperationType> DATABASE_CHANGES = EnumSet.of(OperationType.DROP_DATABASE, OperationType.INVALIDATE);
+
+	private final MongoClient client;
+	private final BaSyxMongoDBConfiguration config;
+	private final MongoDBInvalidationBus bus;
+	private final String id;
+	private final List<String> collectionNames;
+
+	private volatile boolean running = false;
+	private Thread thread;
+
+	private volatile BsonDocument resumeToken;
+	private BsonDocument persistedToken;
+	private volatile long persistedAt = 0;
+	// Not the listener itself, which is held by stop() while the thread ends
+	private final Object persistLock = new Object();
+
+	public MongoDBChangeStreamListener(MongoClient client, BaSyxMongoDBConfiguration config, MongoDBInvalidationBus bus) {
+		this.client = client;
+		this.config = config;
+		this.bus = bus;
+		this.id = config.getChangeStreamId() != null ? config.getChangeStreamId() : getHostName();
+		this.collectionNames = Arrays.asList(config.getAASCollection(), config.getSubmodelCollection(), config.getFileCollection() + GRIDFS_FILES_SUFFIX);
+	}
+
+	private static String getHostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "localhost";
+		}
+	}
+
+	/**
+	 * Starts watching in a background thread, resuming after the persisted token
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		resumeToken = loadResumeToken();
+		persistedToken = resumeToken;
+		thread = new Thread(this::watch, "mongodb-change-stream-" + id);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching and persists the resume token of the last observed change
+	 */
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			// The cursor is polled with a bounded await time, so the thread ends soon
+			thread.join(MAX_AWAIT_MILLIS + RETRY_DELAY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		persistResumeToken();
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the resume token of the last observed change or null, if none has
+	 * been observed yet
+	 */
+	public BsonDocument getResumeToken() {
+		return resumeToken;
+	}
+
+	private void watch() {
+		while (running) {
+			try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openChangeStream().cursor()) {
+				while (running) {
+					ChangeStreamDocument<Document> change = cursor.tryNext();
+					if (change != null) {
+						handle(change);
+					}
+					BsonDocument token = cursor.getResumeToken();
+					if (token != null) {
+						resumeToken = token;
+					}
+					if (System.currentTimeMillis() - persistedAt >= TOKEN_PERSIST_INTERVAL_MILLIS) {
+						persistResumeToken();
+					}
+				}
+			} catch (MongoServerException e) {
+				if (e.getCode() != CHANGE_STREAM_HISTORY_LOST) {
+					handleWatchFailure(e);
+					continue;
+				}
+				logger.warn("Change stream {} can not be resumed, as the resume token has expired; invalidating all caches", id);
+				resumeToken = null;
+				publishAllInvalidated(OperationType.INVALIDATE);
+			} catch (MongoException e) {
+				handleWatchFailure(e);
+			}
+		}
+	}
+
+	private void handleWatchFailure(MongoException e) {
+		if (!running) {
+			return;
+		}
+		// Resuming after the last token delivers the changes of the meantime, too
+		logger.warn("Change stream {} failed, resuming in {} ms: {}", id, RETRY_DELAY_MILLIS, e.getMessage());
+		try {
+			Thread.sleep(RETRY_DELAY_MILLIS);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+	private ChangeStreamIterable<Document> openChangeStream() {
+		// Updates are only issued for element values and versions. They are only
+		// relevant for shells, so that the full document is not looked up for every
+		// value written to a submodel
+		Bson isRelevantOperation = Filters.or(Filters.ne("operationType", OperationType.UPDATE.getValue()), Filters.eq("ns.coll", config.getAASCollection()));
+		Bson isWatched = Filters.or(Filters.and(Filters.in("ns.coll", collectionNames), isRelevantOperation), Filters.in("operationType", OperationType.DROP_DATABASE.getValue(), OperationType.INVALIDATE.getValue()));
+		// Only the fields needed to identify the changed objects are transferred
+		Bson watchedFields = Projections.include("operationType", "ns", "documentKey", KEY_PATH, FULL_DOCUMENT + "." + Referable.PARENT);
+		ChangeStreamIterable<Document> changeStream = client.getDatabase(config.getDatabase())
+				.watch(Arrays.asList(Aggregates.match(isWatched), Aggregates.project(watchedFields)))
+				.fullDocument(FullDocument.UPDATE_LOOKUP)
+				.maxAwaitTime(MAX_AWAIT_MILLIS, TimeUnit.MILLISECONDS);
+		// In contrast to resumeAfter, startAfter also accepts the token of an invalidate event
+		return resumeToken == null ? changeStream : changeStream.startAfter(resumeToken);
+	}
+
+	private void handle(ChangeStreamDocument<Document> change) {
+		OperationType operationType = change.getOperationType();
+		if (DATABASE_CHANGES.contains(operationType)) {
+			publishAllInvalidated(operationType);
+			return;
+		}
+		String collectionName = change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+		if (collectionName == null) {
+			return;
+		}
+		if (COLLECTION_CHANGES.contains(operationType)) {
+			bus.publish(MongoDBInvalidationEvent.forCollection(collectionName, operationType));
+		} else if (DOCUMENT_CHANGES.contains(operationType) && change.getDocumentKey() != null) {
+			Document document = change.getFullDocument();
+			bus.publish(new MongoDBInvalidationEvent(collectionName, operationType, toJavaValue(change.getDocumentKey().get(TOKEN_ID)), getKey(document), document));
+		}
+	}
+
+	private void publishAllInvalidated(OperationType operationType) {
+		collectionNames.forEach(collectionName -> bus.publish(MongoDBInvalidationEvent.forCollection(collectionName, operationType)));
+	}
+
+	private static Object toJavaValue(BsonValue value) {
+		if (value == null) {
+			return null;
+		}
+		if (value.isObjectId()) {
+			return value.asObjectId().getValue();
+		}
+		if (value.isString()) {
+			return value.asString().getValue();
+		}
+		return value;
+	}
+
+	private static String getKey(Document document) {
+		if (document == null || !(document.get(Identifiable.IDENTIFICATION) instanceof Document)) {
+			return null;
+		}
+		Object key = ((Document) document.get(Identifiable.IDENTIFICATION)).get(Identifier.ID);
+		return key instanceof String ? (String) key : null;
+	}
+
+	private MongoCollection<BsonDocument> getTokenCollection() {
+		return client.getDatabase(config.getDatabase()).getCollection(config.getChangeStreamTokenCollection(), BsonDocument.class);
+	}
+
+	private BsonDocument loadResumeToken() {
+		try {
+			BsonDocument stored = getTokenCollection().find(Filters.eq(TOKEN_ID, id)).first();
+			return stored == null || !stored.isDocument(TOKEN_FIELD) ? null : stored.getDocument(TOKEN_FIELD);
+		} catch (MongoException e) {
+			logger.warn("Could not load the resume token of change stream {}, starting at the current time: {}", id, e.getMessage());
+			return null;
+		}
+	}
+
+	private void persistResumeToken() {
+		synchronized (persistLock) {
+			persistedAt = System.currentTimeMillis();
+			BsonDocument token = resumeToken;
+			if (token == null || token.equals(persistedToken)) {
+				return;
+			}
+			try {
+				BsonDocument stored = new BsonDocument(TOKEN_ID, new BsonString(id)).append(TOKEN_FIELD, token).append(TOKEN_UPDATED, new BsonDateTime(persistedAt));
+				getTokenCollection().replaceOne(Filters.eq(TOKEN_ID, id), stored, new ReplaceOptions().upsert(true));
+				persistedToken = token;
+			} catch (MongoException e) {
+				logger.warn("Could not persist the resume token of change stream {}: {}", id, e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.ConnectionPoolListener;
+
+/**
+ * Process-wide registry of the MongoClients used by the BaSyx MongoDB
+ * components. There is at most one client per connection string and client
+ * settings, e.g. pool size, timeouts, read preference and read/write concern,
+ * so that all components with the same configuration share its connection
+ * pool. Components configuring different client settings for the same
+ * connection string get separate clients.
+ * 
+ * Components owning a client take a reference using {@link #acquire} and give
+ * it back using {@link #release}. A client created by the registry is closed,
+ * as soon as its last reference is released. Thus, references must only be
+ * released once the storage APIs using the client are not used anymore.
+ * Components that do not own a lifecycle use {@link #get} instead. A client
+ * that is handed out by {@link #get} while it has no owner is kept open until
+ * the process terminates. Clients created outside of the registry are never
+ * registered, so they are used as they are and closed by their creators.
+ */
+public class MongoDBClientRegistry {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBClientRegistry.class);
+
+	private static final Map<String, SharedClient> clients = new HashMap<>();
+
+	private MongoDBClientRegistry() {
+	}
+
+	/**
+	 * Returns the shared client for the configuration without taking a reference.
+	 * The client is created, if it does not exist yet. If no reference to the
+	 * client is held, it is kept open until the process terminates, since the
+	 * caller cannot release it. Otherwise, the client is closed as soon as its
+	 * owners have released it, so it must not be used beyond their lifecycle.
+	 * 
+	 * @param config
+	 * @return the shared client
+	 */
+	public static synchronized MongoClient get(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = getOrCreate(config);
+		if (sharedClient.referenceCount == 0) {
+			sharedClient.pinned = true;
+		}
+		return sharedClient.client;
+	}
+
+	/**
+	 * Returns the shared client for the connection string of the configuration and
+	 * takes a reference to it. The client is created, if it does not exist yet.
+	 * 
+	 * @param config
+	 * @return the shared client
+	 */
+	public static synchronized MongoClient acquire(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = getOrCreate(config);
+		sharedClient.referenceCount++;
+		return sharedClient.client;
+	}
+
+	/**
+	 * Releases a reference taken by {@link #acquire}. If it has been the last
+	 * reference to a client created by the registry, the client is closed.
+	 * 
+	 * @param client
+	 */
+	public static synchronized void release(MongoClient client) {
+		Optional<Map.Entry<String, SharedClient>> entry = clients.entrySet().stream().filter(e -> e.getValue().client == client).findAny();
+		if (entry.isEmpty() || entry.get().getValue().referenceCount == 0) {
+			logger.warn("Released a MongoClient that has not been acquired from the registry");
+			return;
+		}
+
+		SharedClient sharedClient = entry.get().getValue();
+		sharedClient.referenceCount--;
+		if (sharedClient.referenceCount == 0 && !sharedClient.pinned) {
+			clients.remove(entry.get().getKey());
+			// Writes the pending updates, which still need the client
+			MongoDBCollectionState.close(sharedClient.client);
+			sharedClient.client.close();
+		}
+	}
+
+	/**
+	 * Returns the number of MongoClients currently shared by the registry
+	 */
+	public static synchronized int getLiveClientCount() {
+		return clients.size();
+	}
+
+	/**
+	 * Returns the number of references taken to the client of the configuration
+	 */
+	public static synchronized int getReferenceCount(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = clients.get(getClientKey(config));
+		return sharedClient == null ? 0 : sharedClient.referenceCount;
+	}
+
+	/**
+	 * Returns the connection pool statistics of the client of the configuration
+	 * 
+	 * @return the statistics or null, if there is no client
+	 */
+	public static synchronized MongoDBConnectionPoolStatistics getPoolStatistics(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = clients.get(getClientKey(config));
+		return sharedClient == null ? null : sharedClient.poolStatistics;
+	}
+
+	private static SharedClient getOrCreate(BaSyxMongoDBConfiguration config) {
+		return clients.computeIfAbsent(getClientKey(config), key -> createClient(config));
+	}
+
+	/**
+	 * Identifies a client by its connection string and all client settings that
+	 * can be configured explicitly, see {@link #createSettings}
+	 */
+	private static String getClientKey(BaSyxMongoDBConfiguration config) {
+		return Arrays.asList(config.getConnectionUrl(), config.getConnectionPoolMinSize(), config.getConnectionPoolMaxSize(), config.getConnectionPoolMaxWaitTime(), config.getSocketTimeout(), config.getServerSelectionTimeout(),
+				config.getReadPreference(), config.getReadConcern(), config.getWriteConcern()).toString();
+	}
+
+	private static SharedClient createClient(BaSyxMongoDBConfiguration config) {
+		MongoDBConnectionPoolStatistics poolStatistics = new MongoDBConnectionPoolStatistics();
+		MongoClientSettings settings = createSettings(config, poolStatistics);
+		return new SharedClient(MongoClients.create(settings), poolStatistics);
+	}
+
+	/**
+	 * Creates the client settings from the connection string. Client settings that
+	 * are configured explicitly override the options of the connection string.
+	 * 
+	 * @param config
+	 * @param poolListener
+	 * @return the settings for a new client
+	 */
+	public static MongoClientSettings createSettings(BaSyxMongoDBConfiguration config, ConnectionPoolListener poolListener) {
+		MongoClientSettings.Builder builder = MongoClientSettings.builder().applyConnectionString(new ConnectionString(config.getConnectionUrl()));
+
+		builder.applyToConnectionPoolSettings(pool -> {
+			pool.addConnectionPoolListener(poolListener);
+			Optional.ofNullable(config.getConnectionPoolMinSize()).ifPresent(pool::minSize);
+			Optional.ofNullable(config.getConnectionPoolMaxSize()).ifPresent(pool::maxSize);
+			Optional.ofNullable(config.getConnectionPoolMaxWaitTime()).ifPresent(waitTime -> pool.maxWaitTime(waitTime, TimeUnit.MILLISECONDS));
+		});
+		Optional.ofNullable(config.getSocketTimeout()).ifPresent(timeout -> builder.applyToSocketSettings(socket -> socket.readTimeout(timeout.intValue(), TimeUnit.MILLISECONDS)));
+		Optional.ofNullable(config.getServerSelectionTimeout()).ifPresent(timeout -> builder.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(timeout, TimeUnit.MILLISECONDS)));
+		Optional.ofNullable(config.getReadPreference()).ifPresent(readPreference -> builder.readPreference(ReadPreference.valueOf(readPreference)));
+		Optional.ofNullable(config.getReadConcern()).ifPresent(readConcern -> builder.readConcern(new ReadConcern(ReadConcernLevel.fromString(readConcern))));
+		Optional.ofNullable(config.getWriteConcern()).ifPresent(writeConcern -> builder.writeConcern(parseWriteConcern(writeConcern)));
+
+		return builder.build();
+	}
+
+	static WriteConcern parseWriteConcern(String writeConcern) {
+		if (writeConcern.chars().allMatch(Character::isDigit)) {
+			return new WriteConcern(Integer.parseInt(writeConcern));
+		}
+
+		WriteConcern parsed = WriteConcern.valueOf(writeConcern);
+		if (parsed == null) {
+			throw new IllegalArgumentException("Unknown write concern '" + writeConcern + "'");
+		}
+		return parsed;
+	}
+
+	private static class SharedClient {
+		private final MongoClient client;
+		private final MongoDBConnectionPoolStatistics poolStatistics;
+		private int referenceCount = 0;
+
+		// Handed out without an owner, thus never closed
+		private boolean pinned = false;
+
+		private SharedClient(MongoClient client, MongoDBConnectionPoolStatistics poolStatistics) {
+			this.client = client;
+			this.poolStatistics = poolStatistics;
+		}
+	}
+}
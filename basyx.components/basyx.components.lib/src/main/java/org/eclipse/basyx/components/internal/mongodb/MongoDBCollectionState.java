@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * State of a collection, which is shared by the storage APIs of the same
+ * client: whether its indexes have been ensured, its key filter, its
+ * write-behind buffer and the resolved write concerns of its objects.
+ * 
+ * The state is owned by the client, so that storage APIs of other clients, e.g.
+ * of other tests, never see it. {@link #reset()} clears it once the collection
+ * has been dropped, {@link #close(MongoClient)} discards all states of a client
+ * before it is closed.
+ */
+public class MongoDBCollectionState {
+	private static final Map<MongoClient, Map<String, MongoDBCollectionState>> states = new WeakHashMap<>();
+
+	private final AtomicBoolean isIndexed = new AtomicBoolean(false);
+	private final AtomicBoolean isKeyFilterLoaded = new AtomicBoolean(false);
+	// Write concerns resolved by key, empty if the client's write concern applies
+	private final Map<String, Optional<WriteConcern>> writeConcerns = new ConcurrentHashMap<>();
+
+	private MongoDBKeyFilter keyFilter;
+	private MongoDBInvalidationBus invalidationBus;
+	private Consumer<MongoDBInvalidationEvent> keyFilterSubscriber;
+	private MongoDBWriteBehindBuffer writeBehindBuffer;
+
+	/**
+	 * Returns the state of the collection, which is created on first use
+	 * 
+	 * @param client
+	 * @param database
+	 * @param collectionName
+	 * @return the state shared by all storage APIs of the client and collection
+	 */
+	public static synchronized MongoDBCollectionState get(MongoClient client, String database, String collectionName) {
+		return states.computeIfAbsent(client, c -> new HashMap<>()).computeIfAbsent(database + "/" + collectionName, id -> new MongoDBCollectionState());
+	}
+
+	/**
+	 * Writes the pending updates of all collections of the client and
+	 * unsubscribes their key filters. Called before the client is closed.
+	 * 
+	 * @param client
+	 */
+	public static void close(MongoClient client) {
+		Map<String, MongoDBCollectionState> clientStates;
+		synchronized (MongoDBCollectionState.class) {
+			clientStates = states.remove(client);
+		}
+		if (clientStates != null) {
+			clientStates.values().forEach(MongoDBCollectionState::discard);
+		}
+	}
+
+	/**
+	 * Marks the indexes of the collection as ensured
+	 * 
+	 * @return true if they have not been ensured before, i.e. have to be created
+	 */
+	public boolean markIndexed() {
+		return isIndexed.compareAndSet(false, true);
+	}
+
+	/**
+	 * Returns the key filter of the collection. It is updated by the invalidation
+	 * events of the collection, but has to be loaded by the caller, see
+	 * {@link #markKeyFilterLoaded()}.
+	 * 
+	 * @param config
+	 * @param collectionName
+	 * @return the shared key filter of the collection
+	 */
+	public synchronized MongoDBKeyFilter getKeyFilter(BaSyxMongoDBConfiguration config, String collectionName) {
+		if (keyFilter == null) {
+			MongoDBKeyFilter filter = new MongoDBKeyFilter(config.getKeyFilterExpectedKeys(), config.getKeyFilterFalsePositiveRate());
+			keyFilterSubscriber = event -> {
+				if (event.getCollectionName().equals(collectionName)) {
+					updateKeyFilter(filter, event);
+				}
+			};
+			invalidationBus = MongoDBInvalidationBus.get(config);
+			invalidationBus.subscribe(keyFilterSubscriber);
+			keyFilter = filter;
+		}
+		return keyFilter;
+	}
+
+	/**
+	 * Adds the ids written by other server instances. Their deletions are not
+	 * removed, as the id of a deleted document is not known.
+	 */
+	private void updateKeyFilter(MongoDBKeyFilter filter, MongoDBInvalidationEvent event) {
+		if (event.isCollectionInvalidated()) {
+			if (event.getOperationType() == OperationType.DROP) {
+				filter.clear();
+			} else {
+				// Changes may have been missed, so the filter is reloaded with the next lookup
+				isKeyFilterLoaded.set(false);
+			}
+		} else if (event.getKey() != null && event.getOperationType() != OperationType.DELETE) {
+			filter.add(event.getKey());
+		}
+	}
+
+	/**
+	 * Marks the key filter as loaded
+	 * 
+	 * @return true if it has not been loaded before, i.e. has to be rebuilt
+	 */
+	public boolean markKeyFilterLoaded() {
+		return isKeyFilterLoaded.compareAndSet(false, true);
+	}
+
+	/**
+	 * Marks the key filter as not loaded, e.g. if rebuilding it failed
+	 */
+	public void markKeyFilterUnloaded() {
+		isKeyFilterLoaded.set(false);
+	}
+
+	/**
+	 * Returns the write concerns resolved by key, empty if the client's write
+	 * concern applies
+	 */
+	public Map<String, Optional<WriteConcern>> getWriteConcerns() {
+		return writeConcerns;
+	}
+
+	/**
+	 * Returns the write-behind buffer of the collection, which is created on
+	 * first use and after it has been closed
+	 * 
+	 * @param config
+	 * @param mongoOps
+	 * @param collectionName
+	 * @param writeConcernResolver
+	 *            resolves the write concern of an object by its key, null
+	 *            selects the client's write concern
+	 * @return the shared buffer or null, if write-behind is disabled
+	 */
+	public synchronized MongoDBWriteBehindBuffer getWriteBehindBuffer(BaSyxMongoDBConfiguration config, MongoOperations mongoOps, String collectionName, Function<String, WriteConcern> writeConcernResolver) {
+		Long windowMillis = config.getWriteBehindWindow();
+		if (windowMillis == null) {
+			return null;
+		}
+		if (writeBehindBuffer == null || writeBehindBuffer.isClosed()) {
+			writeBehindBuffer = new MongoDBWriteBehindBuffer(mongoOps, collectionName, writeConcernResolver, windowMillis, config.getWriteBehindMaxPending());
+		}
+		return writeBehindBuffer;
+	}
+
+	/**
+	 * Writes all pending updates of the collection and stops the flusher of its
+	 * buffer. A subsequent update creates a new buffer.
+	 */
+	public void closeWriteBehindBuffer() {
+		MongoDBWriteBehindBuffer buffer;
+		synchronized (this) {
+			buffer = writeBehindBuffer;
+			writeBehindBuffer = null;
+		}
+		if (buffer != null) {
+			buffer.close();
+		}
+	}
+
+	/**
+	 * Clears the state after the collection has been dropped, i.e. discards the
+	 * pending updates, the resolved write concerns and the keys of the filter.
+	 * The indexes are recreated with the next write.
+	 */
+	public void reset() {
+		MongoDBWriteBehindBuffer buffer;
+		MongoDBKeyFilter filter;
+		synchronized (this) {
+			buffer = writeBehindBuffer;
+			filter = keyFilter;
+		}
+		if (buffer != null) {
+			buffer.clear();
+		}
+		writeConcerns.clear();
+		if (filter != null) {
+			// The collection is empty, so the cleared filter stays loaded
+			filter.clear();
+		}
+		isIndexed.set(false);
+	}
+
+	private void discard() {
+		closeWriteBehindBuffer();
+		synchronized (this) {
+			if (keyFilterSubscriber != null) {
+				invalidationBus.unsubscribe(keyFilterSubscriber);
+				keyFilterSubscriber = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+/**
+ * Counts the open and the checked out connections of a MongoClient's
+ * connection pools
+ */
+public class MongoDBConnectionPoolStatistics implements ConnectionPoolListener {
+	private final AtomicInteger openConnections = new AtomicInteger();
+	private final AtomicInteger checkedOutConnections = new AtomicInteger();
+
+	@Override
+	public void connectionCreated(ConnectionCreatedEvent event) {
+		openConnections.incrementAndGet();
+	}
+
+	@Override
+	public void connectionClosed(ConnectionClosedEvent event) {
+		openConnections.decrementAndGet();
+	}
+
+	@Override
+	public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+		checkedOutConnections.incrementAndGet();
+	}
+
+	@Override
+	public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+		checkedOutConnections.decrementAndGet();
+	}
+
+	/**
+	 * Returns the number of connections in the pools, including the checked out
+	 * ones
+	 */
+	public int getOpenConnectionCount() {
+		return openConnections.get();
+	}
+
+	/**
+	 * Returns the number of connections currently in use
+	 */
+	public int getCheckedOutConnectionCount() {
+		return checkedOutConnections.get();
+	}
+}
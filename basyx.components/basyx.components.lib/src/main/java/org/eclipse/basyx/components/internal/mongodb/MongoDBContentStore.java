@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Content-addressed GridFS store for the files of File submodel elements. Each
+ * distinct content is stored once, named by its SHA-256 hash, in the bucket
+ * <i>&lt;fileCollection&gt;Content</i>. The file names of the elements are
+ * linked to the content in the collection <i>&lt;fileCollection&gt;.links</i>.
+ * 
+ * The number of links to a content is counted in the metadata of its GridFS
+ * file. Uploading a content that is already stored only writes the link, and
+ * a content is deleted as soon as its last link is removed.
+ */
+public class MongoDBContentStore {
+	public static final String CONTENT_BUCKET_SUFFIX = "Content";
+	public static final String LINKS_SUFFIX = ".links";
+
+	private static final String FILENAME = "filename";
+	private static final String CONTENT_ID = "contentId";
+	private static final String SHA256 = "sha256";
+	private static final String REF_COUNT = "refCount";
+	private static final String METADATA_REF_COUNT = "metadata." + REF_COUNT;
+	private static final String ID = "_id";
+
+	private final GridFSBucket contentBucket;
+	private final MongoCollection<Document> contentFiles;
+	private final MongoCollection<Document> contentChunks;
+	private final MongoCollection<Document> links;
+
+	public MongoDBContentStore(MongoClient client, BaSyxMongoDBConfiguration config) {
+		MongoDatabase database = client.getDatabase(config.getDatabase());
+		String contentBucketName = config.getFileCollection() + CONTENT_BUCKET_SUFFIX;
+		GridFSBucket bucket = GridFSBuckets.create(database, contentBucketName);
+		Integer chunkSize = config.getFileChunkSize();
+		this.contentBucket = chunkSize == null ? bucket : bucket.withChunkSizeBytes(chunkSize);
+		this.contentFiles = database.getCollection(contentBucketName + ".files");
+		this.contentChunks = database.getCollection(contentBucketName + ".chunks");
+		this.links = database.getCollection(config.getFileCollection() + LINKS_SUFFIX);
+	}
+
+	public GridFSBucket getBucket() {
+		return contentBucket;
+	}
+
+	/**
+	 * Stores the content under the file name. The stream is hashed while it is
+	 * spooled to a temporary file, so that known content is not uploaded again.
+	 * 
+	 * @param fileName
+	 * @param content
+	 */
+	public void store(String fileName, InputStream content) {
+		Path spoolFile = null;
+		try {
+			spoolFile = Files.createTempFile("basyx-upload", ".tmp");
+			String hash = spool(content, spoolFile);
+			ObjectId contentId = acquire(hash, spoolFile);
+
+			Document link = new Document(ID, fileName).append(CONTENT_ID, contentId).append(SHA256, hash);
+			Document previousLink = links.findOneAndReplace(Filters.eq(ID, fileName), link, new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.BEFORE));
+			if (previousLink != null) {
+				release(previousLink.getObjectId(CONTENT_ID));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not store the file '" + fileName + "'", e);
+		} finally {
+			deleteSpoolFile(spoolFile);
+		}
+	}
+
+	/**
+	 * Returns the content linked to the file name
+	 * 
+	 * @param fileName
+	 * @return the GridFS file of the content or null, if there is no link
+	 */
+	public GridFSFile find(String fileName) {
+		Document link = links.find(Filters.eq(ID, fileName)).first();
+		if (link == null) {
+			return null;
+		}
+		return contentBucket.find(Filters.eq(ID, link.getObjectId(CONTENT_ID))).first();
+	}
+
+	/**
+	 * Removes the links of the file names and deletes contents without remaining
+	 * links
+	 * 
+	 * @param fileNames
+	 */
+	public void delete(String... fileNames) {
+		for (String fileName : fileNames) {
+			Document link = links.findOneAndDelete(Filters.eq(ID, fileName));
+			if (link != null) {
+				release(link.getObjectId(CONTENT_ID));
+			}
+		}
+	}
+
+	/**
+	 * Drops all links and contents of the store
+	 * 
+	 * @return the number of removed links
+	 */
+	public long deleteAll() {
+		long count = links.countDocuments();
+		links.drop();
+		contentBucket.drop();
+		return count;
+	}
+
+	/**
+	 * Returns the number of links to the content with the given hash
+	 * 
+	 * @param hash
+	 *            hex encoded SHA-256 hash
+	 * @return the reference count or 0, if the content is not stored
+	 */
+	public int getReferenceCount(String hash) {
+		Document contentFile = contentFiles.find(Filters.eq(FILENAME, hash)).first();
+		if (contentFile == null) {
+			return 0;
+		}
+		return contentFile.get("metadata", Document.class).getInteger(REF_COUNT, 0);
+	}
+
+	/**
+	 * Takes a reference to the stored content with the hash or uploads it, if it
+	 * is not stored yet
+	 * 
+	 * @return the id of the content
+	 */
+	private ObjectId acquire(String hash, Path spoolFile) throws IOException {
+		ObjectId existingId = incrementReferenceCount(hash);
+		if (existingId != null) {
+			return existingId;
+		}
+
+		ObjectId uploadedId;
+		try (InputStream in = Files.newInputStream(spoolFile)) {
+			Document metadata = new Document(SHA256, hash).append(REF_COUNT, 1);
+			uploadedId = contentBucket.uploadFromStream(hash, in, new GridFSUploadOptions().metadata(metadata));
+		}
+
+		// A concurrent upload of the same content may have won, so the oldest one is kept
+		Document oldest = contentFiles.find(Filters.eq(FILENAME, hash)).sort(Sorts.ascending(ID)).first();
+		if (oldest == null || oldest.getObjectId(ID).equals(uploadedId)) {
+			return uploadedId;
+		}
+		deleteContent(uploadedId, 1);
+		ObjectId winnerId = incrementReferenceCount(hash);
+		return winnerId != null ? winnerId : acquire(hash, spoolFile);
+	}
+
+	private ObjectId incrementReferenceCount(String hash) {
+		Document contentFile = contentFiles.findOneAndUpdate(Filters.and(Filters.eq(FILENAME, hash), Filters.gt(METADATA_REF_COUNT, 0)), Updates.inc(METADATA_REF_COUNT, 1),
+				new FindOneAndUpdateOptions().sort(Sorts.ascending(ID)));
+		return contentFile == null ? null : contentFile.getObjectId(ID);
+	}
+
+	private void release(ObjectId contentId) {
+		Document contentFile = contentFiles.findOneAndUpdate(Filters.eq(ID, contentId), Updates.inc(METADATA_REF_COUNT, -1), new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+		if (contentFile == null) {
+			return;
+		}
+		if (contentFile.get("metadata", Document.class).getInteger(REF_COUNT, 0) <= 0) {
+			deleteContent(contentId, 0);
+		}
+	}
+
+	/**
+	 * Deletes the content, if its reference count has not been raised above the
+	 * given one in the meantime. Chunks are only removed after the files document,
+	 * so that readers never find a partial content.
+	 */
+	private void deleteContent(ObjectId contentId, int maxRefCount) {
+		long deleted = contentFiles.deleteOne(Filters.and(Filters.eq(ID, contentId), Filters.lte(METADATA_REF_COUNT, maxRefCount))).getDeletedCount();
+		if (deleted > 0) {
+			contentChunks.deleteMany(Filters.eq("files_id", contentId));
+			MongoDBFileCache.invalidateEverywhere(contentId);
+		}
+	}
+
+	private static String spool(InputStream content, Path spoolFile) throws IOException {
+		MessageDigest digest = createDigest();
+		try (DigestInputStream in = new DigestInputStream(content, digest)) {
+			Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static void deleteSpoolFile(Path spoolFile) {
+		if (spoolFile == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(spoolFile);
+		} catch (IOException e) {
+			spoolFile.toFile().deleteOnExit();
+		}
+	}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.bson.types.ObjectId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded local disk cache for files stored in GridFS. Entries are keyed by the
+ * GridFS ObjectId and the upload date, so a cached copy always matches the
+ * content it was downloaded from and never has to be revalidated. If the size
+ * budget is exceeded, the least recently used copies are deleted.
+ * 
+ * Cached copies are served with {@link FileChannel#transferTo}, i.e. from the
+ * operating system's page cache instead of the database. There is one cache per
+ * directory, which is shared by all storage APIs of the process.
+ */
+public class MongoDBFileCache {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBFileCache.class);
+
+	private static final String TEMP_SUFFIX = ".tmp";
+	// <ObjectId>-<upload date>, temporary downloads append a random number and the suffix
+	private static final Pattern CACHED_FILE_NAME = Pattern.compile("[0-9a-f]{24}-[0-9]+");
+	private static final Pattern TEMP_FILE_NAME = Pattern.compile("[0-9a-f]{24}-[0-9]+" + Pattern.quote(TEMP_SUFFIX));
+	private static final Map<Path, MongoDBFileCache> caches = new HashMap<>();
+
+	private final Path directory;
+	private final long maxSize;
+	private final Map<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Object> downloadLocks = new ConcurrentHashMap<>();
+	private long currentSize = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the cache configured for the file collection or null, if no cache
+	 * directory is configured
+	 * 
+	 * @param config
+	 * @return the shared cache of the configured directory
+	 */
+	public static MongoDBFileCache get(BaSyxMongoDBConfiguration config) {
+		String directory = config.getFileCacheDirectory();
+		if (directory == null) {
+			return null;
+		}
+		return get(Paths.get(directory), config.getFileCacheMaxSize());
+	}
+
+	/**
+	 * Returns the cache of the directory. The size budget is taken from the first
+	 * call for a directory.
+	 * 
+	 * @param directory
+	 * @param maxSize
+	 *            size budget in bytes
+	 * @return the shared cache of the directory
+	 */
+	public static synchronized MongoDBFileCache get(Path directory, long maxSize) {
+		return caches.computeIfAbsent(directory.toAbsolutePath().normalize(), path -> new MongoDBFileCache(path, maxSize));
+	}
+
+	/**
+	 * Removes all cached copies of the GridFS file from every cache of the
+	 * process. Called after a GridFS file has been deleted.
+	 * 
+	 * @param objectId
+	 */
+	public static void invalidateEverywhere(ObjectId objectId) {
+		List<MongoDBFileCache> allCaches;
+		synchronized (MongoDBFileCache.class) {
+			allCaches = new ArrayList<>(caches.values());
+		}
+		allCaches.forEach(cache -> cache.invalidate(objectId));
+	}
+
+	private MongoDBFileCache(Path directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		loadExistingEntries();
+	}
+
+	/**
+	 * Copies the given range of the stored file to the output stream. The file is
+	 * downloaded into the cache first, if it is not cached yet. Files exceeding the
+	 * size budget are streamed from GridFS.
+	 * 
+	 * @param storedFile
+	 * @param out
+	 * @param offset
+	 * @param length
+	 * @throws IOException
+	 */
+	public void copyTo(MongoDBStoredFile storedFile, OutputStream out, long offset, long length) throws IOException {
+		Path cachedFile = getCachedFile(storedFile);
+		if (cachedFile == null) {
+			storedFile.copyFromDatabase(out, offset, length);
+			return;
+		}
+
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(cachedFile, StandardOpenOption.READ);
+		} catch (NoSuchFileException evictedMeanwhile) {
+			storedFile.copyFromDatabase(out, offset, length);
+			return;
+		}
+
+		try (channel) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = offset;
+			long end = offset + length;
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+
+	/**
+	 * Returns the local copy of the stored file, downloading it on a cache miss
+	 * 
+	 * @return the path of the copy or null, if the file exceeds the size budget
+	 */
+	Path getCachedFile(MongoDBStoredFile storedFile) throws IOException {
+		if (storedFile.getLength() > maxSize) {
+			return null;
+		}
+
+		String key = getKey(storedFile.getObjectId(), storedFile.getUploadDate().getTime());
+		Path cachedFile = directory.resolve(key);
+		if (touch(key)) {
+			hits.incrementAndGet();
+			return cachedFile;
+		}
+
+		synchronized (downloadLocks.computeIfAbsent(key, k -> new Object())) {
+			try {
+				if (touch(key)) {
+					hits.incrementAndGet();
+					return cachedFile;
+				}
+				misses.incrementAndGet();
+				download(storedFile, cachedFile);
+				add(key, storedFile.getLength());
+				return cachedFile;
+			} finally {
+				downloadLocks.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached copies of the GridFS file
+	 * 
+	 * @param objectId
+	 */
+	public void invalidate(ObjectId objectId) {
+		String keyPrefix = objectId.toHexString() + "-";
+		List<String> removedKeys = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Map.Entry<String, Long>> it = entrySizes.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Long> entry = it.next();
+				if (entry.getKey().startsWith(keyPrefix)) {
+					currentSize -= entry.getValue();
+					removedKeys.add(entry.getKey());
+					it.remove();
+				}
+			}
+		}
+		removedKeys.forEach(this::deleteCachedFile);
+	}
+
+	/**
+	 * Removes all cached copies, e.g. after the whole file collection has been
+	 * dropped
+	 */
+	public void clear() {
+		List<String> removedKeys;
+		synchronized (this) {
+			removedKeys = new ArrayList<>(entrySizes.keySet());
+			entrySizes.clear();
+			currentSize = 0;
+		}
+		removedKeys.forEach(this::deleteCachedFile);
+	}
+
+	public synchronized long getSize() {
+		return currentSize;
+	}
+
+	public synchronized int getEntryCount() {
+		return entrySizes.size();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Checks whether the key is cached and marks it as recently used
+	 */
+	private synchronized boolean touch(String key) {
+		return entrySizes.get(key) != null;
+	}
+
+	private void download(MongoDBStoredFile storedFile, Path cachedFile) throws IOException {
+		Files.createDirectories(directory);
+		Path tempFile = Files.createTempFile(directory, cachedFile.getFileName().toString(), TEMP_SUFFIX);
+		try (InputStream in = storedFile.openStream()) {
+			Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tempFile, cachedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private void add(String key, long size) {
+		List<String> evictedKeys = new ArrayList<>();
+		synchronized (this) {
+			entrySizes.put(key, size);
+			currentSize += size;
+
+			Iterator<Map.Entry<String, Long>> it = entrySizes.entrySet().iterator();
+			while (currentSize > maxSize && it.hasNext()) {
+				Map.Entry<String, Long> eldest = it.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				currentSize -= eldest.getValue();
+				evictedKeys.add(eldest.getKey());
+				it.remove();
+			}
+		}
+		evictedKeys.forEach(this::deleteCachedFile);
+	}
+
+	private void deleteCachedFile(String key) {
+		try {
+			Files.deleteIfExists(directory.resolve(key));
+		} catch (IOException e) {
+			logger.warn("Could not delete cached file '{}': {}", key, e.getMessage());
+		}
+	}
+
+	/**
+	 * Takes over the copies left by a previous run, ordered by their last
+	 * modification, and removes incomplete downloads. Files not named like the
+	 * entries of the cache are left untouched.
+	 */
+	private void loadExistingEntries() {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		List<Path> existingFiles = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String fileName = file.getFileName().toString();
+				if (TEMP_FILE_NAME.matcher(fileName).matches()) {
+					Files.deleteIfExists(file);
+				} else if (CACHED_FILE_NAME.matcher(fileName).matches() && Files.isRegularFile(file)) {
+					existingFiles.add(file);
+				}
+			}
+			existingFiles.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+			for (Path file : existingFiles) {
+				add(file.getFileName().toString(), Files.size(file));
+			}
+		} catch (IOException e) {
+			logger.warn("Could not load the file cache in '{}': {}", directory, e.getMessage());
+		}
+	}
+
+	private static String getKey(ObjectId objectId, long uploadDate) {
+		return objectId.toHexString() + "-" + uploadDate;
+	}
+}
@@ -43,7 +43,9 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.gridfs.GridFSBucket;
 import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
 
 /**
  * Supports MongoDB file handling
@@ -55,24 +57,117 @@ public class MongoDBFileHelper {
 	private MongoDBFileHelper() {
 	}
 
-	@SuppressWarnings("unchecked")
 	public static String updateFileInDB(MongoClient client, BaSyxMongoDBConfiguration config, String submodelId, InputStream newValue, ISubmodelElement element, String idShortPath) {
+		return updateFileInDB(getGridFSBucket(client, config), submodelId, newValue, element, idShortPath);
+	}
+
+	public static String updateFileInDB(GridFSBucket bucket, String submodelId, InputStream newValue, ISubmodelElement element, String idShortPath) {
+		return updateFileInDB(bucket, submodelId, newValue, element, idShortPath, true);
+	}
+
+	/**
+	 * Replaces the file of a File submodel element
+	 * 
+	 * @param includeLegacyFileName
+	 *            false, if the file names have been migrated, so that no file with
+	 *            the legacy name has to be deleted
+	 * @return the file name
+	 */
+	@SuppressWarnings("unchecked")
+	public static String updateFileInDB(GridFSBucket bucket, String submodelId, InputStream newValue, ISubmodelElement element, String idShortPath, boolean includeLegacyFileName) {
 		File file = File.createAsFacade((Map<String, Object>) element);
-		GridFSBucket bucket = getGridFSBucket(client, config);
 		String fileName = constructFileName(submodelId, file, idShortPath);
-		deleteAllDuplicateFiles(bucket, fileName, legacyFileName(submodelId, file, idShortPath));
+		deleteAllDuplicateFiles(bucket, getFileNames(submodelId, file, idShortPath, includeLegacyFileName));
 		bucket.uploadFromStream(fileName, newValue);
 		return fileName;
 	}
 
+	/**
+	 * Stores the file content deduplicated in the content store. Files stored
+	 * directly in the bucket under the element's names are removed.
+	 * 
+	 * @param includeLegacyFileName
+	 *            false, if the file names have been migrated, so that no file with
+	 *            the legacy name has to be deleted
+	 * @return the file name
+	 */
 	@SuppressWarnings("unchecked")
+	public static String updateFileInDB(GridFSBucket bucket, MongoDBContentStore contentStore, String submodelId, InputStream newValue, ISubmodelElement element, String idShortPath, boolean includeLegacyFileName) {
+		File file = File.createAsFacade((Map<String, Object>) element);
+		String fileName = constructFileName(submodelId, file, idShortPath);
+		deleteAllDuplicateFiles(bucket, getFileNames(submodelId, file, idShortPath, includeLegacyFileName));
+		contentStore.store(fileName, newValue);
+		return fileName;
+	}
+
 	public static void deleteAllFilesFromGridFsIfIsFileSubmodelElement(MongoClient client, BaSyxMongoDBConfiguration config, Submodel sm, String idShort) {
+		deleteAllFilesFromGridFsIfIsFileSubmodelElement(getGridFSBucket(client, config), sm, idShort);
+	}
+
+	public static void deleteAllFilesFromGridFsIfIsFileSubmodelElement(GridFSBucket bucket, Submodel sm, String idShort) {
+		deleteAllFilesFromGridFsIfIsFileSubmodelElement(bucket, sm, idShort, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static void deleteAllFilesFromGridFsIfIsFileSubmodelElement(GridFSBucket bucket, Submodel sm, String idShort, boolean includeLegacyFileName) {
 		Map<String, Object> submodelElement = (Map<String, Object>) sm.getSubmodelElement(idShort);
 		if (!File.isFile(submodelElement))
 			return;
 		File file = File.createAsFacade(submodelElement);
-		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, config);
-		deleteAllDuplicateFiles(bucket, constructFileName(sm.getIdentification().getId(), file, idShort), legacyFileName(sm.getIdentification().getId(), file, idShort));
+		deleteAllDuplicateFiles(bucket, getFileNames(sm.getIdentification().getId(), file, idShort, includeLegacyFileName));
+	}
+
+	/**
+	 * Deletes the files of a File submodel element from the bucket and the
+	 * content store. The content store only links current file names.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void deleteAllFilesFromGridFsIfIsFileSubmodelElement(GridFSBucket bucket, MongoDBContentStore contentStore, Submodel sm, String idShort, boolean includeLegacyFileName) {
+		Map<String, Object> submodelElement = (Map<String, Object>) sm.getSubmodelElement(idShort);
+		if (!File.isFile(submodelElement))
+			return;
+		File file = File.createAsFacade(submodelElement);
+		String submodelId = sm.getIdentification().getId();
+		deleteAllDuplicateFiles(bucket, getFileNames(submodelId, file, idShort, includeLegacyFileName));
+		contentStore.delete(constructFileName(submodelId, file, idShort));
+	}
+
+	/**
+	 * Looks up the stored file of a File submodel element with a single query.
+	 * Files stored with the legacy name are only used, if there is no file with
+	 * the current name.
+	 * 
+	 * @return the file or null, if none is stored
+	 */
+	public static GridFSFile findFile(GridFSBucket bucket, String submodelId, File file, String idShortPath) {
+		return findFile(bucket, submodelId, file, idShortPath, true);
+	}
+
+	/**
+	 * Looks up the stored file of a File submodel element
+	 * 
+	 * @param includeLegacyFileName
+	 *            false, if the file names have been migrated, so that only the
+	 *            current name is queried
+	 * @return the file or null, if none is stored
+	 */
+	public static GridFSFile findFile(GridFSBucket bucket, String submodelId, File file, String idShortPath, boolean includeLegacyFileName) {
+		String fileName = constructFileName(submodelId, file, idShortPath);
+		if (!includeLegacyFileName) {
+			return bucket.find(Filters.eq("filename", fileName)).sort(Sorts.descending("uploadDate")).first();
+		}
+
+		String legacyFileName = legacyFileName(submodelId, file, idShortPath);
+		GridFSFile legacyFile = null;
+		for (GridFSFile gridFile : bucket.find(Filters.in("filename", fileName, legacyFileName)).sort(Sorts.descending("uploadDate"))) {
+			if (gridFile.getFilename().equals(fileName)) {
+				return gridFile;
+			}
+			if (legacyFile == null) {
+				legacyFile = gridFile;
+			}
+		}
+		return legacyFile;
 	}
 
 	protected static boolean fileExists(GridFSBucket bucket, String fileName) {
@@ -81,7 +176,17 @@ public class MongoDBFileHelper {
 
 	public static GridFSBucket getGridFSBucket(MongoClient client, BaSyxMongoDBConfiguration config) {
 		MongoDatabase database = client.getDatabase(config.getDatabase());
-		return GridFSBuckets.create(database, config.getFileCollection());
+		GridFSBucket bucket = GridFSBuckets.create(database, config.getFileCollection());
+		Integer chunkSize = config.getFileChunkSize();
+		return chunkSize == null ? bucket : bucket.withChunkSizeBytes(chunkSize);
+	}
+
+	private static String[] getFileNames(String submodelId, File file, String idShortPath, boolean includeLegacyFileName) {
+		String fileName = constructFileName(submodelId, file, idShortPath);
+		if (!includeLegacyFileName) {
+			return new String[] { fileName };
+		}
+		return new String[] { fileName, legacyFileName(submodelId, file, idShortPath) };
 	}
 
 	private static void deleteAllDuplicateFiles(GridFSBucket bucket, String... fileNames) {
@@ -89,7 +194,10 @@ public class MongoDBFileHelper {
 						Arrays.stream(fileNames)
 								.map(fileName -> Filters.eq("filename", fileName))
 								.collect(Collectors.toList())))
-				.forEach(gridFile -> bucket.delete(gridFile.getObjectId()));
+				.forEach(gridFile -> {
+					bucket.delete(gridFile.getObjectId());
+					MongoDBFileCache.invalidateEverywhere(gridFile.getObjectId());
+				});
 	}
 
 	public static String constructFileName(String submodelId, File file, String idShortPath) {
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+
+/**
+ * Renames the GridFS files stored with the legacy file name scheme (see
+ * {@link MongoDBFileHelper#legacyFileName}) to the current scheme (see
+ * {@link MongoDBFileHelper#constructFileName}). Afterwards, a schema version
+ * marker is written to the collection <i>&lt;fileCollection&gt;.schema</i>.
+ * Once the marker is present, file reads and uploads do not consider legacy
+ * file names anymore.
+ */
+public class MongoDBFileNameMigration {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBFileNameMigration.class);
+
+	public static final String SCHEMA_SUFFIX = ".schema";
+	public static final String FILE_NAME_SCHEMA = "fileNames";
+	public static final int CURRENT_FILE_NAME_VERSION = 2;
+
+	private static final String ID = "_id";
+	private static final String VERSION = "version";
+	private static final String MIGRATED_AT = "migratedAt";
+	private static final String FILENAME = "filename";
+
+	// Known migration state per database and file collection
+	private static final Map<String, Boolean> migrationStates = new ConcurrentHashMap<>();
+
+	private final BaSyxMongoDBConfiguration config;
+	private final MongoClient client;
+	private final GridFSBucket bucket;
+	private final MongoCollection<Document> filesCollection;
+	private final MongoCollection<Document> schemaCollection;
+
+	public MongoDBFileNameMigration(MongoClient client, BaSyxMongoDBConfiguration config) {
+		this.config = config;
+		this.client = client;
+		this.bucket = MongoDBFileHelper.getGridFSBucket(client, config);
+		this.filesCollection = client.getDatabase(config.getDatabase()).getCollection(config.getFileCollection() + ".files");
+		this.schemaCollection = getSchemaCollection(client, config);
+	}
+
+	/**
+	 * Returns whether the file names have been migrated. The marker is read once
+	 * per process, migrations of this process are taken into account immediately.
+	 * 
+	 * @param client
+	 * @param config
+	 * @return true, if legacy file names do not have to be considered
+	 */
+	public static boolean isMigrated(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return migrationStates.computeIfAbsent(getStateKey(config), key -> readMarker(getSchemaCollection(client, config)));
+	}
+
+	/**
+	 * Migrates the file names, unless the marker is present
+	 * 
+	 * @param client
+	 * @param config
+	 * @return the counts of the migration or null, if it has been migrated before
+	 */
+	public static Result migrateIfNeeded(MongoClient client, BaSyxMongoDBConfiguration config) {
+		if (isMigrated(client, config)) {
+			return null;
+		}
+		return new MongoDBFileNameMigration(client, config).migrate();
+	}
+
+	/**
+	 * Migrates the File submodel elements of all submodels in the configured
+	 * submodel collection and writes the schema version marker
+	 * 
+	 * @return the counts of the migration
+	 */
+	public Result migrate() {
+		MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi = MongoDBBaSyxStorageAPIFactory.create(config.getSubmodelCollection(), Submodel.class, config, client);
+		return migrate(submodelStorageApi.retrieveAll());
+	}
+
+	/**
+	 * Migrates all File submodel elements of the given submodels and writes the
+	 * schema version marker
+	 * 
+	 * @param submodels
+	 *            all submodels stored in the database
+	 * @return the counts of the migration
+	 */
+	public Result migrate(Collection<Submodel> submodels) {
+		long start = System.currentTimeMillis();
+		Result result = new Result();
+		for (Submodel submodel : submodels) {
+			migrateElements(submodel.getIdentification().getId(), "", submodel.getSubmodelElements(), result);
+		}
+		result.remainingLegacyFiles = countLegacyFiles();
+
+		Document marker = new Document(ID, FILE_NAME_SCHEMA).append(VERSION, CURRENT_FILE_NAME_VERSION).append(MIGRATED_AT, new Date());
+		schemaCollection.replaceOne(Filters.eq(ID, FILE_NAME_SCHEMA), marker, new ReplaceOptions().upsert(true));
+		migrationStates.put(getStateKey(config), true);
+
+		logger.info("Migrated the file names of '{}' in {} ms: {}", config.getFileCollection(), System.currentTimeMillis() - start, result);
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void migrateElements(String submodelId, String pathPrefix, Map<String, ISubmodelElement> elements, Result result) {
+		for (Map.Entry<String, ISubmodelElement> entry : elements.entrySet()) {
+			Map<String, Object> element = (Map<String, Object>) entry.getValue();
+			String idShortPath = pathPrefix.isEmpty() ? entry.getKey() : pathPrefix + "/" + entry.getKey();
+			if (File.isFile(element)) {
+				migrateFile(submodelId, File.createAsFacade(element), idShortPath, result);
+			} else if (SubmodelElementCollection.isSubmodelElementCollection(element)) {
+				migrateElements(submodelId, idShortPath, SubmodelElementCollection.createAsFacade(element).getSubmodelElements(), result);
+			}
+		}
+	}
+
+	/**
+	 * Renames the newest legacy file, if there is no file with the current name.
+	 * The other legacy files are deleted, since they are never read.
+	 */
+	private void migrateFile(String submodelId, File file, String idShortPath, Result result) {
+		String fileName = MongoDBFileHelper.constructFileName(submodelId, file, idShortPath);
+		String legacyFileName = MongoDBFileHelper.legacyFileName(submodelId, file, idShortPath);
+
+		boolean hasCurrentFile = false;
+		List<GridFSFile> legacyFiles = new ArrayList<>();
+		for (GridFSFile gridFile : bucket.find(Filters.in(FILENAME, fileName, legacyFileName)).sort(Sorts.descending("uploadDate"))) {
+			if (gridFile.getFilename().equals(fileName)) {
+				hasCurrentFile = true;
+			} else {
+				legacyFiles.add(gridFile);
+			}
+		}
+
+		for (GridFSFile legacyFile : legacyFiles) {
+			if (!hasCurrentFile) {
+				bucket.rename(legacyFile.getObjectId(), fileName);
+				hasCurrentFile = true;
+				result.renamedFiles++;
+			} else {
+				bucket.delete(legacyFile.getObjectId());
+				MongoDBFileCache.invalidateEverywhere(legacyFile.getObjectId());
+				result.deletedDuplicates++;
+			}
+		}
+	}
+
+	/**
+	 * Counts the files that do not follow the current naming scheme, i.e. files
+	 * whose element does not exist anymore
+	 */
+	private long countLegacyFiles() {
+		return filesCollection.countDocuments(Filters.not(Filters.regex(FILENAME, Pattern.compile("^#"))));
+	}
+
+	private static boolean readMarker(MongoCollection<Document> schemaCollection) {
+		Document marker = schemaCollection.find(Filters.eq(ID, FILE_NAME_SCHEMA)).first();
+		return marker != null && marker.getInteger(VERSION, 0) >= CURRENT_FILE_NAME_VERSION;
+	}
+
+	private static MongoCollection<Document> getSchemaCollection(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return client.getDatabase(config.getDatabase()).getCollection(config.getFileCollection() + SCHEMA_SUFFIX);
+	}
+
+	private static String getStateKey(BaSyxMongoDBConfiguration config) {
+		return config.getConnectionUrl() + "/" + config.getDatabase() + "/" + config.getFileCollection();
+	}
+
+	/**
+	 * Counts of a file name migration
+	 */
+	public static class Result {
+		private long renamedFiles;
+		private long deletedDuplicates;
+		private long remainingLegacyFiles;
+
+		/**
+		 * Returns the number of legacy files renamed to the current scheme
+		 */
+		public long getRenamedFiles() {
+			return renamedFiles;
+		}
+
+		/**
+		 * Returns the number of legacy files deleted, since a file with the current
+		 * name or a newer legacy file existed for the same element
+		 */
+		public long getDeletedDuplicates() {
+			return deletedDuplicates;
+		}
+
+		/**
+		 * Returns the number of files still named by the legacy scheme, since no
+		 * element refers to them
+		 */
+		public long getRemainingLegacyFiles() {
+			return remainingLegacyFiles;
+		}
+
+		@Override
+		public String toString() {
+			return "renamed=" + renamedFiles + ", deletedDuplicates=" + deletedDuplicates + ", remainingLegacyFiles=" + remainingLegacyFiles;
+		}
+	}
+}
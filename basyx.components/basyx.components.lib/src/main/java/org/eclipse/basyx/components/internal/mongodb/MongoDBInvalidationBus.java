@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process bus distributing the changes observed by the
+ * {@link MongoDBChangeStreamListener} to local caches. There is one bus per
+ * database, which is shared by all components of the process.
+ * 
+ * Subscribers are called on the listener's thread in the order of the changes,
+ * so they should only invalidate entries instead of reloading them.
+ */
+public class MongoDBInvalidationBus {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBInvalidationBus.class);
+
+	private static final Map<String, MongoDBInvalidationBus> buses = new HashMap<>();
+
+	private final List<Consumer<MongoDBInvalidationEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Returns the bus of the configured database
+	 * 
+	 * @param config
+	 * @return the shared bus of the database
+	 */
+	public static synchronized MongoDBInvalidationBus get(BaSyxMongoDBConfiguration config) {
+		return buses.computeIfAbsent(config.getConnectionUrl() + "/" + config.getDatabase(), key -> new MongoDBInvalidationBus());
+	}
+
+	public void subscribe(Consumer<MongoDBInvalidationEvent> subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	public void unsubscribe(Consumer<MongoDBInvalidationEvent> subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	/**
+	 * Passes the event to all subscribers. A failing subscriber does not prevent
+	 * the others from being notified.
+	 * 
+	 * @param event
+	 */
+	public void publish(MongoDBInvalidationEvent event) {
+		for (Consumer<MongoDBInvalidationEvent> subscriber : subscribers) {
+			try {
+				subscriber.accept(event);
+			} catch (RuntimeException e) {
+				logger.warn("Subscriber failed to handle {}", event, e);
+			}
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import org.bson.Document;
+
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Describes a change of a watched collection, which may have been made by any
+ * server instance. Either a single document or the whole collection is
+ * affected.
+ */
+public class MongoDBInvalidationEvent {
+	private final String collectionName;
+	private final OperationType operationType;
+	private final Object documentId;
+	private final String key;
+	private final Document document;
+
+	/**
+	 * @param collectionName
+	 * @param operationType
+	 * @param documentId
+	 *            the <i>_id</i> of the changed document or null, if the whole
+	 *            collection is affected
+	 * @param key
+	 *            the identification id of the changed object, if known
+	 * @param document
+	 *            the changed document as far as it is watched or null, e.g. on
+	 *            deletions
+	 */
+	public MongoDBInvalidationEvent(String collectionName, OperationType operationType, Object documentId, String key, Document document) {
+		this.collectionName = collectionName;
+		this.operationType = operationType;
+		this.documentId = documentId;
+		this.key = key;
+		this.document = document;
+	}
+
+	/**
+	 * Creates an event affecting all documents of the collection, e.g. after it
+	 * has been dropped or changes may have been missed
+	 */
+	public static MongoDBInvalidationEvent forCollection(String collectionName, OperationType operationType) {
+		return new MongoDBInvalidationEvent(collectionName, operationType, null, null, null);
+	}
+
+	public String getCollectionName() {
+		return collectionName;
+	}
+
+	public OperationType getOperationType() {
+		return operationType;
+	}
+
+	public Object getDocumentId() {
+		return documentId;
+	}
+
+	/**
+	 * Returns the identification id of the changed object or null, if it is not
+	 * known, e.g. for deletions
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	public Document getDocument() {
+		return document;
+	}
+
+	public boolean isCollectionInvalidated() {
+		return documentId == null;
+	}
+
+	@Override
+	public String toString() {
+		return operationType + " of " + (isCollectionInvalidated() ? "collection " : documentId + " in ") + collectionName;
+	}
+}
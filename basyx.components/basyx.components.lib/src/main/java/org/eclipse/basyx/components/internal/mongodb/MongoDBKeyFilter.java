@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counting Bloom filter of the identification ids stored in a collection. It
+ * answers whether an id might exist, without false negatives as long as all
+ * writes of the collection are reported to it. Deleted ids are removed again,
+ * so that the share of false positives does not grow with deletions.
+ * 
+ * Until the ids have been loaded by {@link #rebuild(Iterable)}, every id might
+ * exist. Ids added during a rebuild are kept.
+ */
+public class MongoDBKeyFilter {
+	private static final int MAX_COUNT = 0xFF;
+
+	private final int size;
+	private final int hashCount;
+
+	private byte[] counters;
+	private boolean isLoaded = false;
+	// Ids added while the filter is rebuilt, null if no rebuild is running
+	private Set<String> addedDuringRebuild;
+
+	/**
+	 * @param expectedKeys
+	 *            the number of ids, for which the filter is sized
+	 * @param falsePositiveRate
+	 *            the share of absent ids reported as possibly existing at the
+	 *            expected number of ids
+	 */
+	public MongoDBKeyFilter(int expectedKeys, double falsePositiveRate) {
+		int keys = Math.max(1, expectedKeys);
+		double rate = Math.min(Math.max(falsePositiveRate, Double.MIN_NORMAL), 0.5);
+		this.size = (int) Math.min(Integer.MAX_VALUE - 8, Math.ceil(-keys * Math.log(rate) / (Math.log(2) * Math.log(2))));
+		this.hashCount = Math.max(1, (int) Math.round((double) size / keys * Math.log(2)));
+		this.counters = new byte[size];
+	}
+
+	/**
+	 * Returns false, if the id definitely does not exist
+	 */
+	public synchronized boolean mightContain(String key) {
+		if (!isLoaded) {
+			return true;
+		}
+		return containsAll(counters, key);
+	}
+
+	public synchronized void add(String key) {
+		increment(counters, key);
+		if (addedDuringRebuild != null) {
+			addedDuringRebuild.add(key);
+		}
+	}
+
+	/**
+	 * Removes an id, which has been added before. Ids that are not contained are
+	 * ignored, as removing them could hide other ids.
+	 */
+	public synchronized void remove(String key) {
+		if (!containsAll(counters, key)) {
+			return;
+		}
+		for (int index : getIndexes(key)) {
+			int count = counters[index] & MAX_COUNT;
+			// Saturated counters do not know their count anymore
+			if (count != MAX_COUNT) {
+				counters[index] = (byte) (count - 1);
+			}
+		}
+	}
+
+	/**
+	 * Removes all ids, e.g. after the collection has been dropped
+	 */
+	public synchronized void clear() {
+		counters = new byte[size];
+		if (addedDuringRebuild != null) {
+			addedDuringRebuild.clear();
+		}
+	}
+
+	/**
+	 * Replaces the ids of the filter with the given ids. Meanwhile, every id
+	 * might exist.
+	 * 
+	 * @param keys
+	 *            the ids stored in the collection
+	 */
+	public void rebuild(Iterable<String> keys) {
+		synchronized (this) {
+			isLoaded = false;
+			addedDuringRebuild = new HashSet<>();
+		}
+		byte[] rebuilt = new byte[size];
+		try {
+			for (String key : keys) {
+				increment(rebuilt, key);
+			}
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				addedDuringRebuild = null;
+			}
+			throw e;
+		}
+		synchronized (this) {
+			for (String key : addedDuringRebuild) {
+				increment(rebuilt, key);
+			}
+			counters = rebuilt;
+			addedDuringRebuild = null;
+			isLoaded = true;
+		}
+	}
+
+	public synchronized boolean isLoaded() {
+		return isLoaded;
+	}
+
+	private boolean containsAll(byte[] target, String key) {
+		for (int index : getIndexes(key)) {
+			if (target[index] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void increment(byte[] target, String key) {
+		for (int index : getIndexes(key)) {
+			int count = target[index] & MAX_COUNT;
+			if (count != MAX_COUNT) {
+				target[index] = (byte) (count + 1);
+			}
+		}
+	}
+
+	/**
+	 * Derives the counter indexes of the id from two halves of a 64-bit FNV-1a
+	 * hash, see Kirsch and Mitzenmacher
+	 */
+	private int[] getIndexes(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		int first = (int) hash;
+		int second = (int) (hash >>> 32);
+		int[] indexes = new int[hashCount];
+		for (int i = 0; i < hashCount; i++) {
+			indexes[i] = Math.floorMod(first + i * second, size);
+		}
+		return indexes;
+	}
+}
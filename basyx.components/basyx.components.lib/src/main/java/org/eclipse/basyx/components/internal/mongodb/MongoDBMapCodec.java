@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes and decodes the map based BaSyx model, e.g. shells and submodels,
+ * without Spring's reflective mapping. Nested maps and collections are written
+ * as embedded documents and arrays and read back as {@link LinkedHashMap} and
+ * {@link ArrayList}, i.e. the same way as by Spring's MongoTemplate, so that
+ * both can read the documents of the other.
+ * 
+ * Values are written as by Spring, e.g. big numbers and enums as strings.
+ * Other values are written by the codecs of the registry. Spring's type hints
+ * are skipped when reading.
+ *
+ * @param <T>
+ *            the map type of the top-level documents
+ */
+public class MongoDBMapCodec<T extends Map<String, Object>> implements Codec<T> {
+	private static final String TYPE_HINT = "_class";
+
+	private final Class<T> type;
+	private final CodecRegistry registry;
+	private final BsonValueCodec bsonValueCodec = new BsonValueCodec();
+	private volatile Constructor<T> constructor;
+
+	/**
+	 * @param type
+	 *            the map type, which needs a constructor without parameters to be
+	 *            decoded
+	 * @param registry
+	 *            provides the codecs of values not known to this codec
+	 */
+	public MongoDBMapCodec(Class<T> type, CodecRegistry registry) {
+		this.type = type;
+		this.registry = registry;
+	}
+
+	@Override
+	public Class<T> getEncoderClass() {
+		return type;
+	}
+
+	@Override
+	public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+		writeMap(writer, value, encoderContext);
+	}
+
+	@Override
+	public T decode(BsonReader reader, DecoderContext decoderContext) {
+		return readMap(reader, decoderContext, newInstance());
+	}
+
+	private void writeMap(BsonWriter writer, Map<?, ?> map, EncoderContext encoderContext) {
+		writer.writeStartDocument();
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			writer.writeName(String.valueOf(entry.getKey()));
+			writeValue(writer, entry.getValue(), encoderContext);
+		}
+		writer.writeEndDocument();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void writeValue(BsonWriter writer, Object value, EncoderContext encoderContext) {
+		if (value == null) {
+			writer.writeNull();
+		} else if (value instanceof String) {
+			writer.writeString((String) value);
+		} else if (value instanceof Map) {
+			writeMap(writer, (Map<?, ?>) value, encoderContext);
+		} else if (value instanceof Collection) {
+			writeArray(writer, (Collection<?>) value, encoderContext);
+		} else if (value instanceof Boolean) {
+			writer.writeBoolean((Boolean) value);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			writer.writeInt32(((Number) value).intValue());
+		} else if (value instanceof Long) {
+			writer.writeInt64((Long) value);
+		} else if (value instanceof Double || value instanceof Float) {
+			writer.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof BigDecimal || value instanceof BigInteger || value instanceof Character) {
+			writer.writeString(value.toString());
+		} else if (value instanceof Enum) {
+			writer.writeString(((Enum<?>) value).name());
+		} else if (value instanceof Date) {
+			writer.writeDateTime(((Date) value).getTime());
+		} else if (value instanceof ObjectId) {
+			writer.writeObjectId((ObjectId) value);
+		} else if (value instanceof Object[]) {
+			writeArray(writer, Arrays.asList((Object[]) value), encoderContext);
+		} else {
+			Codec codec = registry.get(value.getClass());
+			encoderContext.encodeWithChildContext(codec, writer, value);
+		}
+	}
+
+	private void writeArray(BsonWriter writer, Collection<?> values, EncoderContext encoderContext) {
+		writer.writeStartArray();
+		for (Object value : values) {
+			writeValue(writer, value, encoderContext);
+		}
+		writer.writeEndArray();
+	}
+
+	private <M extends Map<String, Object>> M readMap(BsonReader reader, DecoderContext decoderContext, M map) {
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			String name = reader.readName();
+			if (TYPE_HINT.equals(name)) {
+				reader.skipValue();
+			} else {
+				map.put(name, readValue(reader, decoderContext));
+			}
+		}
+		reader.readEndDocument();
+		return map;
+	}
+
+	private Object readValue(BsonReader reader, DecoderContext decoderContext) {
+		switch (reader.getCurrentBsonType()) {
+		case DOCUMENT:
+			return readMap(reader, decoderContext, new LinkedHashMap<>());
+		case ARRAY:
+			return readArray(reader, decoderContext);
+		case STRING:
+			return reader.readString();
+		case INT32:
+			return reader.readInt32();
+		case INT64:
+			return reader.readInt64();
+		case DOUBLE:
+			return reader.readDouble();
+		case BOOLEAN:
+			return reader.readBoolean();
+		case DATE_TIME:
+			return new Date(reader.readDateTime());
+		case OBJECT_ID:
+			return reader.readObjectId();
+		case DECIMAL128:
+			Decimal128 decimal = reader.readDecimal128();
+			return decimal.bigDecimalValue();
+		case BINARY:
+			return reader.readBinaryData().getData();
+		case NULL:
+			reader.readNull();
+			return null;
+		default:
+			return bsonValueCodec.decode(reader, decoderContext);
+		}
+	}
+
+	private List<Object> readArray(BsonReader reader, DecoderContext decoderContext) {
+		List<Object> values = new ArrayList<>();
+		reader.readStartArray();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			values.add(readValue(reader, decoderContext));
+		}
+		reader.readEndArray();
+		return values;
+	}
+
+	private T newInstance() {
+		try {
+			if (constructor == null) {
+				Constructor<T> declared = type.getDeclaredConstructor();
+				declared.setAccessible(true);
+				constructor = declared;
+			}
+			return constructor.newInstance();
+		} catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new CodecConfigurationException("Can not instantiate " + type.getName() + " to decode it", e);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.Map;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import com.mongodb.MongoClientSettings;
+
+/**
+ * Provides {@link MongoDBMapCodec}s for all map types except the BSON documents
+ * of the driver, i.e. for the top-level objects of the BaSyx model as well as
+ * for their elements nested into a {@link org.bson.Document}.
+ */
+public class MongoDBMapCodecProvider implements CodecProvider {
+
+	/**
+	 * Creates a registry preferring the map codecs over the driver's defaults
+	 * 
+	 * @return the registry
+	 */
+	public static CodecRegistry createCodecRegistry() {
+		return CodecRegistries.fromRegistries(CodecRegistries.fromProviders(new MongoDBMapCodecProvider()), MongoClientSettings.getDefaultCodecRegistry());
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+		if (!Map.class.isAssignableFrom(clazz) || Bson.class.isAssignableFrom(clazz)) {
+			return null;
+		}
+		return new MongoDBMapCodec(clazz, registry);
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+/**
+ * A file stored in GridFS that can be streamed without downloading it as a
+ * whole. The content is read in chunks from the database while it is copied.
+ */
+public class MongoDBStoredFile {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final GridFSBucket bucket;
+	private final GridFSFile gridFile;
+	private final String contentType;
+	private final MongoDBFileCache cache;
+
+	public MongoDBStoredFile(GridFSBucket bucket, GridFSFile gridFile, String contentType) {
+		this(bucket, gridFile, contentType, null);
+	}
+
+	/**
+	 * @param bucket
+	 * @param gridFile
+	 * @param contentType
+	 * @param cache
+	 *            local disk cache used for copying the content, null for always
+	 *            reading from GridFS
+	 */
+	public MongoDBStoredFile(GridFSBucket bucket, GridFSFile gridFile, String contentType, MongoDBFileCache cache) {
+		this.bucket = bucket;
+		this.gridFile = gridFile;
+		this.contentType = contentType;
+		this.cache = cache;
+	}
+
+	public ObjectId getObjectId() {
+		return gridFile.getObjectId();
+	}
+
+	public String getFileName() {
+		return gridFile.getFilename();
+	}
+
+	/**
+	 * Returns the mime type of the File submodel element
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	public long getLength() {
+		return gridFile.getLength();
+	}
+
+	public Date getUploadDate() {
+		return gridFile.getUploadDate();
+	}
+
+	/**
+	 * Opens a stream of the whole content. The caller has to close it.
+	 */
+	public InputStream openStream() {
+		return bucket.openDownloadStream(gridFile.getObjectId());
+	}
+
+	/**
+	 * Opens a stream starting at the given offset. Skipped chunks are not loaded
+	 * from the database. The caller has to close it.
+	 * 
+	 * @param offset
+	 * @return the stream positioned at the offset
+	 */
+	public InputStream openStream(long offset) {
+		GridFSDownloadStream stream = bucket.openDownloadStream(gridFile.getObjectId());
+		long skipped = 0;
+		while (skipped < offset) {
+			long skippedNow = stream.skip(offset - skipped);
+			if (skippedNow <= 0) {
+				break;
+			}
+			skipped += skippedNow;
+		}
+		return stream;
+	}
+
+	/**
+	 * Copies the given range of the content to the output stream. If there is a
+	 * file cache, the content is served from its local copy.
+	 * 
+	 * @param out
+	 * @param offset
+	 *            the first byte to copy
+	 * @param length
+	 *            the number of bytes to copy
+	 * @throws IOException
+	 */
+	public void copyTo(OutputStream out, long offset, long length) throws IOException {
+		if (cache != null) {
+			cache.copyTo(this, out, offset, length);
+		} else {
+			copyFromDatabase(out, offset, length);
+		}
+	}
+
+	/**
+	 * Copies the given range of the content from GridFS to the output stream
+	 */
+	void copyFromDatabase(OutputStream out, long offset, long length) throws IOException {
+		try (InputStream in = openStream(offset)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length;
+			while (remaining > 0) {
+				int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					break;
+				}
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+
+	/**
+	 * Copies the whole content to the output stream
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void copyTo(OutputStream out) throws IOException {
+		copyTo(out, 0, getLength());
+	}
+}
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.conversions.Bson;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.modeltype.ModelType;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Stores the values of the leaf submodel elements apart from the submodel
+ * documents. Each value is a small document of the value collection, keyed by
+ * the submodel id and the idShort path of its element, e.g. <i>a/b</i> for
+ * the element <i>b</i> of the collection <i>a</i>. The elements within the
+ * submodel document keep all attributes except their value.
+ * 
+ * Values are split off before a submodel or element is written and merged into
+ * the elements after reading. Values of elements that do not exist in the
+ * submodel document are ignored, so that a value written concurrently to the
+ * deletion of its element does not reappear.
+ * 
+ * The submodel document is always written before the values, and a value is
+ * never written without changing the version of the submodel document. Both
+ * writes are not atomic, see {@link MongoDBBaSyxStorageAPI#setSplitValue}.
+ */
+public class MongoDBSubmodelValueStore {
+	public static final String SUBMODEL_ID = "submodelId";
+	public static final String ID_SHORT_PATH = "idShortPath";
+	public static final String VALUE = "value";
+
+	private static final String PATH_SEPARATOR = "/";
+	private static final String ELEMENTS_FIELD_PREFIX = Submodel.SUBMODELELEMENT + ".";
+	private static final String VALUE_FIELD_SEPARATOR = "." + Property.VALUE + ".";
+
+	private final String collectionName;
+	private final MongoCollection<StoredValue> collection;
+
+	public MongoDBSubmodelValueStore(MongoDatabase database, String collectionName) {
+		this.collectionName = collectionName;
+		this.collection = database.getCollection(collectionName, StoredValue.class).withCodecRegistry(MongoDBMapCodecProvider.createCodecRegistry());
+	}
+
+	public String getCollectionName() {
+		return collectionName;
+	}
+
+	/**
+	 * Translates a (dotted) document field path of a submodel to the idShort path
+	 * of the addressed element, e.g. <i>submodelElements.a.value.b</i> to
+	 * <i>a/b</i>
+	 * 
+	 * @param fieldPath
+	 * @return the idShort path, an empty path for all elements or null, if the
+	 *         field does not address an element
+	 */
+	public static String toIdShortPath(String fieldPath) {
+		if (fieldPath.equals(Submodel.SUBMODELELEMENT)) {
+			return "";
+		}
+		if (!fieldPath.startsWith(ELEMENTS_FIELD_PREFIX)) {
+			return null;
+		}
+		String[] idShorts = fieldPath.substring(ELEMENTS_FIELD_PREFIX.length()).split(VALUE_FIELD_SEPARATOR, -1);
+		for (String idShort : idShorts) {
+			if (idShort.isEmpty() || idShort.contains(".")) {
+				return null;
+			}
+		}
+		return String.join(PATH_SEPARATOR, idShorts);
+	}
+
+	/**
+	 * Returns whether the value of the element is stored in the value collection,
+	 * i.e. whether it has a value, which is not a collection of elements
+	 * 
+	 * @param element
+	 * @return true for leaf elements
+	 */
+	public static boolean isLeaf(Map<?, ?> element) {
+		return !isCollection(element) && element.containsKey(Property.VALUE);
+	}
+
+	private static boolean isCollection(Map<?, ?> element) {
+		Object modelType = element.get(ModelType.MODELTYPE);
+		return modelType instanceof Map && SubmodelElementCollection.MODELTYPE.equals(((Map<?, ?>) modelType).get(ModelType.NAME));
+	}
+
+	/**
+	 * Removes the values of all leaf elements of the submodel document. The
+	 * elements are copied before, so that the given objects are not modified.
+	 * 
+	 * @param document
+	 * @return the removed values by idShort path
+	 */
+	public static Map<String, Object> splitDocument(Map<String, Object> document) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		if (document.containsKey(Submodel.SUBMODELELEMENT)) {
+			document.put(Submodel.SUBMODELELEMENT, split("", document.get(Submodel.SUBMODELELEMENT), values));
+		}
+		return values;
+	}
+
+	/**
+	 * Removes the values of the leaf elements of an element written to the
+	 * given idShort path
+	 * 
+	 * @param idShortPath
+	 *            the path of the element or an empty path for all elements
+	 * @param element
+	 *            the element or the map of all elements
+	 * @param values
+	 *            receives the removed values by idShort path
+	 * @return a copy of the element without the values
+	 */
+	public static Object split(String idShortPath, Object element, Map<String, Object> values) {
+		return idShortPath.isEmpty() ? splitElements("", element, values) : splitElement(idShortPath, element, values);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object splitElements(String parentPath, Object elements, Map<String, Object> values) {
+		if (!(elements instanceof Map)) {
+			// Elements stored as list can not be addressed by their idShort path
+			return elements;
+		}
+		Map<String, Object> copy = new LinkedHashMap<>();
+		((Map<String, Object>) elements).forEach((idShort, element) -> copy.put(idShort, splitElement(parentPath + idShort, element, values)));
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object splitElement(String idShortPath, Object element, Map<String, Object> values) {
+		if (!(element instanceof Map)) {
+			return element;
+		}
+		Map<String, Object> copy = new LinkedHashMap<>((Map<String, Object>) element);
+		if (isCollection(copy)) {
+			copy.put(Property.VALUE, splitElements(idShortPath + PATH_SEPARATOR, copy.get(Property.VALUE), values));
+		} else if (copy.containsKey(Property.VALUE)) {
+			values.put(idShortPath, copy.remove(Property.VALUE));
+		}
+		return copy;
+	}
+
+	/**
+	 * Puts the values into the elements of the submodel object
+	 * 
+	 * @param object
+	 *            the (partially) loaded submodel
+	 * @param values
+	 *            the values by idShort path
+	 */
+	@SuppressWarnings("unchecked")
+	public static void mergeValues(Map<String, Object> object, Map<String, Object> values) {
+		values.forEach((idShortPath, value) -> {
+			Object elements = object.get(Submodel.SUBMODELELEMENT);
+			Map<String, Object> element = null;
+			for (String idShort : idShortPath.split(PATH_SEPARATOR)) {
+				if (!(elements instanceof Map) || !(((Map<String, Object>) elements).get(idShort) instanceof Map)) {
+					return;
+				}
+				element = (Map<String, Object>) ((Map<String, Object>) elements).get(idShort);
+				elements = element.get(Property.VALUE);
+			}
+			element.put(Property.VALUE, value);
+		});
+	}
+
+	/**
+	 * Finds the values of the given submodels
+	 * 
+	 * @param submodelIds
+	 * @param idShortPaths
+	 *            restricts the values to the elements at and below the given
+	 *            paths or null for all values
+	 * @return the values by idShort path by submodel id
+	 */
+	public Map<String, Map<String, Object>> findValues(Collection<String> submodelIds, Collection<String> idShortPaths) {
+		Bson filter = Filters.in(SUBMODEL_ID, submodelIds);
+		if (idShortPaths != null) {
+			List<Bson> belowPaths = new ArrayList<>();
+			idShortPaths.forEach(idShortPath -> belowPaths.add(isBelow(idShortPath)));
+			filter = Filters.and(filter, Filters.or(belowPaths));
+		}
+		Map<String, Map<String, Object>> values = new HashMap<>();
+		for (StoredValue stored : collection.find(filter)) {
+			values.computeIfAbsent((String) stored.get(SUBMODEL_ID), id -> new LinkedHashMap<>()).put((String) stored.get(ID_SHORT_PATH), stored.get(VALUE));
+		}
+		return values;
+	}
+
+	/**
+	 * Replaces the values of the element at the given path and all elements below
+	 * it. Values of elements, which are not part of the given values, are
+	 * deleted.
+	 * 
+	 * @param submodelId
+	 * @param idShortPath
+	 *            the path of the element or an empty path for the whole submodel
+	 * @param values
+	 *            the new values by idShort path
+	 * @param writeConcern
+	 *            the write concern of the submodel or null for the client's
+	 */
+	public void replaceValues(String submodelId, String idShortPath, Map<String, Object> values, WriteConcern writeConcern) {
+		MongoCollection<StoredValue> target = getCollection(writeConcern);
+		if (!values.isEmpty()) {
+			List<WriteModel<StoredValue>> writes = new ArrayList<>(values.size());
+			ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+			values.forEach((path, value) -> writes.add(new ReplaceOneModel<>(hasPath(submodelId, path), new StoredValue(submodelId, path, value), upsert)));
+			target.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+		}
+		target.deleteMany(Filters.and(Filters.eq(SUBMODEL_ID, submodelId), isBelow(idShortPath), Filters.nin(ID_SHORT_PATH, values.keySet())));
+	}
+
+	/**
+	 * Writes the value of a single leaf element
+	 * 
+	 * @param submodelId
+	 * @param idShortPath
+	 * @param value
+	 * @param writeConcern
+	 *            the write concern of the submodel or null for the client's
+	 */
+	public void setValue(String submodelId, String idShortPath, Object value, WriteConcern writeConcern) {
+		getCollection(writeConcern).replaceOne(hasPath(submodelId, idShortPath), new StoredValue(submodelId, idShortPath, value), new ReplaceOptions().upsert(true));
+	}
+
+	/**
+	 * Drops the value collection
+	 */
+	public void drop() {
+		collection.drop();
+	}
+
+	private MongoCollection<StoredValue> getCollection(WriteConcern writeConcern) {
+		return writeConcern == null ? collection : collection.withWriteConcern(writeConcern);
+	}
+
+	private static Bson hasPath(String submodelId, String idShortPath) {
+		return Filters.and(Filters.eq(SUBMODEL_ID, submodelId), Filters.eq(ID_SHORT_PATH, idShortPath));
+	}
+
+	/**
+	 * Matches the values at and below the idShort path. The regular expression
+	 * is anchored, so that it can use the index.
+	 */
+	private static Bson isBelow(String idShortPath) {
+		if (idShortPath.isEmpty()) {
+			return Filters.exists(ID_SHORT_PATH);
+		}
+		String escapedPrefix = (idShortPath + PATH_SEPARATOR).replaceAll("[^A-Za-z0-9_/-]", "\\\\$0");
+		return Filters.or(Filters.eq(ID_SHORT_PATH, idShortPath), Filters.regex(ID_SHORT_PATH, "^" + escapedPrefix));
+	}
+
+	/**
+	 * Document of the value collection, encoded by the {@link MongoDBMapCodec} the
+	 * same way as the value within a submodel document
+	 */
+	static class StoredValue extends LinkedHashMap<String, Object> {
+		private static final long serialVersionUID = 1L;
+
+		StoredValue() {
+		}
+
+		StoredValue(String submodelId, String idShortPath, Object value) {
+			put(SUBMODEL_ID, submodelId);
+			put(ID_SHORT_PATH, idShortPath);
+			put(VALUE, value);
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Buffers field updates of a collection and writes them in batches. Updates of
+ * the same field of an object within the configured window are coalesced to
+ * the latest value. A background thread writes the pending updates of each
+ * window with a single ordered <i>bulkWrite</i> per write concern of the
+ * updated objects.
+ * 
+ * Updates of overlapping fields, e.g. of a collection and one of its elements,
+ * are not coalesced; the pending updates of the object are written first. If
+ * the configured number of pending updates is reached, the updating thread
+ * writes the buffer itself, which throttles producers to the database's pace.
+ * 
+ * There is one buffer per collection and client, which is owned by the
+ * {@link MongoDBCollectionState} and shared by the storage APIs of the client.
+ * Pending updates are lost if the process terminates without {@link #close()}.
+ */
+public class MongoDBWriteBehindBuffer {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBWriteBehindBuffer.class);
+
+	private static final String INDEX_KEY = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+
+	private final MongoOperations mongoOps;
+	private final String collectionName;
+	private final Function<String, WriteConcern> writeConcernResolver;
+	private final int maxPending;
+	private final ScheduledExecutorService flusher;
+	private volatile boolean closed = false;
+
+	// Pending values by object key and (dotted) field path, in the order of their last update
+	private Map<String, LinkedHashMap<String, Object>> pending = new LinkedHashMap<>();
+	private int pendingCount = 0;
+
+	// Held while writing, so that a flush waits for updates which are already being written
+	private final Object flushLock = new Object();
+
+	MongoDBWriteBehindBuffer(MongoOperations mongoOps, String collectionName, Function<String, WriteConcern> writeConcernResolver, long windowMillis, int maxPending) {
+		this.mongoOps = mongoOps;
+		this.collectionName = collectionName;
+		this.writeConcernResolver = writeConcernResolver;
+		this.maxPending = maxPending;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "mongodb-write-behind-" + collectionName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushInBackground, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Buffers the value of the field. A pending value of the same field is
+	 * replaced.
+	 * 
+	 * @param key
+	 *            the identification id of the object
+	 * @param fieldPath
+	 * @param value
+	 */
+	public void set(String key, String fieldPath, Object value) {
+		Object mongoValue = mongoOps.getConverter().convertToMongoType(value);
+		while (true) {
+			boolean overlaps;
+			synchronized (this) {
+				LinkedHashMap<String, Object> objectPending = pending.get(key);
+				overlaps = objectPending != null && hasOverlappingField(objectPending, fieldPath, false);
+				boolean isFull = pendingCount >= maxPending && (objectPending == null || !objectPending.containsKey(fieldPath));
+				if (!overlaps && !isFull) {
+					put(key, fieldPath, mongoValue);
+					break;
+				}
+			}
+			if (overlaps) {
+				flush(key);
+			} else {
+				flush();
+			}
+		}
+		if (closed) {
+			// No flusher is left to write the update
+			flush();
+		}
+	}
+
+	/**
+	 * Returns a copy of the pending value of the field
+	 * 
+	 * @param key
+	 * @param fieldPath
+	 * @return the value or null, if no update of the field is pending
+	 */
+	public synchronized Object getPending(String key, String fieldPath) {
+		LinkedHashMap<String, Object> objectPending = pending.get(key);
+		if (objectPending == null) {
+			return null;
+		}
+		return copy(objectPending.get(fieldPath));
+	}
+
+	/**
+	 * Returns whether the buffer has been closed. Updates are written immediately
+	 * afterwards.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public synchronized int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * Writes the pending updates of the object, if one of them overlaps one of
+	 * the given fields, e.g. before these fields are read from the database
+	 * 
+	 * @param key
+	 * @param fieldPaths
+	 */
+	public void flushOverlapping(String key, String... fieldPaths) {
+		synchronized (flushLock) {
+			Map<String, LinkedHashMap<String, Object>> batch;
+			synchronized (this) {
+				LinkedHashMap<String, Object> objectPending = pending.get(key);
+				if (objectPending == null || !hasOverlappingField(objectPending, fieldPaths)) {
+					return;
+				}
+				batch = new HashMap<>();
+				batch.put(key, pending.remove(key));
+				pendingCount -= objectPending.size();
+			}
+			writeOrRequeue(batch);
+		}
+	}
+
+	/**
+	 * Writes all pending updates of the object
+	 * 
+	 * @param key
+	 */
+	public void flush(String key) {
+		synchronized (flushLock) {
+			Map<String, LinkedHashMap<String, Object>> batch;
+			synchronized (this) {
+				LinkedHashMap<String, Object> objectPending = pending.remove(key);
+				if (objectPending == null) {
+					return;
+				}
+				pendingCount -= objectPending.size();
+				batch = new HashMap<>();
+				batch.put(key, objectPending);
+			}
+			writeOrRequeue(batch);
+		}
+	}
+
+	/**
+	 * Writes all pending updates
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			writeOrRequeue(takeAll());
+		}
+	}
+
+	/**
+	 * Writes all pending updates and stops the flusher. Later updates are written
+	 * immediately.
+	 */
+	public void close() {
+		closed = true;
+		flusher.shutdown();
+		flush();
+	}
+
+	/**
+	 * Discards all pending updates, e.g. if the collection is dropped
+	 */
+	public void clear() {
+		synchronized (flushLock) {
+			takeAll();
+		}
+	}
+
+	private void flushInBackground() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			logger.error("Could not write the buffered updates to collection {}, retrying with the next window", collectionName, e);
+		}
+	}
+
+	private void writeOrRequeue(Map<String, LinkedHashMap<String, Object>> batch) {
+		try {
+			write(batch);
+		} catch (RuntimeException e) {
+			requeue(batch);
+			throw e;
+		}
+	}
+
+	private synchronized Map<String, LinkedHashMap<String, Object>> takeAll() {
+		Map<String, LinkedHashMap<String, Object>> batch = pending;
+		pending = new LinkedHashMap<>();
+		pendingCount = 0;
+		return batch;
+	}
+
+	/**
+	 * Puts back updates, which could not be written, unless a newer update of the
+	 * same field is pending meanwhile
+	 */
+	private synchronized void requeue(Map<String, LinkedHashMap<String, Object>> batch) {
+		batch.forEach((key, fields) -> {
+			LinkedHashMap<String, Object> objectPending = pending.computeIfAbsent(key, k -> new LinkedHashMap<>());
+			LinkedHashMap<String, Object> merged = new LinkedHashMap<>(fields);
+			merged.putAll(objectPending);
+			pendingCount += merged.size() - objectPending.size();
+			pending.put(key, merged);
+		});
+	}
+
+	private void write(Map<String, LinkedHashMap<String, Object>> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		// The updates of an object always share its write concern, so grouping keeps their order
+		Map<WriteConcern, List<WriteModel<Document>>> updatesByWriteConcern = new LinkedHashMap<>();
+		batch.forEach((key, fields) -> {
+			WriteConcern writeConcern = writeConcernResolver == null ? null : writeConcernResolver.apply(key);
+			// Pending fields never overlap, so that they can be set by a single update, which also changes the version
+			List<Bson> sets = new ArrayList<>();
+			fields.forEach((fieldPath, value) -> sets.add(Updates.set(fieldPath, value)));
+			sets.add(Updates.set(MongoDBBaSyxStorageAPI.VERSION_KEY, MongoDBBaSyxStorageAPI.newVersion()));
+			updatesByWriteConcern.computeIfAbsent(writeConcern, wc -> new ArrayList<>()).add(new UpdateOneModel<>(Filters.eq(INDEX_KEY, key), Updates.combine(sets)));
+		});
+		updatesByWriteConcern.forEach((writeConcern, updates) -> {
+			MongoCollection<Document> collection = mongoOps.getCollection(collectionName);
+			if (writeConcern != null) {
+				collection = collection.withWriteConcern(writeConcern);
+			}
+			// Ordered, so that a field is never overwritten by an older value
+			collection.bulkWrite(updates, new BulkWriteOptions().ordered(true));
+		});
+	}
+
+	private void put(String key, String fieldPath, Object value) {
+		LinkedHashMap<String, Object> objectPending = pending.computeIfAbsent(key, k -> new LinkedHashMap<>());
+		if (objectPending.remove(fieldPath) == null) {
+			pendingCount++;
+		}
+		objectPending.put(fieldPath, value);
+	}
+
+	private static boolean hasOverlappingField(Map<String, Object> objectPending, String... fieldPaths) {
+		for (String fieldPath : fieldPaths) {
+			if (hasOverlappingField(objectPending, fieldPath, true)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a pending field is the given field, one of its parents or
+	 * one of its children
+	 */
+	private static boolean hasOverlappingField(Map<String, Object> objectPending, String fieldPath, boolean includeSameField) {
+		for (String pendingPath : objectPending.keySet()) {
+			if (pendingPath.equals(fieldPath)) {
+				if (includeSameField) {
+					return true;
+				}
+			} else if (pendingPath.startsWith(fieldPath + ".") || fieldPath.startsWith(pendingPath + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object copy(Object value) {
+		if (value instanceof Map) {
+			Document copy = new Document();
+			((Map<String, Object>) value).forEach((key, child) -> copy.put(key, copy(child)));
+			return copy;
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			((List<Object>) value).forEach(child -> copy.add(copy(child)));
+			return copy;
+		}
+		return value;
+	}
+}
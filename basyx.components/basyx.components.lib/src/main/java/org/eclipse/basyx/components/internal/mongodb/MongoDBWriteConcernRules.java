@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.HasSemantics;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+
+import com.mongodb.WriteConcern;
+
+/**
+ * Maps submodels to durability classes, i.e. write concerns, by their idShort
+ * or semanticId. The rules are given as a semicolon separated list of
+ * <i>attribute:pattern=writeConcern</i>, e.g.
+ * 
+ * <pre>
+ * idShort:OperationalData.*=w1;semanticId:.*nameplate.*=majority
+ * </pre>
+ * 
+ * The attribute is either <i>idShort</i> or <i>semanticId</i>, the pattern a
+ * regular expression matching the whole idShort or any key value of the
+ * semanticId, and the write concern a name like <i>w1</i>, <i>journaled</i>
+ * or <i>majority</i> or the number of acknowledging nodes. The first matching
+ * rule applies. Submodels without a matching rule are written with the client's
+ * write concern.
+ * 
+ * Unacknowledged write concerns are rejected, since the versioned writes of
+ * submodel elements and the updates falling back to a creation rely on the
+ * reported matches.
+ */
+public class MongoDBWriteConcernRules {
+	public static final String IDSHORT_ATTRIBUTE = "idShort";
+	public static final String SEMANTIC_ID_ATTRIBUTE = "semanticId";
+
+	private static final String RULE_SEPARATOR = ";";
+
+	private final List<Rule> rules;
+
+	/**
+	 * Parses the rules
+	 * 
+	 * @param rules
+	 *            the rule list or null
+	 * @return the parsed rules, which are empty if no rule is given
+	 * @throws IllegalArgumentException
+	 *             if a rule is malformed
+	 */
+	public static MongoDBWriteConcernRules parse(String rules) {
+		if (rules == null || rules.trim().isEmpty()) {
+			return new MongoDBWriteConcernRules(Collections.emptyList());
+		}
+		List<Rule> parsed = new ArrayList<>();
+		for (String rule : rules.split(RULE_SEPARATOR)) {
+			if (!rule.trim().isEmpty()) {
+				parsed.add(parseRule(rule.trim()));
+			}
+		}
+		return new MongoDBWriteConcernRules(parsed);
+	}
+
+	private static Rule parseRule(String rule) {
+		int attributeEnd = rule.indexOf(':');
+		int patternEnd = rule.lastIndexOf('=');
+		if (attributeEnd < 0 || patternEnd < attributeEnd) {
+			throw new IllegalArgumentException("Malformed write concern rule '" + rule + "', expected attribute:pattern=writeConcern");
+		}
+		String attribute = rule.substring(0, attributeEnd).trim();
+		if (!attribute.equals(IDSHORT_ATTRIBUTE) && !attribute.equals(SEMANTIC_ID_ATTRIBUTE)) {
+			throw new IllegalArgumentException("Unknown attribute '" + attribute + "' of write concern rule '" + rule + "'");
+		}
+		try {
+			Pattern pattern = Pattern.compile(rule.substring(attributeEnd + 1, patternEnd).trim());
+			WriteConcern writeConcern = MongoDBClientRegistry.parseWriteConcern(rule.substring(patternEnd + 1).trim());
+			if (!writeConcern.isAcknowledged()) {
+				throw new IllegalArgumentException("Unacknowledged write concern of write concern rule '" + rule + "' is not supported");
+			}
+			return new Rule(attribute, pattern, writeConcern);
+		} catch (PatternSyntaxException e) {
+			throw new IllegalArgumentException("Invalid pattern of write concern rule '" + rule + "'", e);
+		}
+	}
+
+	private MongoDBWriteConcernRules(List<Rule> rules) {
+		this.rules = rules;
+	}
+
+	public boolean isEmpty() {
+		return rules.isEmpty();
+	}
+
+	/**
+	 * Returns the write concern of the first rule matching the submodel
+	 * 
+	 * @param submodel
+	 *            the submodel or its stored document
+	 * @return the write concern or null, if the client's write concern applies
+	 */
+	public WriteConcern resolve(Map<String, Object> submodel) {
+		for (Rule rule : rules) {
+			if (rule.matches(submodel)) {
+				return rule.writeConcern;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> getSemanticIdValues(Map<String, Object> submodel) {
+		Object semanticId = submodel.get(HasSemantics.SEMANTICID);
+		if (!(semanticId instanceof Map)) {
+			return Collections.emptyList();
+		}
+		Object keys = ((Map<String, Object>) semanticId).get(Reference.KEY);
+		if (!(keys instanceof Collection)) {
+			return Collections.emptyList();
+		}
+		List<String> values = new ArrayList<>();
+		for (Object key : (Collection<Object>) keys) {
+			if (key instanceof Map && ((Map<String, Object>) key).get(Key.VALUE) instanceof String) {
+				values.add((String) ((Map<String, Object>) key).get(Key.VALUE));
+			}
+		}
+		return values;
+	}
+
+	private static class Rule {
+		private final String attribute;
+		private final Pattern pattern;
+		private final WriteConcern writeConcern;
+
+		private Rule(String attribute, Pattern pattern, WriteConcern writeConcern) {
+			this.attribute = attribute;
+			this.pattern = pattern;
+			this.writeConcern = writeConcern;
+		}
+
+		private boolean matches(Map<String, Object> submodel) {
+			if (attribute.equals(IDSHORT_ATTRIBUTE)) {
+				Object idShort = submodel.get(Referable.IDSHORT);
+				return idShort instanceof String && pattern.matcher((String) idShort).matches();
+			}
+			return getSemanticIdValues(submodel).stream().anyMatch(value -> pattern.matcher(value).matches());
+		}
+	}
+}
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.storage;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+
+/**
+ * Decorates a {@link BaSyxStorageAPI} with a bounded read-through cache of the
+ * objects returned by {@link #retrieve(String)}. If the maximum size is
+ * exceeded, the least recently used object is evicted. Optionally, objects
+ * expire after a time to live.
+ * 
+ * Writes through this decorator invalidate the written key. Changes that
+ * bypass it, e.g. by other server instances, are only noticed after the time
+ * to live or by calling {@link #invalidate(String)}. The decorator does not
+ * subscribe to any change notification itself, e.g. of the MongoDB change
+ * stream, so without a time to live all writes have to go through it.
+ * 
+ * The cached objects are not handed out. Each read returns a copy, so that
+ * callers may modify the returned object without affecting the cache.
+ * 
+ * @param <T>
+ *            the type of the stored objects
+ */
+public class CachingBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
+	private static final Map<Class<?>, Constructor<?>> mapConstructors = new ConcurrentHashMap<>();
+
+	private final BaSyxStorageAPI<T> decorated;
+	private final int maxSize;
+	private final long timeToLiveMillis;
+	private final UnaryOperator<T> copier;
+	private final Map<String, CacheEntry> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	// Incremented on each invalidation, so that objects loaded in between are not cached
+	private long invalidationCount = 0;
+
+	/**
+	 * Creates a cache copying the map structure of the objects on read
+	 * 
+	 * @param decorated
+	 * @param type
+	 *            the type of the stored objects
+	 * @param maxSize
+	 *            maximum number of cached objects, 0 disables caching
+	 * @param timeToLiveMillis
+	 *            time after which a cached object is reloaded, 0 for no
+	 *            expiration
+	 */
+	public CachingBaSyxStorageAPI(BaSyxStorageAPI<T> decorated, Class<T> type, int maxSize, long timeToLiveMillis) {
+		this(decorated, type, maxSize, timeToLiveMillis, CachingBaSyxStorageAPI::copy);
+	}
+
+	/**
+	 * @param decorated
+	 * @param type
+	 *            the type of the stored objects
+	 * @param maxSize
+	 *            maximum number of cached objects, 0 disables caching
+	 * @param timeToLiveMillis
+	 *            time after which a cached object is reloaded, 0 for no
+	 *            expiration
+	 * @param copier
+	 *            creates the copies of the cached objects returned on read
+	 */
+	public CachingBaSyxStorageAPI(BaSyxStorageAPI<T> decorated, Class<T> type, int maxSize, long timeToLiveMillis, UnaryOperator<T> copier) {
+		super(decorated.getCollectionName(), type);
+		this.decorated = decorated;
+		this.maxSize = maxSize;
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.copier = copier;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > CachingBaSyxStorageAPI.this.maxSize;
+			}
+		};
+	}
+
+	public BaSyxStorageAPI<T> getDecorated() {
+		return decorated;
+	}
+
+	@Override
+	public T retrieve(String key) {
+		long invalidationCountBeforeLoad;
+		synchronized (this) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null && !entry.isExpired()) {
+				hits.incrementAndGet();
+				return copier.apply(entry.object);
+			}
+			entries.remove(key);
+			invalidationCountBeforeLoad = invalidationCount;
+		}
+
+		misses.incrementAndGet();
+		T object = decorated.retrieve(key);
+		if (object == null) {
+			return null;
+		}
+
+		synchronized (this) {
+			if (maxSize > 0 && invalidationCountBeforeLoad == invalidationCount) {
+				entries.put(key, new CacheEntry(copier.apply(object)));
+			}
+		}
+		return object;
+	}
+
+	@Override
+	public T rawRetrieve(String key) {
+		return decorated.rawRetrieve(key);
+	}
+
+	@Override
+	public Collection<T> rawRetrieveAll() {
+		return decorated.rawRetrieveAll();
+	}
+
+	@Override
+	public T createOrUpdate(T obj) {
+		try {
+			return decorated.createOrUpdate(obj);
+		} finally {
+			invalidate(getKey(obj));
+		}
+	}
+
+	@Override
+	public T update(T obj, String key) {
+		try {
+			return decorated.update(obj, key);
+		} finally {
+			invalidate(key);
+		}
+	}
+
+	@Override
+	public boolean delete(String key) {
+		try {
+			return decorated.delete(key);
+		} finally {
+			invalidate(key);
+		}
+	}
+
+	@Override
+	public void createCollectionIfNotExists(String collectionName) {
+		decorated.createCollectionIfNotExists(collectionName);
+	}
+
+	@Override
+	public void deleteCollection() {
+		try {
+			decorated.deleteCollection();
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public File getFile(String idShortPath, String parentKey, Map<String, Object> objMap) {
+		return decorated.getFile(idShortPath, parentKey, objMap);
+	}
+
+	@Override
+	public String writeFile(String idShortPath, String parentKey, InputStream fileStream, ISubmodelElement submodelElement) {
+		return decorated.writeFile(idShortPath, parentKey, fileStream, submodelElement);
+	}
+
+	@Override
+	public void deleteFile(Submodel submodel, String idShort) {
+		decorated.deleteFile(submodel, idShort);
+	}
+
+	@Override
+	public Object getStorageConnection() {
+		return decorated.getStorageConnection();
+	}
+
+	/**
+	 * Removes the object, so that it is loaded again on the next read. Has to be
+	 * called by the owner of the cache for changes that bypass it.
+	 * 
+	 * @param key
+	 */
+	public synchronized void invalidate(String key) {
+		invalidationCount++;
+		entries.remove(key);
+	}
+
+	/**
+	 * Removes all cached objects
+	 */
+	public synchronized void invalidateAll() {
+		invalidationCount++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the share of reads served from the cache, or 0 if nothing has been
+	 * read yet
+	 */
+	public double getHitRate() {
+		long hitCount = hits.get();
+		long requestCount = hitCount + misses.get();
+		return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * Copies the maps and collections of the object, keeping the classes of the
+	 * maps, e.g. of the submodel elements. Other values are shared, as they are
+	 * immutable in the map model.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> V copy(V object) {
+		if (object instanceof Map<?, ?>) {
+			Map<Object, Object> copy = newMap((Class<Map<Object, Object>>) object.getClass());
+			for (Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				copy.put(entry.getKey(), copy(entry.getValue()));
+			}
+			return (V) copy;
+		}
+		if (object instanceof Set<?>) {
+			Set<Object> copy = new LinkedHashSet<>();
+			for (Object element : (Set<?>) object) {
+				copy.add(copy(element));
+			}
+			return (V) copy;
+		}
+		if (object instanceof Collection<?>) {
+			Collection<Object> copy = new ArrayList<>();
+			for (Object element : (Collection<?>) object) {
+				copy.add(copy(element));
+			}
+			return (V) copy;
+		}
+		return object;
+	}
+
+	/**
+	 * Creates an empty map of the given class, or a {@link LinkedHashMap} if the
+	 * class cannot be instantiated
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<Object, Object> newMap(Class<Map<Object, Object>> mapClass) {
+		Constructor<?> constructor = mapConstructors.computeIfAbsent(mapClass, CachingBaSyxStorageAPI::getNoArgConstructor);
+		try {
+			Map<Object, Object> map = (Map<Object, Object>) constructor.newInstance();
+			// Map model classes put their defaults on construction
+			map.clear();
+			return map;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return new LinkedHashMap<>();
+		}
+	}
+
+	private static Constructor<?> getNoArgConstructor(Class<?> mapClass) {
+		try {
+			return mapClass.getConstructor();
+		} catch (NoSuchMethodException e) {
+			try {
+				return LinkedHashMap.class.getConstructor();
+			} catch (NoSuchMethodException impossible) {
+				throw new IllegalStateException(impossible);
+			}
+		}
+	}
+
+	private class CacheEntry {
+		private final T object;
+		private final long loadedAt = System.currentTimeMillis();
+
+		private CacheEntry(T object) {
+			this.object = object;
+		}
+
+		private boolean isExpired() {
+			return timeToLiveMillis > 0 && System.currentTimeMillis() - loadedAt > timeToLiveMillis;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBMapCodec;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBMapCodecProvider;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import com.mongodb.MongoClientSettings;
+
+/**
+ * Compares the encode and decode throughput of the {@link MongoDBMapCodec} with
+ * Spring's mapping used by default. Both paths are measured from the model
+ * object to the BSON bytes sent to the server and back. Run as a Java
+ * application; the optional argument is the number of properties of the
+ * submodel.
+ */
+public class MongoDBMapCodecBenchmark {
+	private static final long MEASUREMENT_NANOS = 3_000_000_000L;
+
+	private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+	private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+	public static void main(String[] args) {
+		int propertyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		Submodel submodel = TestMongoDBMapCodec.createSubmodel(propertyCount);
+
+		MappingMongoConverter converter = TestMongoDBMapCodec.createSpringConverter();
+		Codec<Document> documentCodec = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+		MongoDBMapCodec<Submodel> mapCodec = new MongoDBMapCodec<>(Submodel.class, MongoDBMapCodecProvider.createCodecRegistry());
+
+		Function<Submodel, byte[]> springEncode = object -> {
+			Document document = new Document();
+			converter.write(object, document);
+			return encode(documentCodec, document);
+		};
+		Function<byte[], Submodel> springDecode = bytes -> converter.read(Submodel.class, decode(documentCodec, bytes));
+		Function<Submodel, byte[]> codecEncode = object -> encode(mapCodec, object);
+		Function<byte[], Submodel> codecDecode = bytes -> decode(mapCodec, bytes);
+
+		byte[] bytes = codecEncode.apply(submodel);
+		System.out.println("Submodel with " + propertyCount + " properties, " + bytes.length + " bytes");
+		report("Spring encode", measure(() -> springEncode.apply(submodel)));
+		report("Codec encode", measure(() -> codecEncode.apply(submodel)));
+		report("Spring decode", measure(() -> springDecode.apply(bytes)));
+		report("Codec decode", measure(() -> codecDecode.apply(bytes)));
+	}
+
+	private static <T> byte[] encode(Codec<T> codec, T value) {
+		BasicOutputBuffer buffer = new BasicOutputBuffer();
+		try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+			codec.encode(writer, value, ENCODER_CONTEXT);
+		}
+		return buffer.toByteArray();
+	}
+
+	private static <T> T decode(Codec<T> codec, byte[] bytes) {
+		try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+			return codec.decode(reader, DECODER_CONTEXT);
+		}
+	}
+
+	/**
+	 * Runs the operation for the measurement time after a warm-up of the same
+	 * length
+	 * 
+	 * @return operations per second
+	 */
+	private static double measure(Runnable operation) {
+		run(operation, MEASUREMENT_NANOS);
+		return run(operation, MEASUREMENT_NANOS) * 1e9 / MEASUREMENT_NANOS;
+	}
+
+	private static long run(Runnable operation, long durationNanos) {
+		long count = 0;
+		long end = System.nanoTime() + durationNanos;
+		while (System.nanoTime() < end) {
+			operation.run();
+			count++;
+		}
+		return count;
+	}
+
+	private static void report(String name, double operationsPerSecond) {
+		System.out.println(String.format("%-14s %10.1f ops/s", name, operationsPerSecond));
+	}
+}
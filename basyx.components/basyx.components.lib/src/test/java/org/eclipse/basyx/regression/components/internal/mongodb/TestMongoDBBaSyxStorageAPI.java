@@ -24,17 +24,35 @@
  ******************************************************************************/
 package org.eclipse.basyx.regression.components.internal.mongodb;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBPage;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBVersionConflictException;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBVersioned;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
 import org.eclipse.basyx.testsuite.regression.extensions.storage.BaSyxStorageAPISuite;
 import org.junit.After;
+import org.junit.Test;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
@@ -86,6 +104,130 @@ public class TestMongoDBBaSyxStorageAPI extends BaSyxStorageAPISuite {
 		assertFalse(mongoOps.collectionExists(testSubmodelCollectioName));
 	}
 
+	@Test
+	public void conditionalWritesRequireExpectedVersion() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		String key = testSubmodel.getIdentification().getId();
+		mongoDBStorageAPI.createOrUpdate(testSubmodel);
+		MongoDBVersioned<Submodel> stored = mongoDBStorageAPI.retrieveVersioned(key);
+		assertNotNull(stored.getVersion());
+		assertFalse(stored.getValue().containsKey(MongoDBBaSyxStorageAPI.VERSION_KEY));
+
+		String version = mongoDBStorageAPI.setFieldIfVersion(key, Referable.CATEGORY, "first", stored.getVersion());
+		assertNotNull(version);
+		assertEquals(version, mongoDBStorageAPI.getVersion(key));
+
+		// A second writer still expects the version read before
+		assertNull(mongoDBStorageAPI.setFieldIfVersion(key, Referable.CATEGORY, "second", stored.getVersion()));
+		assertNull(mongoDBStorageAPI.replaceIfVersion(testSubmodel, key, stored.getVersion()));
+		assertEquals("first", mongoDBStorageAPI.rawRetrieveFields(key, Referable.CATEGORY).get(Referable.CATEGORY));
+	}
+
+	@Test
+	public void writtenVersionIsReturned() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		String key = testSubmodel.getIdentification().getId();
+		MongoDBVersioned<Submodel> created = mongoDBStorageAPI.createOrUpdateVersioned(testSubmodel);
+		assertEquals(mongoDBStorageAPI.getVersion(key), created.getVersion());
+
+		MongoDBVersioned<Submodel> updated = mongoDBStorageAPI.updateVersioned(testSubmodel, key);
+		assertEquals(mongoDBStorageAPI.getVersion(key), updated.getVersion());
+		assertNotNull(mongoDBStorageAPI.replaceIfVersion(testSubmodel, key, updated.getVersion()));
+	}
+
+	@Test
+	public void conflictingAttemptsAreRetried() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		AtomicInteger attempts = new AtomicInteger();
+
+		String result = mongoDBStorageAPI.retryOnVersionConflict("key", () -> attempts.incrementAndGet() < 3 ? null : "written");
+
+		assertEquals("written", result);
+		assertEquals(3, attempts.get());
+	}
+
+	@Test(expected = MongoDBVersionConflictException.class)
+	public void exhaustedRetriesThrowConflict() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		mongoDBStorageAPI.retryOnVersionConflict("key", () -> null);
+	}
+
+	@Test
+	public void repeatedCreateOrUpdateKeepsSingleDocument() {
+		this.storageAPI.createOrUpdate(testSubmodel);
+		this.storageAPI.createOrUpdate(testSubmodel);
+
+		MongoOperations mongoOps = (MongoOperations) storageAPI.getStorageConnection();
+		assertEquals(1L, mongoOps.count(new Query(), testSubmodelCollectioName));
+	}
+
+	@Test
+	public void indexesAreEnsuredAfterDeletion() {
+		this.storageAPI.deleteCollection();
+		triggerCollectionCreation();
+
+		MongoOperations mongoOps = (MongoOperations) storageAPI.getStorageConnection();
+		List<IndexInfo> indexes = mongoOps.indexOps(testSubmodelCollectioName).getIndexInfo();
+		assertTrue(indexes.stream().anyMatch(i -> i.isUnique() && i.isIndexForFields(Collections.singletonList("identification.id"))));
+		assertTrue(indexes.stream().anyMatch(i -> i.isIndexForFields(Collections.singletonList("idShort"))));
+	}
+
+	@Test
+	public void retrieveByIdsKeepsOrderAndSkipsMissing() {
+		Submodel secondSubmodel = new Submodel("secondSubmodel", new CustomId("secondSubmodelId"));
+		this.storageAPI.createOrUpdate(testSubmodel);
+		this.storageAPI.createOrUpdate(secondSubmodel);
+
+		MongoDBBaSyxStorageAPI<Submodel> mongoStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		List<String> ids = Arrays.asList(secondSubmodel.getIdentification().getId(), "notExistingId", testSubmodel.getIdentification().getId());
+		List<Submodel> retrieved = mongoStorageAPI.retrieveByIds(ids);
+
+		assertEquals(2, retrieved.size());
+		assertEquals(secondSubmodel.getIdentification().getId(), retrieved.get(0).getIdentification().getId());
+		assertEquals(testSubmodel.getIdentification().getId(), retrieved.get(1).getIdentification().getId());
+	}
+
+	@Test
+	public void pagesFollowCursorAndOffset() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		for (int i = 0; i < 5; i++) {
+			mongoStorageAPI.createOrUpdate(new Submodel("pagedSubmodel" + i, new CustomId("pagedSubmodelId" + i)));
+		}
+
+		MongoDBPage<Submodel> firstPage = mongoStorageAPI.retrievePage(new Query(), (String) null, 2);
+		MongoDBPage<Submodel> secondPage = mongoStorageAPI.retrievePage(new Query(), firstPage.getNextCursor(), 2);
+		MongoDBPage<Submodel> lastPage = mongoStorageAPI.retrievePage(new Query(), secondPage.getNextCursor(), 2);
+
+		assertEquals(Arrays.asList("pagedSubmodelId0", "pagedSubmodelId1"), getIds(firstPage.getItems()));
+		assertEquals(Arrays.asList("pagedSubmodelId2", "pagedSubmodelId3"), getIds(secondPage.getItems()));
+		assertEquals(Arrays.asList("pagedSubmodelId4"), getIds(lastPage.getItems()));
+		assertFalse(lastPage.hasNext());
+
+		MongoDBPage<Submodel> offsetPage = mongoStorageAPI.retrievePage(new Query(), 3, 2);
+		assertEquals(Arrays.asList("pagedSubmodelId3", "pagedSubmodelId4"), getIds(offsetPage.getItems()));
+		assertFalse(offsetPage.hasNext());
+	}
+
+	@Test
+	public void forEachVisitsAllObjectsInBatches() {
+		BaSyxMongoDBConfiguration batchConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		batchConfig.setCursorBatchSize(2);
+		MongoDBBaSyxStorageAPI<Submodel> mongoStorageAPI = new MongoDBBaSyxStorageAPIFactory<Submodel>(batchConfig, Submodel.class, testSubmodelCollectioName).create();
+		for (int i = 0; i < 5; i++) {
+			mongoStorageAPI.createOrUpdate(new Submodel("streamedSubmodel" + i, new CustomId("streamedSubmodelId" + i)));
+		}
+
+		List<Submodel> visited = new ArrayList<>();
+		mongoStorageAPI.forEach(new Query(), visited::add);
+
+		assertEquals(5, visited.size());
+		assertTrue(visited.stream().allMatch(submodel -> submodel.getIdShort().startsWith("streamedSubmodel")));
+	}
+
+	private static List<String> getIds(List<Submodel> submodels) {
+		return submodels.stream().map(submodel -> submodel.getIdentification().getId()).collect(Collectors.toList());
+	}
+
 	private void triggerCollectionCreation() {
 		this.storageAPI.createOrUpdate(testSubmodel);
 	}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBConnectionPoolStatistics;
+import org.junit.Test;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+
+/**
+ * Tests the reference counting and the client settings of the
+ * {@link MongoDBClientRegistry}
+ *
+ */
+public class TestMongoDBClientRegistry {
+	private static final String CONNECTION_URL = "mongodb://localhost:27017/?appName=clientRegistryTest";
+
+	@Test
+	public void acquiredClientIsSharedAndClosedAfterLastRelease() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl(CONNECTION_URL);
+
+		int liveClientsBefore = MongoDBClientRegistry.getLiveClientCount();
+
+		MongoClient client0 = MongoDBClientRegistry.acquire(config);
+		MongoClient client1 = MongoDBClientRegistry.acquire(config);
+		assertSame(client0, client1);
+		assertEquals(2, MongoDBClientRegistry.getReferenceCount(config));
+		assertEquals(liveClientsBefore + 1, MongoDBClientRegistry.getLiveClientCount());
+		assertNotNull(MongoDBClientRegistry.getPoolStatistics(config));
+
+		MongoDBClientRegistry.release(client0);
+		assertEquals(1, MongoDBClientRegistry.getReferenceCount(config));
+
+		MongoDBClientRegistry.release(client1);
+		assertEquals(0, MongoDBClientRegistry.getReferenceCount(config));
+		assertEquals(liveClientsBefore, MongoDBClientRegistry.getLiveClientCount());
+	}
+
+	@Test
+	public void clientReturnedWhileAcquiredIsClosedAfterLastRelease() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl(CONNECTION_URL + "-owned");
+
+		int liveClientsBefore = MongoDBClientRegistry.getLiveClientCount();
+
+		MongoClient client = MongoDBClientRegistry.acquire(config);
+		assertSame(client, MongoDBClientRegistry.get(config));
+
+		MongoDBClientRegistry.release(client);
+		assertEquals(0, MongoDBClientRegistry.getReferenceCount(config));
+		assertEquals(liveClientsBefore, MongoDBClientRegistry.getLiveClientCount());
+	}
+
+	@Test
+	public void clientReturnedWithoutOwnerIsNotClosedOnRelease() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl(CONNECTION_URL + "-unowned");
+
+		MongoClient client = MongoDBClientRegistry.get(config);
+		assertSame(client, MongoDBClientRegistry.acquire(config));
+
+		int liveClientsBefore = MongoDBClientRegistry.getLiveClientCount();
+		MongoDBClientRegistry.release(client);
+		assertEquals(0, MongoDBClientRegistry.getReferenceCount(config));
+		assertEquals(liveClientsBefore, MongoDBClientRegistry.getLiveClientCount());
+		assertSame(client, MongoDBClientRegistry.get(config));
+	}
+
+	@Test
+	public void differentClientSettingsGetSeparateClients() {
+		BaSyxMongoDBConfiguration primaryConfig = new BaSyxMongoDBConfiguration();
+		primaryConfig.setConnectionUrl(CONNECTION_URL);
+		BaSyxMongoDBConfiguration secondaryConfig = new BaSyxMongoDBConfiguration();
+		secondaryConfig.setConnectionUrl(CONNECTION_URL);
+		secondaryConfig.setReadPreference("secondaryPreferred");
+
+		MongoClient primaryClient = MongoDBClientRegistry.acquire(primaryConfig);
+		MongoClient secondaryClient = MongoDBClientRegistry.acquire(secondaryConfig);
+		assertNotSame(primaryClient, secondaryClient);
+		assertEquals(1, MongoDBClientRegistry.getReferenceCount(primaryConfig));
+		assertEquals(1, MongoDBClientRegistry.getReferenceCount(secondaryConfig));
+
+		MongoDBClientRegistry.release(primaryClient);
+		MongoDBClientRegistry.release(secondaryClient);
+	}
+
+	@Test
+	public void configuredClientSettingsAreApplied() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl("mongodb://localhost:27017/?maxPoolSize=10");
+		config.setConnectionPoolMaxSize(20);
+		config.setConnectionPoolMaxWaitTime(500);
+		config.setServerSelectionTimeout(1000);
+		config.setReadPreference("secondaryPreferred");
+		config.setReadConcern("majority");
+		config.setWriteConcern("majority");
+
+		MongoClientSettings settings = MongoDBClientRegistry.createSettings(config, new MongoDBConnectionPoolStatistics());
+
+		assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(500, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+		assertEquals(1000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+		assertEquals(ReadPreference.secondaryPreferred(), settings.getReadPreference());
+		assertEquals(ReadConcern.MAJORITY, settings.getReadConcern());
+		assertEquals(WriteConcern.MAJORITY, settings.getWriteConcern());
+	}
+
+	@Test
+	public void unconfiguredClientSettingsKeepConnectionStringOptions() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl("mongodb://localhost:27017/?maxPoolSize=10&readPreference=nearest");
+
+		MongoClientSettings settings = MongoDBClientRegistry.createSettings(config, new MongoDBConnectionPoolStatistics());
+
+		assertEquals(10, settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(ReadPreference.nearest(), settings.getReadPreference());
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBContentStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+/**
+ * Tests the deduplication and reference counting of the
+ * {@link MongoDBContentStore}
+ *
+ */
+public class TestMongoDBContentStore {
+	private static final String FILE_COLLECTION = "contentStoreTest";
+	private static final byte[] MANUAL = "vendor manual".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] DATASHEET = "vendor datasheet".getBytes(StandardCharsets.UTF_8);
+
+	private MongoDBContentStore contentStore;
+
+	@Before
+	public void setUp() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setFileCollection(FILE_COLLECTION);
+		config.setFileChunkSize(4);
+		MongoClient client = MongoDBClientRegistry.get(config);
+
+		MongoDatabase database = client.getDatabase(config.getDatabase());
+		database.getCollection(FILE_COLLECTION + MongoDBContentStore.CONTENT_BUCKET_SUFFIX + ".files").drop();
+		database.getCollection(FILE_COLLECTION + MongoDBContentStore.CONTENT_BUCKET_SUFFIX + ".chunks").drop();
+		database.getCollection(FILE_COLLECTION + MongoDBContentStore.LINKS_SUFFIX).drop();
+
+		contentStore = new MongoDBContentStore(client, config);
+	}
+
+	@Test
+	public void identicalContentIsStoredOnce() throws NoSuchAlgorithmException {
+		contentStore.store("assetA-manual.pdf", new ByteArrayInputStream(MANUAL));
+		contentStore.store("assetB-manual.pdf", new ByteArrayInputStream(MANUAL));
+
+		GridFSFile contentA = contentStore.find("assetA-manual.pdf");
+		GridFSFile contentB = contentStore.find("assetB-manual.pdf");
+		assertEquals(contentA.getObjectId(), contentB.getObjectId());
+		assertEquals(MANUAL.length, contentA.getLength());
+		assertEquals(4, contentA.getChunkSize());
+		assertEquals(2, contentStore.getReferenceCount(sha256(MANUAL)));
+	}
+
+	@Test
+	public void replacedAndDeletedLinksReleaseContent() throws NoSuchAlgorithmException {
+		contentStore.store("assetA-manual.pdf", new ByteArrayInputStream(MANUAL));
+		contentStore.store("assetB-manual.pdf", new ByteArrayInputStream(MANUAL));
+
+		contentStore.store("assetA-manual.pdf", new ByteArrayInputStream(DATASHEET));
+		assertEquals(1, contentStore.getReferenceCount(sha256(MANUAL)));
+		assertEquals(1, contentStore.getReferenceCount(sha256(DATASHEET)));
+
+		contentStore.delete("assetB-manual.pdf");
+		assertEquals(0, contentStore.getReferenceCount(sha256(MANUAL)));
+		assertNull(contentStore.find("assetB-manual.pdf"));
+		assertNotNull(contentStore.find("assetA-manual.pdf"));
+	}
+
+	@Test
+	public void reuploadOfSameContentKeepsReferenceCount() throws NoSuchAlgorithmException {
+		contentStore.store("assetA-manual.pdf", new ByteArrayInputStream(MANUAL));
+		contentStore.store("assetA-manual.pdf", new ByteArrayInputStream(MANUAL));
+
+		assertEquals(1, contentStore.getReferenceCount(sha256(MANUAL)));
+	}
+
+	private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+}
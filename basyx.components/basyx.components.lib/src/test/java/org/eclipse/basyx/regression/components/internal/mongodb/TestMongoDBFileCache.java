@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.bson.types.ObjectId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileCache;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBStoredFile;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+
+/**
+ * Tests the {@link MongoDBFileCache} with files stored in GridFS
+ *
+ */
+public class TestMongoDBFileCache {
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+	private static GridFSBucket bucket;
+
+	@BeforeClass
+	public static void setUpClass() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setFileCollection("fileCacheTest");
+		bucket = MongoDBFileHelper.getGridFSBucket(MongoDBClientRegistry.get(config), config);
+	}
+
+	@Test
+	public void secondReadIsServedFromCache() throws IOException {
+		MongoDBFileCache cache = MongoDBFileCache.get(Files.createTempDirectory("basyxFileCache"), 1024);
+		MongoDBStoredFile storedFile = uploadFile(cache);
+
+		assertArrayEquals(CONTENT, copy(storedFile, 0, CONTENT.length));
+		assertArrayEquals("23456".getBytes(StandardCharsets.UTF_8), copy(storedFile, 2, 5));
+
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(CONTENT.length, cache.getSize());
+	}
+
+	@Test
+	public void leastRecentlyUsedFileIsEvicted() throws IOException {
+		MongoDBFileCache cache = MongoDBFileCache.get(Files.createTempDirectory("basyxFileCache"), CONTENT.length * 2);
+		MongoDBStoredFile first = uploadFile(cache);
+		MongoDBStoredFile second = uploadFile(cache);
+		MongoDBStoredFile third = uploadFile(cache);
+
+		copy(first, 0, CONTENT.length);
+		copy(second, 0, CONTENT.length);
+		copy(first, 0, CONTENT.length);
+		copy(third, 0, CONTENT.length);
+		assertEquals(2, cache.getEntryCount());
+
+		// second has been evicted, first is still cached
+		copy(first, 0, CONTENT.length);
+		assertEquals(3, cache.getMissCount());
+		copy(second, 0, CONTENT.length);
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void deletedFileIsInvalidated() throws IOException {
+		Path directory = Files.createTempDirectory("basyxFileCache");
+		MongoDBFileCache cache = MongoDBFileCache.get(directory, 1024);
+		MongoDBStoredFile storedFile = uploadFile(cache);
+		copy(storedFile, 0, CONTENT.length);
+		assertEquals(1, cache.getEntryCount());
+
+		MongoDBFileCache.invalidateEverywhere(storedFile.getObjectId());
+
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.getSize());
+		try (var files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	public void onlyOwnFilesAreTakenOver() throws IOException {
+		Path directory = Files.createTempDirectory("basyxFileCache");
+		Files.write(directory.resolve(new ObjectId().toHexString() + "-1700000000000"), CONTENT);
+		Path foreignFile = Files.write(directory.resolve("notes.txt"), CONTENT);
+		Path foreignTempFile = Files.write(directory.resolve("backup.tmp"), CONTENT);
+
+		MongoDBFileCache cache = MongoDBFileCache.get(directory, 1024);
+
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(CONTENT.length, cache.getSize());
+		assertTrue(Files.exists(foreignFile));
+		assertTrue(Files.exists(foreignTempFile));
+	}
+
+	private MongoDBStoredFile uploadFile(MongoDBFileCache cache) {
+		ObjectId objectId = bucket.uploadFromStream("cachedFile", new ByteArrayInputStream(CONTENT));
+		GridFSFile gridFile = bucket.find(Filters.eq("_id", objectId)).first();
+		return new MongoDBStoredFile(bucket, gridFile, "text/plain", cache);
+	}
+
+	private byte[] copy(MongoDBStoredFile storedFile, long offset, long length) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		storedFile.copyTo(out, offset, length);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientRegistry;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileNameMigration;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.junit.Test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.model.Filters;
+
+/**
+ * Tests the {@link MongoDBFileNameMigration} of legacy GridFS file names
+ *
+ */
+public class TestMongoDBFileNameMigration {
+	private static final String FILE_COLLECTION = "fileNameMigrationTest";
+	private static final String SUBMODEL_ID = "migrationSubmodelId";
+
+	@Test
+	public void legacyFilesAreRenamedAndMarkerIsWritten() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setFileCollection(FILE_COLLECTION);
+		MongoClient client = MongoDBClientRegistry.get(config);
+		MongoDatabase database = client.getDatabase(config.getDatabase());
+		database.getCollection(FILE_COLLECTION + ".files").drop();
+		database.getCollection(FILE_COLLECTION + ".chunks").drop();
+		database.getCollection(FILE_COLLECTION + MongoDBFileNameMigration.SCHEMA_SUFFIX).drop();
+		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, config);
+
+		File manual = createFile("manual");
+		File datasheet = createFile("datasheet");
+		SubmodelElementCollection documents = new SubmodelElementCollection("documents");
+		documents.addSubmodelElement(datasheet);
+		Submodel submodel = new Submodel("migrationSubmodel", new CustomId(SUBMODEL_ID));
+		submodel.addSubmodelElement(manual);
+		submodel.addSubmodelElement(documents);
+
+		// a legacy file only, and a legacy file next to a current one
+		upload(bucket, MongoDBFileHelper.legacyFileName(SUBMODEL_ID, manual, "manual"));
+		upload(bucket, MongoDBFileHelper.legacyFileName(SUBMODEL_ID, datasheet, "documents/datasheet"));
+		upload(bucket, MongoDBFileHelper.constructFileName(SUBMODEL_ID, datasheet, "documents/datasheet"));
+
+		MongoDBFileNameMigration.Result result = new MongoDBFileNameMigration(client, config).migrate(Arrays.asList(submodel));
+
+		assertEquals(1, result.getRenamedFiles());
+		assertEquals(1, result.getDeletedDuplicates());
+		assertEquals(0, result.getRemainingLegacyFiles());
+		assertNotNull(bucket.find(Filters.eq("filename", MongoDBFileHelper.constructFileName(SUBMODEL_ID, manual, "manual"))).first());
+		assertNotNull(MongoDBFileHelper.findFile(bucket, SUBMODEL_ID, datasheet, "documents/datasheet", false));
+		assertNull(bucket.find(Filters.eq("filename", MongoDBFileHelper.legacyFileName(SUBMODEL_ID, datasheet, "documents/datasheet"))).first());
+		assertTrue(MongoDBFileNameMigration.isMigrated(client, config));
+	}
+
+	@Test
+	public void unmigratedDatabaseHasNoMarker() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setFileCollection(FILE_COLLECTION + "Unmigrated");
+		MongoClient client = MongoDBClientRegistry.get(config);
+		client.getDatabase(config.getDatabase()).getCollection(config.getFileCollection() + MongoDBFileNameMigration.SCHEMA_SUFFIX).drop();
+
+		assertFalse(MongoDBFileNameMigration.isMigrated(client, config));
+	}
+
+	private static File createFile(String idShort) {
+		File file = new File("application/xml");
+		file.setIdShort(idShort);
+		file.setValue("");
+		return file;
+	}
+
+	private static void upload(GridFSBucket bucket, String fileName) {
+		bucket.uploadFromStream(fileName, new ByteArrayInputStream(fileName.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationBus;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBInvalidationEvent;
+import org.junit.Test;
+
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Tests the distribution of changes by the {@link MongoDBInvalidationBus}
+ *
+ */
+public class TestMongoDBInvalidationBus {
+
+	@Test
+	public void busIsSharedPerDatabase() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		BaSyxMongoDBConfiguration otherDatabase = new BaSyxMongoDBConfiguration();
+		otherDatabase.setDatabase("invalidationBusTest");
+
+		assertSame(MongoDBInvalidationBus.get(config), MongoDBInvalidationBus.get(new BaSyxMongoDBConfiguration()));
+		assertNotSame(MongoDBInvalidationBus.get(config), MongoDBInvalidationBus.get(otherDatabase));
+	}
+
+	@Test
+	public void eventsReachAllSubscribersDespiteFailures() {
+		MongoDBInvalidationBus bus = getIsolatedBus();
+		List<MongoDBInvalidationEvent> received = new ArrayList<>();
+		Consumer<MongoDBInvalidationEvent> failing = event -> {
+			throw new IllegalStateException("subscriber failure");
+		};
+		Consumer<MongoDBInvalidationEvent> collecting = received::add;
+		bus.subscribe(failing);
+		bus.subscribe(collecting);
+
+		MongoDBInvalidationEvent documentChange = new MongoDBInvalidationEvent("shells", OperationType.UPDATE, "documentId", "shellId", null);
+		bus.publish(documentChange);
+		bus.publish(MongoDBInvalidationEvent.forCollection("shells", OperationType.DROP));
+
+		bus.unsubscribe(failing);
+		bus.unsubscribe(collecting);
+		bus.publish(documentChange);
+
+		assertEquals(2, received.size());
+		assertEquals("shellId", received.get(0).getKey());
+		assertTrue(received.get(1).isCollectionInvalidated());
+	}
+
+	/**
+	 * Returns the bus of a database of its own, so that subscribers of other
+	 * tests are not notified
+	 */
+	private static MongoDBInvalidationBus getIsolatedBus() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setDatabase("invalidationBusSubscriberTest");
+		return MongoDBInvalidationBus.get(config);
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBKeyFilter;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link MongoDBKeyFilter} and its use by the
+ * {@link MongoDBBaSyxStorageAPI}
+ */
+public class TestMongoDBKeyFilter {
+	private static final String COLLECTION = "keyFilterTest";
+
+	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
+
+	@Before
+	public void setUp() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setSubmodelCollection(COLLECTION);
+		config.setKeyFilterEnabled(true);
+		config.setKeyFilterExpectedKeys(1000);
+		config.setChangeStreamEnabled(true);
+		storageApi = MongoDBBaSyxStorageAPIFactory.<Submodel>create(COLLECTION, Submodel.class, config);
+	}
+
+	@After
+	public void tearDown() {
+		storageApi.deleteCollection();
+	}
+
+	@Test
+	public void addedKeysAreContained() {
+		MongoDBKeyFilter filter = createLoadedFilter();
+		for (int i = 0; i < 1000; i++) {
+			filter.add("added" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.mightContain("added" + i));
+			if (filter.mightContain("absent" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue("Too many false positives: " + falsePositives, falsePositives < 50);
+	}
+
+	@Test
+	public void removedKeyIsNotContained() {
+		MongoDBKeyFilter filter = createLoadedFilter();
+		filter.add("kept");
+		filter.add("removed");
+
+		filter.remove("removed");
+		filter.remove("neverAdded");
+
+		assertTrue(filter.mightContain("kept"));
+		assertFalse(filter.mightContain("removed"));
+	}
+
+	@Test
+	public void unloadedFilterContainsEveryKey() {
+		MongoDBKeyFilter filter = new MongoDBKeyFilter(1000, 0.01);
+		assertFalse(filter.isLoaded());
+		assertTrue(filter.mightContain("unknown"));
+	}
+
+	@Test
+	public void keysAddedDuringRebuildAreKept() {
+		MongoDBKeyFilter filter = new MongoDBKeyFilter(1000, 0.01);
+		filter.rebuild(() -> new Iterator<String>() {
+			private Iterator<String> keys = Arrays.asList("stored1", "stored2").iterator();
+
+			@Override
+			public boolean hasNext() {
+				return keys.hasNext();
+			}
+
+			@Override
+			public String next() {
+				filter.add("concurrent");
+				return keys.next();
+			}
+		});
+
+		assertTrue(filter.isLoaded());
+		assertTrue(filter.mightContain("stored1"));
+		assertTrue(filter.mightContain("stored2"));
+		assertTrue(filter.mightContain("concurrent"));
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void absentKeyIsNotFound() {
+		storageApi.retrieve("absent");
+	}
+
+	@Test
+	public void writtenObjectsAreFound() {
+		Submodel first = new Submodel("first", new CustomId("first"));
+		Submodel second = new Submodel("second", new CustomId("second"));
+		storageApi.createOrUpdate(first);
+		storageApi.update(second, "second");
+
+		assertEquals("first", storageApi.retrieve("first").getIdShort());
+		assertEquals("second", storageApi.retrieve("second").getIdShort());
+		assertEquals(2, storageApi.retrieveByIds(Arrays.asList("first", "absent", "second")).size());
+	}
+
+	@Test
+	public void deletedObjectIsFilteredOut() {
+		storageApi.createOrUpdate(new Submodel("deleted", new CustomId("deleted")));
+		assertTrue(storageApi.mightExist("deleted"));
+
+		assertTrue(storageApi.delete("deleted"));
+		assertFalse(storageApi.mightExist("deleted"));
+		assertFalse(storageApi.delete("deleted"));
+	}
+
+	@Test
+	public void unreportedObjectsAreUpdatedAndDeleted() {
+		// Loads the filter, so that the object written without it is not contained
+		assertFalse(storageApi.mightExist("unreported"));
+		BaSyxMongoDBConfiguration unfilteredConfig = new BaSyxMongoDBConfiguration();
+		unfilteredConfig.setSubmodelCollection(COLLECTION);
+		MongoDBBaSyxStorageAPI<Submodel> unfilteredStorageApi = MongoDBBaSyxStorageAPIFactory.<Submodel>create(COLLECTION, Submodel.class, unfilteredConfig);
+		unfilteredStorageApi.createOrUpdate(new Submodel("unreported", new CustomId("unreported")));
+		assertFalse(storageApi.mightExist("unreported"));
+
+		storageApi.update(new Submodel("updated", new CustomId("unreported")), "unreported");
+		assertEquals("updated", unfilteredStorageApi.retrieve("unreported").getIdShort());
+		assertTrue(storageApi.mightExist("unreported"));
+
+		assertTrue(storageApi.delete("unreported"));
+	}
+
+	private static MongoDBKeyFilter createLoadedFilter() {
+		MongoDBKeyFilter filter = new MongoDBKeyFilter(1000, 0.01);
+		filter.rebuild(Collections.emptyList());
+		return filter;
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBMapCodec;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBMapCodecProvider;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyElements;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.mongodb.MongoClientSettings;
+
+/**
+ * Tests that the {@link MongoDBMapCodec} reads and writes the same documents as
+ * Spring's mapping
+ *
+ */
+public class TestMongoDBMapCodec {
+	private static final String COLLECTION = "mapCodecTest";
+	private static final String TYPE_HINT = "_class";
+
+	private final MongoDBMapCodec<Submodel> codec = new MongoDBMapCodec<>(Submodel.class, MongoDBMapCodecProvider.createCodecRegistry());
+
+	@Test
+	public void encodedDocumentEqualsSpringDocument() {
+		Submodel submodel = createSubmodel(10);
+
+		assertEquals(encodeWithSpring(submodel), encode(submodel));
+	}
+
+	@Test
+	public void decodedObjectEqualsSpringObject() {
+		BsonDocument document = encode(createSubmodel(10));
+
+		Submodel decoded = codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+
+		assertEquals(createSpringConverter().read(Submodel.class, toDocument(document)), decoded);
+	}
+
+	@Test
+	public void storageApiReadsDocumentsWrittenBySpring() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		MongoDBBaSyxStorageAPI<Submodel> springApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION).create();
+		BaSyxMongoDBConfiguration codecConfig = new BaSyxMongoDBConfiguration();
+		codecConfig.setBsonCodecEnabled(true);
+		MongoDBBaSyxStorageAPI<Submodel> codecApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(codecConfig, Submodel.class, COLLECTION).create();
+		springApi.deleteCollection();
+
+		try {
+			Submodel submodel = createSubmodel(10);
+			String id = submodel.getIdentification().getId();
+			springApi.createOrUpdate(submodel);
+			assertEquals(springApi.rawRetrieve(id), codecApi.rawRetrieve(id));
+
+			codecApi.createOrUpdate(createSubmodel(20));
+			assertEquals(codecApi.rawRetrieve(id), springApi.rawRetrieve(id));
+			assertEquals(springApi.retrieve(id).getSubmodelElements().size(), codecApi.retrieve(id).getSubmodelElements().size());
+		} finally {
+			springApi.deleteCollection();
+		}
+	}
+
+	/**
+	 * Creates a submodel with the given number of properties, which are nested in
+	 * collections of ten
+	 */
+	static Submodel createSubmodel(int propertyCount) {
+		Submodel submodel = new Submodel("codecSubmodel", new CustomId("codecSubmodelId"));
+		submodel.setSemanticId(new Reference(new Key(KeyElements.CONCEPTDESCRIPTION, false, "urn:basyx:codec", IdentifierType.CUSTOM)));
+		SubmodelElementCollection collection = null;
+		for (int i = 0; i < propertyCount; i++) {
+			if (i % 10 == 0) {
+				collection = new SubmodelElementCollection("collection" + i / 10);
+				submodel.addSubmodelElement(collection);
+			}
+			collection.addSubmodelElement(new Property("temperature" + i, 20.5 + i));
+			collection.addSubmodelElement(new Property("counter" + i, i));
+			collection.addSubmodelElement(new Property("label" + i, "sensor " + i));
+		}
+		return submodel;
+	}
+
+	static MappingMongoConverter createSpringConverter() {
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+		converter.afterPropertiesSet();
+		return converter;
+	}
+
+	private BsonDocument encode(Submodel submodel) {
+		BsonDocument document = new BsonDocument();
+		codec.encode(new BsonDocumentWriter(document), submodel, EncoderContext.builder().build());
+		return document;
+	}
+
+	private static BsonDocument encodeWithSpring(Submodel submodel) {
+		Document document = new Document();
+		createSpringConverter().write(submodel, document);
+		document.remove(TYPE_HINT);
+		return document.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry());
+	}
+
+	private static Document toDocument(BsonDocument document) {
+		return MongoClientSettings.getDefaultCodecRegistry().get(Document.class).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bson.Document;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBSubmodelValueStore;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+
+/**
+ * Tests storing the element values apart from the submodel documents via the
+ * {@link MongoDBSubmodelValueStore}
+ *
+ */
+public class TestMongoDBSubmodelValueStore {
+	private static final String COLLECTION = "valueSplitTest";
+	private static final String VALUE_COLLECTION = "valueSplitTestValues";
+	private static final int PROPERTY_COUNT = 20;
+
+	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
+	private MongoCollection<Document> submodels;
+	private MongoCollection<Document> values;
+	private Submodel submodel;
+	private String submodelId;
+
+	@Before
+	public void setUp() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setSubmodelCollection(COLLECTION);
+		config.setSubmodelValueCollection(VALUE_COLLECTION);
+		config.setValueSplitEnabled(true);
+		storageApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION).create();
+		storageApi.deleteCollection();
+
+		MongoDatabase database = storageApi.getClient().getDatabase(config.getDatabase());
+		submodels = database.getCollection(COLLECTION);
+		values = database.getCollection(VALUE_COLLECTION);
+
+		submodel = TestMongoDBMapCodec.createSubmodel(PROPERTY_COUNT);
+		submodelId = submodel.getIdentification().getId();
+		storageApi.createOrUpdate(submodel);
+	}
+
+	@After
+	public void tearDown() {
+		storageApi.deleteCollection();
+	}
+
+	@Test
+	public void splitAndMergeRestoresDocument() {
+		Map<String, Object> document = new LinkedHashMap<>(submodel);
+
+		Map<String, Object> splitValues = MongoDBSubmodelValueStore.splitDocument(document);
+		assertEquals(3 * PROPERTY_COUNT, splitValues.size());
+		assertEquals(20.5, splitValues.get("collection0/temperature0"));
+		assertFalse(getElement(document, "collection0", "temperature0").containsKey(Property.VALUE));
+		assertTrue(getElement(submodel, "collection0", "temperature0").containsKey(Property.VALUE));
+
+		MongoDBSubmodelValueStore.mergeValues(document, splitValues);
+		assertEquals(submodel, document);
+	}
+
+	@Test
+	public void valuesAreStoredApart() {
+		Document stored = submodels.find(Filters.eq("identification.id", submodelId)).first();
+		assertFalse(getElement(stored, "collection0", "counter0").containsKey(Property.VALUE));
+		assertEquals(3 * PROPERTY_COUNT, values.countDocuments());
+
+		Submodel retrieved = storageApi.rawRetrieve(submodelId);
+		assertEquals(0, getElement(retrieved, "collection0", "counter0").get(Property.VALUE));
+		assertEquals("sensor 19", getElement(retrieved, "collection1", "label19").get(Property.VALUE));
+	}
+
+	@Test
+	public void setSplitValueOnlyChangesVersionOfSubmodelDocument() {
+		String version = storageApi.getVersion(submodelId);
+
+		assertTrue(storageApi.setSplitValue(submodelId, "collection0/counter0", 42));
+
+		Document stored = submodels.find(Filters.eq("identification.id", submodelId)).first();
+		assertFalse(getElement(stored, "collection0", "counter0").containsKey(Property.VALUE));
+		assertNotEquals(version, storageApi.getVersion(submodelId));
+		assertEquals(42, getElement(storageApi.rawRetrieve(submodelId), "collection0", "counter0").get(Property.VALUE));
+
+		// A replacement based on the version read before does not overwrite the value
+		assertNull(storageApi.replaceIfVersion(submodel, submodelId, version));
+	}
+
+	@Test
+	public void fieldWritesSplitValues() {
+		String fieldPath = Submodel.SUBMODELELEMENT + ".collection0.value.counter0";
+		storageApi.setField(submodelId, fieldPath, new Property("counter0", 42));
+
+		Submodel partialSubmodel = storageApi.rawRetrieveFields(submodelId, fieldPath);
+		assertEquals(42, getElement(partialSubmodel, "collection0", "counter0").get(Property.VALUE));
+		assertEquals(3 * PROPERTY_COUNT, values.countDocuments());
+
+		storageApi.unsetField(submodelId, fieldPath);
+		assertEquals(3 * PROPERTY_COUNT - 1, values.countDocuments());
+	}
+
+	@Test
+	public void replaceAndDeleteRemoveStaleValues() {
+		storageApi.createOrUpdate(TestMongoDBMapCodec.createSubmodel(PROPERTY_COUNT / 2));
+		assertEquals(3 * PROPERTY_COUNT / 2, values.countDocuments());
+
+		storageApi.delete(submodelId);
+		assertEquals(0, values.countDocuments());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> getElement(Map<String, Object> submodel, String collectionIdShort, String idShort) {
+		Map<String, Object> elements = (Map<String, Object>) submodel.get(Submodel.SUBMODELELEMENT);
+		Map<String, Object> collection = (Map<String, Object>) elements.get(collectionIdShort);
+		return (Map<String, Object>) ((Map<String, Object>) collection.get(Property.VALUE)).get(idShort);
+	}
+}
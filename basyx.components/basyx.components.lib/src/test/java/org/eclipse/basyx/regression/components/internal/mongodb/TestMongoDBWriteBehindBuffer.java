@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.bson.Document;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBWriteBehindBuffer;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.mongodb.client.model.Filters;
+
+/**
+ * Tests the coalescing and flushing of the {@link MongoDBWriteBehindBuffer}
+ *
+ */
+public class TestMongoDBWriteBehindBuffer {
+	private static final String COLLECTION = "writeBehindTest";
+	private static final String SUBMODEL_ID = "writeBehindSubmodelId";
+	private static final String FIELD = "submodelElements.temperature";
+
+	private BaSyxMongoDBConfiguration config;
+	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
+	private MongoDBWriteBehindBuffer buffer;
+
+	@Before
+	public void setUp() {
+		config = new BaSyxMongoDBConfiguration();
+		// long enough to never flush in the background during a test
+		config.setWriteBehindWindow(60000);
+		config.setWriteBehindMaxPending(2);
+		storageApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION).create();
+		storageApi.deleteCollection();
+		storageApi.createOrUpdate(new Submodel("writeBehindSubmodel", new CustomId(SUBMODEL_ID)));
+		buffer = storageApi.getWriteBehindBuffer();
+	}
+
+	@After
+	public void tearDown() {
+		storageApi.closeWriteBehindBuffer();
+		storageApi.deleteCollection();
+	}
+
+	@Test
+	public void updatesOfSameFieldAreCoalesced() {
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 1));
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 2));
+
+		assertEquals(1, buffer.getPendingCount());
+		assertEquals(2, ((Document) buffer.getPending(SUBMODEL_ID, FIELD)).get("value"));
+		assertNull(readStoredField());
+	}
+
+	@Test
+	public void overlappingReadFlushesPendingUpdates() {
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 3));
+
+		storageApi.rawRetrieveFields(SUBMODEL_ID, "submodelElements");
+
+		assertEquals(0, buffer.getPendingCount());
+		assertEquals(3, readStoredField().get("value"));
+	}
+
+	@Test
+	public void fullBufferIsWrittenByUpdatingThread() {
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 4));
+		buffer.set(SUBMODEL_ID, "submodelElements.pressure", new Document("value", 5));
+		buffer.set(SUBMODEL_ID, "submodelElements.speed", new Document("value", 6));
+
+		assertEquals(1, buffer.getPendingCount());
+		assertEquals(4, readStoredField().get("value"));
+	}
+
+	@Test
+	public void closeWritesPendingUpdates() {
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 7));
+
+		storageApi.closeWriteBehindBuffer();
+
+		assertEquals(7, readStoredField().get("value"));
+	}
+
+	@Test
+	public void deleteCollectionDiscardsPendingUpdatesOfAllStorageAPIs() {
+		buffer.set(SUBMODEL_ID, FIELD, new Document("value", 8));
+
+		new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION).create().deleteCollection();
+
+		assertEquals(0, buffer.getPendingCount());
+	}
+
+	private Document readStoredField() {
+		MongoOperations mongoOps = (MongoOperations) storageApi.getStorageConnection();
+		Document stored = mongoOps.getCollection(COLLECTION).find(Filters.eq("identification.id", SUBMODEL_ID)).first();
+		Document elements = stored.get("submodelElements", Document.class);
+		return elements == null ? null : elements.get("temperature", Document.class);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBWriteConcernRules;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyElements;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.WriteConcern;
+
+/**
+ * Tests the durability classes configured by
+ * {@link BaSyxMongoDBConfiguration#getWriteConcernRules()}
+ *
+ */
+public class TestMongoDBWriteConcernRules {
+	private static final String COLLECTION = "writeConcernRulesTest";
+	private static final String RULES = "idShort:OperationalData.*=w1;semanticId:.*nameplate.*=majority";
+
+	private BaSyxMongoDBConfiguration config;
+	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
+
+	@Before
+	public void setUp() {
+		config = new BaSyxMongoDBConfiguration();
+		config.setSubmodelCollection(COLLECTION);
+		config.setWriteConcernRules(RULES);
+		storageApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION).create();
+		storageApi.deleteCollection();
+	}
+
+	@After
+	public void tearDown() {
+		storageApi.deleteCollection();
+	}
+
+	@Test
+	public void firstMatchingRuleApplies() {
+		MongoDBWriteConcernRules rules = MongoDBWriteConcernRules.parse(RULES + ";idShort:.*=2");
+
+		assertEquals(WriteConcern.W1, rules.resolve(new Submodel("OperationalData1", new CustomId("op"))));
+		assertEquals(WriteConcern.MAJORITY, rules.resolve(createNameplate("Nameplate", "nameplateId")));
+		assertEquals(new WriteConcern(2), rules.resolve(new Submodel("Documentation", new CustomId("doc"))));
+		assertNull(MongoDBWriteConcernRules.parse(RULES).resolve(new Submodel("Documentation", new CustomId("doc"))));
+		assertTrue(MongoDBWriteConcernRules.parse("").isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownAttributeIsRejected() {
+		MongoDBWriteConcernRules.parse("category:.*=majority");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownWriteConcernIsRejected() {
+		MongoDBWriteConcernRules.parse("idShort:.*=often");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unacknowledgedWriteConcernIsRejected() {
+		MongoDBWriteConcernRules.parse("idShort:.*=unacknowledged");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void zeroAcknowledgingNodesAreRejected() {
+		MongoDBWriteConcernRules.parse("idShort:.*=0");
+	}
+
+	@Test
+	public void writesUseWriteConcernOfSubmodel() {
+		Submodel nameplate = createNameplate("Nameplate", "nameplateId");
+		storageApi.createOrUpdate(nameplate);
+		assertEquals(WriteConcern.MAJORITY, storageApi.getWriteConcern("nameplateId"));
+
+		Submodel operationalData = new Submodel("OperationalData", new CustomId("operationalDataId"));
+		storageApi.createOrUpdate(operationalData);
+		assertEquals(WriteConcern.W1, storageApi.getWriteConcern("operationalDataId"));
+		assertTrue(storageApi.setField("operationalDataId", "submodelElements.temperature", new Property("temperature", 20)));
+		assertFalse(storageApi.setField("unknownId", "submodelElements.temperature", new Property("temperature", 20)));
+		assertTrue(storageApi.delete("operationalDataId"));
+
+		assertTrue(storageApi.delete("nameplateId"));
+		assertNull(storageApi.getWriteConcern("unknownId"));
+	}
+
+	@Test
+	public void otherCollectionsIgnoreRules() {
+		MongoDBBaSyxStorageAPI<Submodel> otherApi = new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, COLLECTION + "Other").create();
+		assertNull(otherApi.getWriteConcern("nameplateId"));
+	}
+
+	private Submodel createNameplate(String idShort, String id) {
+		Submodel submodel = new Submodel(idShort, new CustomId(id));
+		submodel.setSemanticId(new Reference(new Key(KeyElements.CONCEPTDESCRIPTION, false, "https://admin-shell.io/zvei/nameplate/1/0/Nameplate", IdentifierType.IRI)));
+		return submodel;
+	}
+}
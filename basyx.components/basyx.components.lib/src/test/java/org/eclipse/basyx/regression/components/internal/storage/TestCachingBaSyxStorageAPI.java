@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.storage.CachingBaSyxStorageAPI;
+import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.testsuite.regression.extensions.storage.BaSyxStorageAPISuite;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+/**
+ * Runs the storage API suite against a {@link CachingBaSyxStorageAPI} backed by
+ * MongoDB and tests the caching itself
+ */
+public class TestCachingBaSyxStorageAPI extends BaSyxStorageAPISuite {
+	private final static String testSubmodelCollectionName = "testcachedsubmodels";
+
+	private static BaSyxMongoDBConfiguration config = createTestConfig();
+
+	private static BaSyxMongoDBConfiguration createTestConfig() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl("mongodb://localhost:27017");
+		config.setSubmodelCollection(testSubmodelCollectionName);
+		return config;
+	}
+
+	@After
+	public void cleanUp() {
+		this.storageAPI.deleteCollection();
+	}
+
+	@Override
+	protected BaSyxStorageAPI<Submodel> getStorageAPI() {
+		return new CachingBaSyxStorageAPI<>(createMongoDBStorageAPI(), Submodel.class, 100, 0);
+	}
+
+	@Override
+	protected BaSyxStorageAPI<Submodel> getSecondStorageAPI() {
+		return createMongoDBStorageAPI();
+	}
+
+	private static BaSyxStorageAPI<Submodel> createMongoDBStorageAPI() {
+		return new MongoDBBaSyxStorageAPIFactory<Submodel>(config, Submodel.class, config.getSubmodelCollection()).create();
+	}
+
+	@Override
+	public void createCollectionIfNotExists() {
+		// Not Implemented for MongoDBBaSyxStorageAPI as Collections are created
+		// dynamically.
+	}
+
+	@Override
+	public void deleteCollection() {
+		this.storageAPI.createOrUpdate(testSubmodel);
+		MongoOperations mongoOps = (MongoOperations) storageAPI.getStorageConnection();
+		assertTrue(mongoOps.collectionExists(testSubmodelCollectionName));
+
+		this.storageAPI.deleteCollection();
+		assertFalse(mongoOps.collectionExists(testSubmodelCollectionName));
+	}
+
+	@Test
+	public void repeatedReadsAreServedFromCache() {
+		CachingBaSyxStorageAPI<Submodel> cachingAPI = getCachingAPI();
+		String key = testSubmodel.getIdentification().getId();
+		cachingAPI.createOrUpdate(testSubmodel);
+
+		cachingAPI.retrieve(key);
+		cachingAPI.retrieve(key);
+		cachingAPI.retrieve(key);
+
+		assertEquals(1, cachingAPI.getMissCount());
+		assertEquals(2, cachingAPI.getHitCount());
+		assertEquals(2.0 / 3, cachingAPI.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void modifyingReadObjectDoesNotAffectCache() {
+		CachingBaSyxStorageAPI<Submodel> cachingAPI = getCachingAPI();
+		String key = testSubmodel.getIdentification().getId();
+		cachingAPI.createOrUpdate(testSubmodel);
+
+		Submodel read = cachingAPI.retrieve(key);
+		read.setCategory("modified");
+		read.addSubmodelElement(new Property("added", 1));
+
+		Submodel readAgain = cachingAPI.retrieve(key);
+		assertEquals(testSubmodel.getCategory(), readAgain.getCategory());
+		assertEquals(testSubmodel.getSubmodelElements().size(), readAgain.getSubmodelElements().size());
+	}
+
+	@Test
+	public void writesInvalidateCachedObject() {
+		CachingBaSyxStorageAPI<Submodel> cachingAPI = getCachingAPI();
+		String key = testSubmodel.getIdentification().getId();
+		cachingAPI.createOrUpdate(testSubmodel);
+		cachingAPI.retrieve(key);
+
+		Submodel updated = new Submodel(testSubmodel.getIdShort(), new CustomId(key));
+		updated.setCategory("updated");
+		cachingAPI.update(updated, key);
+		assertEquals("updated", cachingAPI.retrieve(key).getCategory());
+
+		cachingAPI.delete(key);
+		assertNull(cachingAPI.retrieve(key));
+	}
+
+	@Test
+	public void leastRecentlyUsedObjectIsEvicted() {
+		CachingBaSyxStorageAPI<Submodel> cachingAPI = new CachingBaSyxStorageAPI<>(createMongoDBStorageAPI(), Submodel.class, 1, 0);
+		Submodel first = new Submodel("first", new CustomId("first"));
+		Submodel second = new Submodel("second", new CustomId("second"));
+		cachingAPI.createOrUpdate(first);
+		cachingAPI.createOrUpdate(second);
+
+		cachingAPI.retrieve("first");
+		cachingAPI.retrieve("second");
+		cachingAPI.retrieve("first");
+
+		assertEquals(1, cachingAPI.size());
+		assertEquals(3, cachingAPI.getMissCount());
+	}
+
+	private CachingBaSyxStorageAPI<Submodel> getCachingAPI() {
+		return (CachingBaSyxStorageAPI<Submodel>) storageAPI;
+	}
+}